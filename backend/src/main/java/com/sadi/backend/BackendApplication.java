@@ -1,6 +1,7 @@
 package com.sadi.backend;
 
 import com.sadi.backend.configs.SecretsPropertySource;
+import com.sadi.backend.configs.VirtualThreadsInitializer;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.core.env.ConfigurableEnvironment;
@@ -19,6 +20,7 @@ public class BackendApplication {
 			ConfigurableEnvironment environment = applicationContext.getEnvironment();
 			environment.getPropertySources().addFirst(new SecretsPropertySource(environment));
 		});
+		app.addInitializers(new VirtualThreadsInitializer());
 
 		app.run(args);
 	}
@@ -0,0 +1,138 @@
+package com.sadi.backend.caches;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sadi.backend.configs.EmbeddingCacheConfig;
+import com.sadi.backend.utils.BasicUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Caches the embeddings of single texts, which is how search queries are embedded.
+ * <p>
+ * Vectors are kept in a local LRU tier and in Redis as little-endian float32 bytes, keyed by the model name and a
+ * hash of the text with its whitespace normalized. Case is kept, as the model embeds differently cased texts
+ * differently. Batch requests (document indexing) go straight to the delegate.
+ */
+@Slf4j
+public class CachingEmbeddingModel implements EmbeddingModel {
+    // Bumped when the key changed meaning; v1 keys were hashed from lowercased text
+    private static final String KEY_PREFIX = "embedding:v2:";
+
+    private final EmbeddingModel delegate;
+    private final String modelName;
+    private final RedisTemplate<String, byte[]> redisTemplate;
+    private final EmbeddingCacheConfig config;
+    private final Cache<String, float[]> localCache;
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, String modelName, RedisTemplate<String, byte[]> redisTemplate,
+                                 EmbeddingCacheConfig config, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.modelName = modelName;
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxLocalEntries())
+                .expireAfterAccess(config.getLocalExpireAfterAccess())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "embedding.local");
+        this.localHits = lookupCounter(meterRegistry, "local");
+        this.redisHits = lookupCounter(meterRegistry, "redis");
+        this.misses = lookupCounter(meterRegistry, "miss");
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("embedding.cache.lookups")
+                .description("Query embedding lookups by the tier that answered them; local and redis hits are saved remote calls")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        if (!config.isEnabled()) return delegate.embed(text);
+
+        String key = KEY_PREFIX + modelName + ":" + BasicUtils.sha256Hex(normalize(text));
+        float[] vector = localCache.getIfPresent(key);
+        if (vector != null) {
+            localHits.increment();
+            return vector;
+        }
+
+        vector = readRedis(key);
+        if (vector != null) {
+            redisHits.increment();
+            localCache.put(key, vector);
+            return vector;
+        }
+
+        misses.increment();
+        vector = delegate.embed(text);
+        localCache.put(key, vector);
+        writeRedis(key, vector);
+        return vector;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    private float[] readRedis(String key) {
+        try {
+            byte[] bytes = redisTemplate.opsForValue().get(key);
+            return bytes == null ? null : decode(bytes);
+        } catch (RuntimeException e) {
+            log.warn("Failed to read cached embedding {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(String key, float[] vector) {
+        try {
+            redisTemplate.opsForValue().set(key, encode(vector), config.getRedisTtl());
+        } catch (RuntimeException e) {
+            log.warn("Failed to cache embedding {}: {}", key, e.getMessage());
+        }
+    }
+
+    static String normalize(String text) {
+        return text.trim().replaceAll("\\s+", " ");
+    }
+
+    static byte[] encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    static float[] decode(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+}
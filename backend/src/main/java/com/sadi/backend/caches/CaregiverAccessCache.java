@@ -0,0 +1,199 @@
+package com.sadi.backend.caches;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sadi.backend.configs.CaregiverAccessCacheConfig;
+import com.sadi.backend.repositories.PatientCaregiverRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The active patients of every caregiver, used to authorize caregiver access without a database query.
+ * <p>
+ * Entries live in a local tier and in Redis, tagged with a per-caregiver version kept in Redis. A change to the
+ * caregiver's patients bumps the version, which makes the Redis entry unusable, and is broadcast so every replica
+ * drops its local entry. A local entry is replaced by a marker holding the new version, so a load that started
+ * before the change cannot put the old patients back.
+ * <p>
+ * An eviction that cannot reach Redis is kept and retried, and until it succeeds this replica reads the caregiver's
+ * patients from the database. Should the replica stop before that, the Redis and local TTLs bound how long other
+ * replicas keep the old patients.
+ */
+@Slf4j
+@Component
+public class CaregiverAccessCache implements MessageListener {
+    private static final String VERSION_KEY_PREFIX = "auth:caregivers:version:";
+    private static final String ENTRY_KEY_PREFIX = "auth:caregivers:patients:";
+    private static final String EVICTION_CHANNEL = "auth:caregivers:evictions";
+
+    private final PatientCaregiverRepository patientCaregiverRepository;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final CaregiverAccessCacheConfig config;
+    private final Cache<String, Entry> localCache;
+    private final Set<String> pendingEvictions = ConcurrentHashMap.newKeySet();
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public CaregiverAccessCache(PatientCaregiverRepository patientCaregiverRepository,
+                                RedisTemplate<String, Object> redisTemplate,
+                                RedisMessageListenerContainer redisMessageListenerContainer,
+                                CaregiverAccessCacheConfig config, MeterRegistry meterRegistry) {
+        this.patientCaregiverRepository = patientCaregiverRepository;
+        this.redisTemplate = redisTemplate;
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
+        this.config = config;
+        // The expiry bounds how long a lost eviction message can leave a replica with stale access
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxLocalEntries())
+                .expireAfterWrite(config.getLocalTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "caregiver.access.local");
+        this.redisHits = lookupCounter(meterRegistry, "redis");
+        this.misses = lookupCounter(meterRegistry, "miss");
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("caregiver.access.cache.lookups")
+                .description("Caregiver access lookups the local tier could not answer, by the tier that did")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(EVICTION_CHANNEL));
+    }
+
+    public boolean isActiveCaregiver(String patientId, String caregiverId) {
+        return getActivePatientIds(caregiverId).contains(patientId);
+    }
+
+    public Set<String> getActivePatientIds(String caregiverId) {
+        if (!config.isEnabled() || pendingEvictions.contains(caregiverId)) {
+            return Set.copyOf(patientCaregiverRepository.findActivePatientIds(caregiverId));
+        }
+
+        Entry local = localCache.getIfPresent(caregiverId);
+        if (local != null && local.patientIds() != null) return local.patientIds();
+
+        List<Object> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(
+                    List.of(VERSION_KEY_PREFIX + caregiverId, ENTRY_KEY_PREFIX + caregiverId));
+        } catch (RuntimeException e) {
+            // Without the version a loaded entry could not be invalidated, so nothing is cached
+            log.warn("Caregiver access lookup in Redis failed, reading the database: {}", e.getMessage());
+            misses.increment();
+            return Set.copyOf(patientCaregiverRepository.findActivePatientIds(caregiverId));
+        }
+        long version = values == null || values.get(0) == null ? 0 : ((Number) values.get(0)).longValue();
+        Entry cached = values == null ? null : toEntry(values.get(1));
+        if (cached != null && cached.version() == version) {
+            redisHits.increment();
+            putLocal(caregiverId, cached);
+            return cached.patientIds();
+        }
+
+        misses.increment();
+        // Tagged with the version read before the query, so a change made meanwhile invalidates it right away
+        Entry loaded = new Entry(version, Set.copyOf(patientCaregiverRepository.findActivePatientIds(caregiverId)));
+        try {
+            redisTemplate.opsForValue().set(ENTRY_KEY_PREFIX + caregiverId,
+                    Map.of("version", version, "patientIds", List.copyOf(loaded.patientIds())), config.getRedisTtl());
+        } catch (RuntimeException e) {
+            log.warn("Failed to store caregiver access in Redis: {}", e.getMessage());
+        }
+        putLocal(caregiverId, loaded);
+        return loaded.patientIds();
+    }
+
+    /**
+     * Invalidates the caregiver's patients on every replica once the surrounding transaction commits, or right away
+     * when there is none.
+     */
+    public void evict(String caregiverId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(caregiverId);
+                }
+            });
+        } else {
+            evictNow(caregiverId);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf(':');
+        if (separator < 0) {
+            log.warn("Skipping unreadable caregiver eviction: {}", body);
+            return;
+        }
+        markStale(body.substring(0, separator), Long.parseLong(body.substring(separator + 1)));
+    }
+
+    /**
+     * Retries the evictions that could not reach Redis.
+     */
+    @Scheduled(fixedDelayString = "${auth.caregiver-cache.eviction-retry-interval}")
+    public void retryPendingEvictions() {
+        pendingEvictions.forEach(this::evictNow);
+    }
+
+    private void evictNow(String caregiverId) {
+        // Pending until every step succeeded, so this replica stops trusting the entry before Redis is touched
+        pendingEvictions.add(caregiverId);
+        try {
+            Long version = redisTemplate.opsForValue().increment(VERSION_KEY_PREFIX + caregiverId);
+            redisTemplate.delete(ENTRY_KEY_PREFIX + caregiverId);
+            long newVersion = version == null ? 0 : version;
+            markStale(caregiverId, newVersion);
+            redisTemplate.convertAndSend(EVICTION_CHANNEL, caregiverId + ":" + newVersion);
+            pendingEvictions.remove(caregiverId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to evict caregiver access of {}, retrying: {}", caregiverId, e.getMessage());
+        }
+    }
+
+    private void markStale(String caregiverId, long version) {
+        putLocal(caregiverId, new Entry(version, null));
+    }
+
+    private void putLocal(String caregiverId, Entry entry) {
+        localCache.asMap().merge(caregiverId, entry, (existing, updated) ->
+                existing.version() > updated.version() ? existing : updated);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Entry toEntry(Object value) {
+        if (!(value instanceof Map<?, ?> map)) return null;
+        Object version = map.get("version");
+        Object patientIds = map.get("patientIds");
+        if (!(version instanceof Number number) || !(patientIds instanceof Collection<?> ids)) return null;
+        return new Entry(number.longValue(), Set.copyOf((Collection<String>) ids));
+    }
+
+    private record Entry(long version, Set<String> patientIds) {
+    }
+}
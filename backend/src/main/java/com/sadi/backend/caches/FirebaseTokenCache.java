@@ -0,0 +1,83 @@
+package com.sadi.backend.caches;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.sadi.backend.configs.FirebaseTokenCacheConfig;
+import com.sadi.backend.utils.BasicUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Verified Firebase ID tokens, keyed by a hash of the raw token so the tokens themselves are never held as keys.
+ * <p>
+ * An entry lives until the token's own expiry, after which Firebase would reject it as well. Entries of a user are
+ * dropped when their custom claims change, so the next request of this replica verifies the token again.
+ */
+@Component
+public class FirebaseTokenCache {
+    private final FirebaseTokenCacheConfig config;
+    private final Clock clock;
+    private final Cache<String, Jwt> tokens;
+
+    @Autowired
+    public FirebaseTokenCache(FirebaseTokenCacheConfig config, MeterRegistry meterRegistry) {
+        this(config, meterRegistry, Clock.systemUTC());
+    }
+
+    public FirebaseTokenCache(FirebaseTokenCacheConfig config, MeterRegistry meterRegistry, Clock clock) {
+        this.config = config;
+        this.clock = clock;
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(config.getMaxEntries())
+                .expireAfter(new Expiry<String, Jwt>() {
+                    @Override
+                    public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+                        return remaining(jwt).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+                        return remaining(jwt).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokens, "auth.token");
+    }
+
+    public Jwt get(String token) {
+        if (!config.isEnabled()) return null;
+        Jwt jwt = tokens.getIfPresent(BasicUtils.sha256Hex(token));
+        // Expiry is checked here as well, the cache only evicts lazily
+        return jwt != null && remaining(jwt).isPositive() ? jwt : null;
+    }
+
+    public void put(String token, Jwt jwt) {
+        if (!config.isEnabled() || jwt.getExpiresAt() == null || !remaining(jwt).isPositive()) return;
+        tokens.put(BasicUtils.sha256Hex(token), jwt);
+    }
+
+    public void evictUser(String userId) {
+        tokens.asMap().values().removeIf(jwt -> userId.equals(jwt.getSubject()));
+    }
+
+    private Duration remaining(Jwt jwt) {
+        Instant expiresAt = jwt.getExpiresAt();
+        if (expiresAt == null) return Duration.ZERO;
+        Duration remaining = Duration.between(clock.instant(), expiresAt);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+}
@@ -0,0 +1,200 @@
+package com.sadi.backend.caches;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sadi.backend.configs.LogQueryCacheConfig;
+import com.sadi.backend.dtos.LogDTO;
+import com.sadi.backend.services.abstractions.LogService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Per-user cache for the results of the logging tools used by the chat model.
+ * <p>
+ * Every user has a data version stored in Redis which is bumped whenever one of their logs is written.
+ * Cached results are tagged with the version that was current before the underlying query ran, so any
+ * write made afterwards (on any replica) makes them unreachable.
+ */
+@Slf4j
+@Component
+public class LogQueryCache {
+    private static final String VERSION_KEY_PREFIX = "logs:version:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final LogQueryCacheConfig config;
+    private final Cache<String, UserEntry> entries;
+
+    public LogQueryCache(RedisTemplate<String, Object> redisTemplate, LogQueryCacheConfig config) {
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(config.getMaxUsers())
+                .expireAfterAccess(config.getExpireAfterAccess())
+                .build();
+    }
+
+    public long getVersion(String userId) {
+        if (!config.isEnabled()) return 0;
+        Object version = redisTemplate.opsForValue().get(VERSION_KEY_PREFIX + userId);
+        return version == null ? 0 : ((Number) version).longValue();
+    }
+
+    /**
+     * Bumps the version once the surrounding transaction commits, or right away when there is none. Bumping before
+     * the commit would let a query that still sees the old rows cache them under the new version.
+     */
+    public void bumpVersion(String userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doBumpVersion(userId);
+                }
+            });
+        } else {
+            doBumpVersion(userId);
+        }
+    }
+
+    private void doBumpVersion(String userId) {
+        redisTemplate.opsForValue().increment(VERSION_KEY_PREFIX + userId);
+        entries.invalidate(userId);
+    }
+
+    public Optional<List<LogDTO>> getLogsByTimeStamp(String userId, long version, String zoneId, Instant start, Instant end) {
+        UserEntry entry = getEntry(userId, version);
+        if (entry == null) return Optional.empty();
+
+        ZoneId zone = ZoneId.of(zoneId);
+        Instant from = start.truncatedTo(ChronoUnit.SECONDS);
+        Instant to = end.truncatedTo(ChronoUnit.SECONDS);
+        synchronized (entry) {
+            for (RangeResult range : entry.ranges) {
+                if (range.covers(zoneId, from, to)) {
+                    log.debug("Tool cache hit for range {} - {} of user {}", from, to, userId);
+                    return Optional.of(range.logs.stream()
+                            .filter(l -> {
+                                Instant createdAt = toInstant(l, zone);
+                                return !createdAt.isBefore(from) && !createdAt.isAfter(to);
+                            })
+                            .toList());
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    public void putLogsByTimeStamp(String userId, long version, String zoneId, Instant start, Instant end, List<LogDTO> logs) {
+        if (!config.isEnabled()) return;
+        UserEntry entry = getOrCreateEntry(userId, version);
+        if (entry == null) return;
+
+        Instant from = start.truncatedTo(ChronoUnit.SECONDS);
+        Instant to = end.truncatedTo(ChronoUnit.SECONDS);
+        // Results are ordered by createdAt, so a truncated scroll still covers everything before its last log
+        Instant coveredUntil = to;
+        boolean inclusive = true;
+        if (logs.size() >= LogService.TIME_RANGE_LIMIT) {
+            coveredUntil = toInstant(logs.getLast(), ZoneId.of(zoneId));
+            inclusive = false;
+        }
+        RangeResult range = new RangeResult(zoneId, from, coveredUntil, inclusive, List.copyOf(logs));
+        synchronized (entry) {
+            entry.ranges.removeIf(r -> range.contains(r));
+            entry.ranges.addFirst(range);
+            while (entry.ranges.size() > config.getMaxRangesPerUser()) {
+                entry.ranges.removeLast();
+            }
+        }
+    }
+
+    public Optional<List<LogDTO>> getLogsByQuery(String userId, long version, String zoneId, String queryString,
+                                                 String logType, Instant start, Instant end) {
+        UserEntry entry = getEntry(userId, version);
+        if (entry == null) return Optional.empty();
+
+        String key = queryKey(zoneId, queryString, logType, start, end);
+        synchronized (entry) {
+            return Optional.ofNullable(entry.queries.get(key));
+        }
+    }
+
+    public void putLogsByQuery(String userId, long version, String zoneId, String queryString,
+                               String logType, Instant start, Instant end, List<LogDTO> logs) {
+        if (!config.isEnabled()) return;
+        UserEntry entry = getOrCreateEntry(userId, version);
+        if (entry == null) return;
+
+        String key = queryKey(zoneId, queryString, logType, start, end);
+        synchronized (entry) {
+            entry.queries.put(key, List.copyOf(logs));
+        }
+    }
+
+    private UserEntry getEntry(String userId, long version) {
+        if (!config.isEnabled()) return null;
+        UserEntry entry = entries.getIfPresent(userId);
+        return entry != null && entry.version == version ? entry : null;
+    }
+
+    private UserEntry getOrCreateEntry(String userId, long version) {
+        UserEntry entry = entries.asMap().compute(userId, (id, existing) ->
+                existing == null || existing.version < version ? new UserEntry(version, config.getMaxQueriesPerUser()) : existing
+        );
+        // A newer version was seen while the query was running, so this result may already be stale
+        return entry.version == version ? entry : null;
+    }
+
+    private static String queryKey(String zoneId, String queryString, String logType, Instant start, Instant end) {
+        String normalizedQuery = queryString == null ? "" : queryString.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        String normalizedType = logType == null ? "" : logType.trim().toUpperCase(Locale.ROOT);
+        return String.join("|",
+                zoneId,
+                normalizedType,
+                start == null ? "-" : String.valueOf(start.getEpochSecond()),
+                end == null ? "-" : String.valueOf(end.getEpochSecond()),
+                normalizedQuery);
+    }
+
+    private static Instant toInstant(LogDTO log, ZoneId zone) {
+        return LocalDateTime.of(log.date(), log.time()).atZone(zone).toInstant();
+    }
+
+    private static class UserEntry {
+        private final long version;
+        private final Deque<RangeResult> ranges = new ArrayDeque<>();
+        private final Map<String, List<LogDTO>> queries;
+
+        UserEntry(long version, int maxQueries) {
+            this.version = version;
+            this.queries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<LogDTO>> eldest) {
+                    return size() > maxQueries;
+                }
+            };
+        }
+    }
+
+    private record RangeResult(String zoneId, Instant from, Instant to, boolean inclusive, List<LogDTO> logs) {
+        boolean covers(String zoneId, Instant start, Instant end) {
+            return this.zoneId.equals(zoneId)
+                    && !start.isBefore(from)
+                    && (inclusive ? !end.isAfter(to) : end.isBefore(to));
+        }
+
+        boolean contains(RangeResult other) {
+            return other.inclusive ? covers(other.zoneId, other.from, other.to)
+                    : zoneId.equals(other.zoneId) && !other.from.isBefore(from) && !other.to.isAfter(to);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.sadi.backend.caches;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+
+/**
+ * Treats a failing cache as a miss. A failed read falls through to the cached method and failed writes or evictions
+ * are only logged, so an unreachable Redis slows requests down instead of failing them.
+ */
+@Slf4j
+public class LoggingCacheErrorHandler implements CacheErrorHandler {
+    @Override
+    public void handleCacheGetError(RuntimeException exception, Cache cache, Object key) {
+        log.warn("Failed to read {} from cache {}: {}", key, cache.getName(), exception.getMessage());
+    }
+
+    @Override
+    public void handleCachePutError(RuntimeException exception, Cache cache, Object key, Object value) {
+        log.warn("Failed to write {} to cache {}: {}", key, cache.getName(), exception.getMessage());
+    }
+
+    @Override
+    public void handleCacheEvictError(RuntimeException exception, Cache cache, Object key) {
+        log.warn("Failed to evict {} from cache {}: {}", key, cache.getName(), exception.getMessage());
+    }
+
+    @Override
+    public void handleCacheClearError(RuntimeException exception, Cache cache) {
+        log.warn("Failed to clear cache {}: {}", cache.getName(), exception.getMessage());
+    }
+}
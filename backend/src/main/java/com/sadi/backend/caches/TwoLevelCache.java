@@ -0,0 +1,110 @@
+package com.sadi.backend.caches;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.redis.cache.RedisCache;
+
+import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
+
+/**
+ * A local Caffeine tier in front of a Redis cache. Reads fill the local tier from Redis, writes go to both, and
+ * evictions are announced so other replicas drop their local copy as well. Keys have to be strings.
+ */
+public class TwoLevelCache implements Cache {
+    private final CaffeineCache local;
+    private final RedisCache remote;
+    private final BiConsumer<String, String> evictionPublisher;
+
+    public TwoLevelCache(CaffeineCache local, RedisCache remote, BiConsumer<String, String> evictionPublisher) {
+        this.local = local;
+        this.remote = remote;
+        this.evictionPublisher = evictionPublisher;
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = local.get(key);
+        if (value != null) return value;
+        value = remote.get(key);
+        if (value != null && value.get() != null) {
+            local.put(key, value.get());
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        if (value == null) return null;
+        Object stored = value.get();
+        if (stored != null && type != null && !type.isInstance(stored)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + stored);
+        }
+        return (T) stored;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) return (T) value.get();
+        T loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, loaded);
+        return loaded;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        local.put(key, value);
+        remote.put(key, value);
+    }
+
+    // The local tier is dropped and other replicas are told even when Redis fails, which is then left to expire
+    @Override
+    public void evict(Object key) {
+        local.evict(key);
+        try {
+            remote.evict(key);
+        } finally {
+            evictionPublisher.accept(getName(), key.toString());
+        }
+    }
+
+    @Override
+    public void clear() {
+        local.clear();
+        try {
+            remote.clear();
+        } finally {
+            evictionPublisher.accept(getName(), null);
+        }
+    }
+
+    /**
+     * Drops an entry of the local tier only, on eviction by another replica. A null key clears the local tier.
+     */
+    public void evictLocal(String key) {
+        if (key == null) {
+            local.clear();
+        } else {
+            local.evict(key);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.sadi.backend.caches;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Serves a fixed set of {@link TwoLevelCache}s. Caches are transaction aware, so puts and evictions made inside a
+ * transaction happen after it commits. This does not stop a read that loaded the old row before the commit from
+ * caching it after the eviction; such an entry lives until it expires, which is why the Redis TTL is kept short.
+ * <p>
+ * Evictions are broadcast on a Redis channel as {@code <cache>\n<key>}, an empty key meaning the whole cache.
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+    public static final String EVICTION_CHANNEL = "cache:evictions";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Map<String, TwoLevelCache> caches = new LinkedHashMap<>();
+    private final Map<String, Cache> decorated = new LinkedHashMap<>();
+
+    public TwoLevelCacheManager(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    public void addCache(TwoLevelCache cache) {
+        caches.put(cache.getName(), cache);
+        decorated.put(cache.getName(), new TransactionAwareCacheDecorator(cache));
+    }
+
+    public void publishEviction(String cacheName, String key) {
+        try {
+            stringRedisTemplate.convertAndSend(EVICTION_CHANNEL, cacheName + "\n" + (key == null ? "" : key));
+        } catch (RuntimeException e) {
+            // Other replicas keep their copy until the local tier expires it
+            log.warn("Failed to broadcast eviction of {} from cache {}: {}", key, cacheName, e.getMessage());
+        }
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return decorated.get(name);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return decorated.keySet();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('\n');
+        TwoLevelCache cache = separator < 0 ? null : caches.get(body.substring(0, separator));
+        if (cache == null) {
+            log.warn("Skipping unreadable cache eviction: {}", body);
+            return;
+        }
+        String key = body.substring(separator + 1);
+        cache.evictLocal(key.isEmpty() ? null : key);
+    }
+}
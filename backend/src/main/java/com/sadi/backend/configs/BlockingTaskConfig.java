@@ -0,0 +1,17 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "tasks.blocking")
+public class BlockingTaskConfig {
+    // Platform threads running blocking stages when virtual threads are disabled
+    private int threads = 8;
+    // Stages waiting for a thread; beyond this they run on the submitting thread
+    private int queueCapacity = 64;
+}
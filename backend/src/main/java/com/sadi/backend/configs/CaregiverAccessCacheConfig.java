@@ -0,0 +1,22 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "auth.caregiver-cache")
+public class CaregiverAccessCacheConfig {
+    private boolean enabled = true;
+    private long maxLocalEntries = 10_000;
+    // Together these bound how long a revocation whose eviction never reached Redis keeps granting access
+    private Duration localTtl = Duration.ofMinutes(5);
+    private Duration redisTtl = Duration.ofMinutes(10);
+    // How often evictions that failed to reach Redis are retried, in milliseconds
+    private long evictionRetryInterval = 5000;
+}
@@ -0,0 +1,18 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "chat.bulkhead")
+public class ChatBulkheadConfig {
+    private int maxConcurrent = 16;
+    private int maxQueued = 64;
+    private Duration maxWait = Duration.ofSeconds(10);
+}
@@ -1,24 +1,60 @@
 package com.sadi.backend.configs;
 
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.ai.azure.openai.AzureOpenAiChatModel;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.ExecutorService;
+
 @Configuration
-public class ChatClientConfig {
+public class ChatClientConfig implements DisposableBean {
+    public static final int CHAT_MEMORY_WINDOW = 20;
+
+    private ExecutorService toolCallExecutor;
+
     @Bean
     public ChatClient chatClient(AzureOpenAiChatModel model, RedisChatMemoryRepository redisChatMemoryRepository) {
         ChatMemory chatMemory = MessageWindowChatMemory.builder()
                 .chatMemoryRepository(redisChatMemoryRepository)
-                .maxMessages(20)
+                .maxMessages(CHAT_MEMORY_WINDOW)
                 .build();
 
         return ChatClient.builder(model)
                 .defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory).build())
                 .build();
     }
+
+    @Bean
+    public ToolCallingManager toolCallingManager(ToolCallbackResolver toolCallbackResolver,
+                                                 ToolExecutionExceptionProcessor toolExecutionExceptionProcessor,
+                                                 ObjectProvider<ObservationRegistry> observationRegistry,
+                                                 TaskExecutors taskExecutors,
+                                                 ToolCallingConfig toolCallingConfig) {
+        ToolCallingManager delegate = ToolCallingManager.builder()
+                .observationRegistry(observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP))
+                .toolCallbackResolver(toolCallbackResolver)
+                .toolExecutionExceptionProcessor(toolExecutionExceptionProcessor)
+                .build();
+        // Tool calls get their own pool, one thread per permit, so a call is never queued behind the work it waits on
+        int maxConcurrent = toolCallingConfig.getMaxConcurrent();
+        toolCallExecutor = taskExecutors.newBounded("tool-call-", maxConcurrent, maxConcurrent);
+        return new ParallelToolCallingManager(delegate, toolCallExecutor, toolCallingConfig);
+    }
+
+    @Override
+    public void destroy() {
+        if (toolCallExecutor != null) {
+            toolCallExecutor.shutdownNow();
+        }
+    }
 }
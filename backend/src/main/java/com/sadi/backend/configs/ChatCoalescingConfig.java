@@ -0,0 +1,24 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "chat.coalescing")
+public class ChatCoalescingConfig {
+    private boolean enabled = true;
+    private Duration maxDuration = Duration.ofMinutes(5);
+    private Duration retention = Duration.ofSeconds(30);
+    private Duration pollInterval = Duration.ofMillis(100);
+    // The owner refreshes its key well within this, followers give up once it expires
+    private Duration ownerTtl = Duration.ofSeconds(10);
+    // Chunks are appended to Redis in batches of up to flushSize, or after flushInterval
+    private int flushSize = 32;
+    private Duration flushInterval = Duration.ofMillis(50);
+}
@@ -0,0 +1,23 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "vectorstore.embedded")
+public class EmbeddedVectorStoreConfig {
+    private String directory = "data/vector-store";
+    private int m = 16;
+    private int efConstruction = 100;
+    private int efSearch = 64;
+    // Partitions with at most this many vectors are searched exactly instead of through the graph
+    private int exactSearchThreshold = 5000;
+    private int initialCapacity = 1024;
+    private int snapshotInterval = 1000;
+    // Share of replaced and deleted slots at which the files are compacted on startup
+    private double compactionThreshold = 0.3;
+}
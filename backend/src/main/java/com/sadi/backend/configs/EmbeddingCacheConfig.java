@@ -0,0 +1,19 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "embedding.cache")
+public class EmbeddingCacheConfig {
+    private boolean enabled = true;
+    private long maxLocalEntries = 5_000;
+    private Duration localExpireAfterAccess = Duration.ofHours(6);
+    private Duration redisTtl = Duration.ofDays(7);
+}
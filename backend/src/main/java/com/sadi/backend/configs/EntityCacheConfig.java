@@ -0,0 +1,21 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "entity-cache")
+public class EntityCacheConfig {
+    public static final String USERS = "users";
+    public static final String PATIENT_DETAILS = "patientDetails";
+
+    private long maxLocalEntries = 10_000;
+    private Duration localTtl = Duration.ofMinutes(5);
+    private Duration redisTtl = Duration.ofMinutes(10);
+}
@@ -5,6 +5,7 @@ import com.google.firebase.auth.AuthErrorCode;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthException;
 import com.google.firebase.auth.FirebaseToken;
+import com.sadi.backend.caches.FirebaseTokenCache;
 import org.springframework.context.annotation.Profile;
 import org.springframework.security.oauth2.core.OAuth2Error;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -13,22 +14,29 @@ import org.springframework.security.oauth2.jwt.JwtException;
 import org.springframework.security.oauth2.jwt.JwtValidationException;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
 import java.util.List;
 
 @Component
 @Profile("!test")
 public class FirebaseJwtDecoder implements JwtDecoder {
     private final FirebaseAuth firebaseAuth;
+    private final FirebaseTokenCache tokenCache;
 
-    public FirebaseJwtDecoder(FirebaseApp firebaseApp) {
+    public FirebaseJwtDecoder(FirebaseApp firebaseApp, FirebaseTokenCache tokenCache) {
         this.firebaseAuth = FirebaseAuth.getInstance(firebaseApp);
+        this.tokenCache = tokenCache;
     }
 
     @Override
     public Jwt decode(String token) throws JwtException {
+        Jwt cached = tokenCache.get(token);
+        if (cached != null) return cached;
         try {
             FirebaseToken firebaseToken = validateToken(token);
-            return createJwt(firebaseToken, token);
+            Jwt jwt = createJwt(firebaseToken, token);
+            tokenCache.put(token, jwt);
+            return jwt;
         } catch (FirebaseAuthException e) {
             AuthErrorCode authErrorCode = e.getAuthErrorCode();
             throw new JwtValidationException(e.getMessage(),
@@ -41,6 +49,8 @@ public class FirebaseJwtDecoder implements JwtDecoder {
                 .header("alg", "RS256")
                 .header("type", "JWT")
                 .subject(firebaseToken.getUid())
+                .issuedAt(toInstant(firebaseToken.getClaims().get("iat")))
+                .expiresAt(toInstant(firebaseToken.getClaims().get("exp")))
                 .claim("email", firebaseToken.getEmail())
                 .claim("email_verified", firebaseToken.isEmailVerified())
                 .claim("name", firebaseToken.getName())
@@ -50,6 +60,10 @@ public class FirebaseJwtDecoder implements JwtDecoder {
                 .build();
     }
 
+    private static Instant toInstant(Object epochSeconds) {
+        return epochSeconds instanceof Number n ? Instant.ofEpochSecond(n.longValue()) : null;
+    }
+
     private FirebaseToken validateToken(String token) throws FirebaseAuthException {
         return firebaseAuth.verifyIdToken(token);
     }
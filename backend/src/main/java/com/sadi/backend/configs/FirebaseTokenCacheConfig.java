@@ -0,0 +1,15 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "auth.token-cache")
+public class FirebaseTokenCacheConfig {
+    private boolean enabled = true;
+    private long maxEntries = 10_000;
+}
@@ -0,0 +1,15 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "logs.bulk")
+public class LogBulkIngestConfig {
+    private int maxItems = 10_000;
+    private int chunkSize = 500;
+}
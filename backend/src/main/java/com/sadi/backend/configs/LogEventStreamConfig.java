@@ -0,0 +1,28 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "logs.events")
+public class LogEventStreamConfig {
+    // Events kept per user for clients resuming with Last-Event-ID
+    private long streamMaxLength = 1000;
+    private Duration streamTtl = Duration.ofDays(1);
+    private int replayLimit = 500;
+    private long heartbeatInterval = 15000;
+    // Events queued per connection before a slow client is disconnected, it resumes from its last event id
+    private int bufferSize = 256;
+    private Duration timeout = Duration.ofMinutes(30);
+    // Threads writing to clients when virtual threads are disabled, the pool grows by one per stalled write
+    private int senderThreads = 4;
+    // A write blocked for longer closes its connection; the thread stays blocked until the container's write timeout
+    private Duration sendTimeout = Duration.ofSeconds(10);
+    private Duration subscribeTimeout = Duration.ofSeconds(5);
+}
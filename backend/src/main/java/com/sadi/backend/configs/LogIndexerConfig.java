@@ -0,0 +1,24 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "logs.indexer")
+public class LogIndexerConfig {
+    private int batchSize = 64;
+    private long pollInterval = 2000;
+    private Duration lease = Duration.ofMinutes(2);
+    private Duration initialBackoff = Duration.ofSeconds(5);
+    private Duration maxBackoff = Duration.ofMinutes(10);
+    // Tasks failing this often are marked failed and no longer retried
+    private int maxAttempts = 10;
+    // Batches indexed per poll, so a large backlog does not hold a scheduler thread
+    private int maxBatchesPerTick = 8;
+}
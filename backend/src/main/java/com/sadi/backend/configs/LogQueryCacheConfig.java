@@ -0,0 +1,20 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "logs.tool-cache")
+public class LogQueryCacheConfig {
+    private boolean enabled = true;
+    private long maxUsers = 10_000;
+    private int maxRangesPerUser = 8;
+    private int maxQueriesPerUser = 32;
+    private Duration expireAfterAccess = Duration.ofMinutes(30);
+}
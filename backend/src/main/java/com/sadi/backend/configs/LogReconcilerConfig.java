@@ -0,0 +1,27 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "logs.reconciler")
+public class LogReconcilerConfig {
+    private boolean enabled = true;
+    private long interval = 60000;
+    private int batchSize = 500;
+    private int maxBatchesPerRun = 20;
+    // Changes younger than this are left to the indexer, which may still be working on them
+    private Duration grace = Duration.ofMinutes(5);
+    private Duration lease = Duration.ofMinutes(5);
+    private Duration tombstoneRetention = Duration.ofDays(7);
+    // The full sweep checks one batch of logs and one batch of points per interval
+    private boolean sweepEnabled = false;
+    private long sweepInterval = 10000;
+    private int sweepBatchSize = 200;
+}
@@ -0,0 +1,21 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.ZoneId;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "logs.rollups")
+public class LogRollupConfig {
+    // Days of every user are cut in this one zone, it has to match the zone the stored rollups were built in
+    private ZoneId zone = ZoneId.of("Asia/Dhaka");
+    // Rebuilds the rollups at startup when the zone above differs from theirs, instead of refusing to start
+    private boolean rebuildOnZoneChange = false;
+    private int maxDays = 93;
+    private int maxUsers = 20;
+}
@@ -0,0 +1,18 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "logs.search")
+public class LogSearchConfig {
+    private boolean hybrid = true;
+    private int topK = 10;
+    // Candidates taken from each retriever before fusion
+    private int candidates = 20;
+    private int rrfK = 60;
+}
@@ -0,0 +1,19 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "logs.time-range")
+public class LogTimeRangeConfig {
+    private Backend backend = Backend.POSTGRES;
+
+    public enum Backend {
+        POSTGRES,
+        QDRANT
+    }
+}
@@ -0,0 +1,74 @@
+package com.sadi.backend.configs;
+
+import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.Points;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Optional;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "logs.vectors.quantization")
+public class LogVectorQuantizationConfig {
+    private Type type = Type.SCALAR;
+    // Keep the quantized vectors in RAM while the float32 originals are read from disk for rescoring
+    private boolean alwaysRam = true;
+    private boolean originalsOnDisk = true;
+    private float quantile = 0.99f;
+    private boolean rescore = true;
+    private double oversampling = 2.0;
+    // Apply the settings above to a collection created with different ones on startup. Off by default, an operator
+    // turns it on for one replica of one deploy
+    private boolean migrateExisting = false;
+    // Number of stored logs used to measure recall@10 against float32 on startup, 0 disables the benchmark
+    private int benchmarkSamples = 0;
+
+    public enum Type {
+        NONE,
+        SCALAR,
+        BINARY
+    }
+
+    public Optional<Collections.QuantizationConfig> toQuantizationConfig() {
+        return switch (type) {
+            case NONE -> Optional.empty();
+            case SCALAR -> Optional.of(Collections.QuantizationConfig.newBuilder()
+                    .setScalar(Collections.ScalarQuantization.newBuilder()
+                            .setType(Collections.QuantizationType.Int8)
+                            .setQuantile(quantile)
+                            .setAlwaysRam(alwaysRam))
+                    .build());
+            case BINARY -> Optional.of(Collections.QuantizationConfig.newBuilder()
+                    .setBinary(Collections.BinaryQuantization.newBuilder()
+                            .setAlwaysRam(alwaysRam))
+                    .build());
+        };
+    }
+
+    public Collections.QuantizationConfigDiff toQuantizationConfigDiff() {
+        return switch (type) {
+            case NONE -> Collections.QuantizationConfigDiff.newBuilder()
+                    .setDisabled(Collections.Disabled.getDefaultInstance())
+                    .build();
+            case SCALAR -> Collections.QuantizationConfigDiff.newBuilder()
+                    .setScalar(toQuantizationConfig().orElseThrow().getScalar())
+                    .build();
+            case BINARY -> Collections.QuantizationConfigDiff.newBuilder()
+                    .setBinary(toQuantizationConfig().orElseThrow().getBinary())
+                    .build();
+        };
+    }
+
+    public Points.SearchParams toSearchParams() {
+        if (type == Type.NONE) return Points.SearchParams.getDefaultInstance();
+        return Points.SearchParams.newBuilder()
+                .setQuantization(Points.QuantizationSearchParams.newBuilder()
+                        .setRescore(rescore)
+                        .setOversampling(oversampling))
+                .build();
+    }
+}
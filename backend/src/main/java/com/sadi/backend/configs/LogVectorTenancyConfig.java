@@ -0,0 +1,20 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "logs.vectors.tenancy")
+public class LogVectorTenancyConfig {
+    // Links of the per-user HNSW graphs built on the userId tenant index
+    private int payloadM = 16;
+    // Links of the graph across all users, 0 skips building it since every search is filtered by userId
+    private int globalM = 0;
+    // Apply the layout above to a collection created without it on startup. Off by default, an operator turns it on
+    // for one replica of one deploy
+    private boolean migrateExisting = false;
+}
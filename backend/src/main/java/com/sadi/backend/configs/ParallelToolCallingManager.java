@@ -0,0 +1,113 @@
+package com.sadi.backend.configs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the tool calls requested in one assistant message concurrently and returns their responses in the order
+ * they were requested. Each call is executed by the delegate, so tool resolution, observations and exception
+ * handling stay the same as with the default manager.
+ */
+@Slf4j
+public class ParallelToolCallingManager implements ToolCallingManager {
+    static final String TIMEOUT_RESPONSE = "The tool call timed out";
+
+    private final ToolCallingManager delegate;
+    private final Executor executor;
+    private final Semaphore permits;
+    private final ToolCallingConfig config;
+
+    public ParallelToolCallingManager(ToolCallingManager delegate, Executor executor, ToolCallingConfig config) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxConcurrent());
+    }
+
+    @Override
+    public List<ToolDefinition> resolveToolDefinitions(ToolCallingChatOptions chatOptions) {
+        return delegate.resolveToolDefinitions(chatOptions);
+    }
+
+    @Override
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        AssistantMessage assistantMessage = chatResponse.getResults().stream()
+                .map(Generation::getOutput)
+                .filter(AssistantMessage::hasToolCalls)
+                .findFirst()
+                .orElse(null);
+        if (assistantMessage == null) {
+            return delegate.executeToolCalls(prompt, chatResponse);
+        }
+
+        List<AssistantMessage.ToolCall> toolCalls = assistantMessage.getToolCalls();
+        List<CompletableFuture<ToolExecutionResult>> results = toolCalls.stream()
+                .map(toolCall -> submit(prompt, assistantMessage, toolCall))
+                .toList();
+
+        List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>();
+        boolean returnDirect = true;
+        for (int i = 0; i < toolCalls.size(); i++) {
+            AssistantMessage.ToolCall toolCall = toolCalls.get(i);
+            try {
+                ToolExecutionResult result = results.get(i).join();
+                responses.addAll(((ToolResponseMessage) result.conversationHistory().getLast()).getResponses());
+                returnDirect &= result.returnDirect();
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof TimeoutException)) {
+                    throw e.getCause() instanceof RuntimeException cause ? cause : e;
+                }
+                log.warn("Tool call {} timed out after {}", toolCall.name(), config.getTimeout());
+                responses.add(new ToolResponseMessage.ToolResponse(toolCall.id(), toolCall.name(), TIMEOUT_RESPONSE));
+                returnDirect = false;
+            }
+        }
+
+        List<Message> conversationHistory = new ArrayList<>(prompt.getInstructions());
+        conversationHistory.add(assistantMessage);
+        conversationHistory.add(new ToolResponseMessage(responses, Map.of()));
+        return ToolExecutionResult.builder()
+                .conversationHistory(conversationHistory)
+                .returnDirect(returnDirect)
+                .build();
+    }
+
+    private CompletableFuture<ToolExecutionResult> submit(Prompt prompt, AssistantMessage assistantMessage,
+                                                          AssistantMessage.ToolCall toolCall) {
+        ChatResponse singleCall = new ChatResponse(List.of(new Generation(new AssistantMessage(
+                assistantMessage.getText(), assistantMessage.getMetadata(), List.of(toolCall)))));
+        permits.acquireUninterruptibly();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return delegate.executeToolCalls(prompt, singleCall);
+                        } finally {
+                            permits.release();
+                        }
+                    }, executor)
+                    .orTimeout(config.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.sadi.backend.configs;
+
+import com.sadi.backend.services.RateLimiter;
+import com.sadi.backend.utils.RateLimited;
+import com.sadi.backend.utils.SecurityUtils;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private final RateLimiter rateLimiter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Streaming responses are dispatched again once they complete, which must not take another token
+        if (request.getDispatcherType() != DispatcherType.REQUEST) return true;
+        if (!(handler instanceof HandlerMethod method)) return true;
+        RateLimited policy = method.getMethodAnnotation(RateLimited.class);
+        if (policy == null) return true;
+
+        RateLimiter.Decision decision = rateLimiter.tryAcquire(policy,
+                policy.scope() == RateLimited.Scope.USER ? SecurityUtils.getName() : null);
+        if (!decision.allowed()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()));
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many requests, try again later");
+        }
+        return true;
+    }
+}
@@ -2,18 +2,21 @@ package com.sadi.backend.configs;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sadi.backend.dtos.StoredMessageDTO;
+import com.sadi.backend.dtos.responses.ChatResponse;
+import com.sadi.backend.enums.ChatType;
+import com.sadi.backend.repositories.ChatRepository;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.memory.ChatMemoryRepository;
 import org.springframework.ai.chat.messages.Message;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Objects;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Component
@@ -25,10 +28,14 @@ public class RedisChatMemoryRepository implements ChatMemoryRepository {
 
     private final RedisTemplate<String, Object> redisTemplate;
     private final ObjectMapper objectMapper;
+    private final ChatRepository chatRepository;
+    private final Map<String, CompletableFuture<List<Message>>> inFlightLoads = new ConcurrentHashMap<>();
 
-    public RedisChatMemoryRepository(RedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper) {
+    public RedisChatMemoryRepository(RedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper,
+                                     ChatRepository chatRepository) {
         this.redisTemplate = redisTemplate;
         this.objectMapper = objectMapper;
+        this.chatRepository = chatRepository;
     }
 
     @Override
@@ -53,7 +60,7 @@ public class RedisChatMemoryRepository implements ChatMemoryRepository {
         Object value = redisTemplate.opsForValue().get(key);
 
         if (value == null) {
-            return List.of();
+            return rehydrate(conversationId);
         }
 
         List<StoredMessageDTO> dtos;
@@ -111,6 +118,49 @@ public class RedisChatMemoryRepository implements ChatMemoryRepository {
     }
 
 
+    /**
+     * Rebuilds the conversation window from the chats table and stores it in Redis.
+     * Concurrent calls for the same conversation share a single database load.
+     */
+    public List<Message> rehydrate(@NonNull String conversationId) {
+        CompletableFuture<List<Message>> load = new CompletableFuture<>();
+        CompletableFuture<List<Message>> existing = inFlightLoads.putIfAbsent(conversationId, load);
+        if (existing != null) {
+            return existing.join();
+        }
+
+        try {
+            List<Message> messages = loadFromDatabase(conversationId);
+            if (!messages.isEmpty()) {
+                saveAll(conversationId, messages);
+            }
+            load.complete(messages);
+            return messages;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(conversationId, load);
+        }
+    }
+
+    private List<Message> loadFromDatabase(String conversationId) {
+        log.debug("Rehydrating conversation {} from database", conversationId);
+        // The conversation id is the user id, see ChatController
+        List<ChatResponse> latest = new ArrayList<>(chatRepository.findLatestByUserId(conversationId,
+                Limit.of(ChatClientConfig.CHAT_MEMORY_WINDOW)));
+
+        // Unanswered user messages (including the query of a turn that is currently running, which is
+        // persisted before the model is called) are not part of the window; the advisor appends the current one
+        while (!latest.isEmpty() && latest.getFirst().getType() == ChatType.USER) {
+            latest.removeFirst();
+        }
+
+        return latest.reversed().stream()
+                .map(ChatResponse::getMessageObject)
+                .toList();
+    }
+
     private StoredMessageDTO deserializeMessage(Object obj) {
         try {
             if (obj instanceof StoredMessageDTO) {
@@ -0,0 +1,21 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "db.partitions")
+public class TablePartitionConfig {
+    // Tables partitioned by month on created_at
+    private List<String> tables = List.of("logs", "chats");
+    private int monthsAhead = 3;
+    private String cron = "0 0 3 * * *";
+    // Chat months older than this are dropped as a whole, 0 keeps every chat
+    private int chatRetentionMonths = 0;
+}
@@ -0,0 +1,69 @@
+package com.sadi.backend.configs;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+
+/**
+ * Where blocking work runs. Boot's applicationTaskExecutor is a small platform thread pool unless virtual threads
+ * are enabled, so blocking stages only fan out on it when it is backed by virtual threads and otherwise get a
+ * bounded pool of their own.
+ * <p>
+ * Dedicated pools are handed out here instead of being declared as beans, as any {@link Executor} bean makes Boot
+ * back off from creating applicationTaskExecutor.
+ */
+@Component
+public class TaskExecutors {
+    private final boolean virtualThreads;
+    private final Executor blocking;
+    private final ExecutorService blockingPool;
+
+    public TaskExecutors(AsyncTaskExecutor applicationTaskExecutor, Environment environment, BlockingTaskConfig config) {
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        this.blockingPool = virtualThreads ? null : newBounded("blocking-", config.getThreads(), config.getQueueCapacity());
+        this.blocking = virtualThreads ? applicationTaskExecutor : blockingPool;
+    }
+
+    /**
+     * Runs each blocking stage on its own virtual thread, or on a bounded platform thread pool when virtual threads
+     * are disabled. Stages must not wait on other stages of this executor, the pool could run out of threads.
+     */
+    public Executor blocking() {
+        return blocking;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (blockingPool != null) blockingPool.shutdown();
+    }
+
+    /**
+     * Creates a pool that is not shared with anything else, so work waiting on it cannot be starved by unrelated
+     * tasks. With virtual threads every task gets its own thread and callers bound concurrency themselves; otherwise
+     * it is a fixed pool with a bounded queue whose overflow runs on the submitting thread. The caller owns the pool
+     * and shuts it down.
+     */
+    public ExecutorService newBounded(String name, int threads, int queueCapacity) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name, 0).factory());
+        }
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofPlatform().name(name, 0).daemon().factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Like {@link #newBounded} but never runs work on the submitting thread, for callers that already bound how much
+     * work they queue.
+     */
+    public ExecutorService newFixed(String name, int threads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name, 0).factory());
+        }
+        return Executors.newFixedThreadPool(threads, Thread.ofPlatform().name(name, 0).daemon().factory());
+    }
+}
@@ -0,0 +1,33 @@
+package com.sadi.backend.configs;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.util.Map;
+
+@Configuration
+public class TelegramClientConfig {
+
+    /**
+     * Shared client of the Bot API. The JDK client keeps connections to Telegram open between messages, and the
+     * token is a default URI variable so it never ends up in a URL string that could be logged.
+     */
+    @Bean
+    public RestClient telegramRestClient(RestClient.Builder builder, TelegramDispatcherConfig config,
+                                         @Value("${BOT_TOKEN}") String botToken) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(config.getConnectTimeout())
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(config.getReadTimeout());
+        return builder
+                .baseUrl(config.getBaseUrl())
+                .defaultUriVariables(Map.of("token", botToken))
+                .requestFactory(requestFactory)
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "telegram.dispatcher")
+public class TelegramDispatcherConfig {
+    private String baseUrl = "https://api.telegram.org";
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    private Duration readTimeout = Duration.ofSeconds(10);
+    private int queueCapacity = 1000;
+    /**
+     * Messages per second the bot sends across all replicas and chats, Telegram allows about 30.
+     */
+    private int globalPerSecond = 25;
+    /**
+     * Whether the bot-wide bucket is enforced, independent of rate-limit.enabled.
+     */
+    private boolean globalLimitEnabled = true;
+    /**
+     * Minimum gap between two messages to the same chat, Telegram allows about one per second.
+     */
+    private Duration chatInterval = Duration.ofSeconds(1);
+    private int maxAttempts = 5;
+    private Duration retryBackoff = Duration.ofSeconds(1);
+    /**
+     * Threads sending messages, each holds one HTTP request to Telegram.
+     */
+    private int senderThreads = 4;
+}
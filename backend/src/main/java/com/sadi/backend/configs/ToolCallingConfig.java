@@ -0,0 +1,17 @@
+package com.sadi.backend.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Setter
+@Getter
+@Configuration
+@ConfigurationProperties(prefix = "chat.tools")
+public class ToolCallingConfig {
+    private int maxConcurrent = 8;
+    private Duration timeout = Duration.ofSeconds(20);
+}
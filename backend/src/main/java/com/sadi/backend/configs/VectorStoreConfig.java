@@ -1,41 +1,71 @@
 package com.sadi.backend.configs;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sadi.backend.caches.CachingEmbeddingModel;
+import com.sadi.backend.vectorstores.EmbeddedHnswVectorStore;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.qdrant.client.QdrantClient;
 import io.qdrant.client.grpc.Collections;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.azure.openai.AzureOpenAiEmbeddingModel;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.embedding.TokenCountBatchingStrategy;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.qdrant.QdrantVectorStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.RedisTemplate;
 
+import java.io.IOException;
 import java.util.concurrent.ExecutionException;
 
 @Configuration
 @Slf4j
 public class VectorStoreConfig {
     public final static String LOG_COLLECTION_NAME = "logs";
+    // Stores the points of each user together so filtered searches only walk that user's graph
+    private static final Collections.PayloadIndexParams TENANT_INDEX_PARAMS = Collections.PayloadIndexParams.newBuilder()
+            .setKeywordIndexParams(Collections.KeywordIndexParams.newBuilder().setIsTenant(true))
+            .build();
 
     @Bean
-    public VectorStore logVectorStore(QdrantClient qdrantClient, EmbeddingModel embeddingModel) {
+    @Primary
+    public EmbeddingModel cachingEmbeddingModel(AzureOpenAiEmbeddingModel azureOpenAiEmbeddingModel,
+                                                RedisTemplate<String, byte[]> byteArrayRedisTemplate,
+                                                EmbeddingCacheConfig embeddingCacheConfig,
+                                                MeterRegistry meterRegistry) {
+        return new CachingEmbeddingModel(azureOpenAiEmbeddingModel,
+                azureOpenAiEmbeddingModel.getDefaultOptions().getDeploymentName(),
+                byteArrayRedisTemplate, embeddingCacheConfig, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.ai.vectorstore.type", havingValue = "qdrant", matchIfMissing = true)
+    public VectorStore logVectorStore(QdrantClient qdrantClient, EmbeddingModel embeddingModel,
+                                      LogVectorQuantizationConfig quantizationConfig,
+                                      LogVectorTenancyConfig tenancyConfig) {
         try {
             Boolean exists = qdrantClient.collectionExistsAsync(LOG_COLLECTION_NAME).get();
             if (!exists) {
                 log.info("Collection '{}' does not exist. Creating new collection...", LOG_COLLECTION_NAME);
 
+                Collections.CreateCollection.Builder createCollection = Collections.CreateCollection.newBuilder()
+                        .setCollectionName(LOG_COLLECTION_NAME)
+                        .setVectorsConfig(
+                                Collections.VectorsConfig.newBuilder()
+                                        .setParams(
+                                                Collections.VectorParams.newBuilder()
+                                                        .setSize(embeddingModel.dimensions())
+                                                        .setDistance(Collections.Distance.Cosine)
+                                                        .setOnDisk(quantizationConfig.isOriginalsOnDisk())
+                                                        .build()))
+                        .setHnswConfig(tenantHnswConfig(tenancyConfig));
+                quantizationConfig.toQuantizationConfig().ifPresent(createCollection::setQuantizationConfig);
                 Collections.CollectionOperationResponse collectionOperationResponse = qdrantClient.createCollectionAsync(
-                        Collections.CreateCollection.newBuilder()
-                                .setCollectionName(LOG_COLLECTION_NAME)
-                                .setVectorsConfig(
-                                        Collections.VectorsConfig.newBuilder()
-                                                .setParams(
-                                                        Collections.VectorParams.newBuilder()
-                                                                .setSize(embeddingModel.dimensions())
-                                                                .setDistance(Collections.Distance.Cosine)
-                                                                .build()))
-                                .build()
+                        createCollection.build()
                 ).get();
 
                 if (collectionOperationResponse.isInitialized()) {
@@ -46,7 +76,7 @@ public class VectorStoreConfig {
                             LOG_COLLECTION_NAME,
                             "userId",
                             Collections.PayloadSchemaType.Keyword,
-                            null,
+                            TENANT_INDEX_PARAMS,
                             true,
                             null,
                             null
@@ -77,6 +107,13 @@ public class VectorStoreConfig {
                 }
             } else {
                 log.info("Collection '{}' already exists. Skipping creation.", LOG_COLLECTION_NAME);
+                Collections.CollectionInfo collectionInfo = qdrantClient.getCollectionInfoAsync(LOG_COLLECTION_NAME).get();
+                if (tenancyConfig.isMigrateExisting()) {
+                    migrateTenantLayout(qdrantClient, collectionInfo, tenancyConfig);
+                }
+                if (quantizationConfig.isMigrateExisting()) {
+                    migrateQuantization(qdrantClient, collectionInfo, quantizationConfig);
+                }
             }
 
             return QdrantVectorStore.builder(qdrantClient, embeddingModel)
@@ -95,4 +132,71 @@ public class VectorStoreConfig {
             throw new RuntimeException("Application startup failed due to unexpected error in collection setup: " + LOG_COLLECTION_NAME, e);
         }
     }
+
+    private static Collections.HnswConfigDiff tenantHnswConfig(LogVectorTenancyConfig tenancyConfig) {
+        return Collections.HnswConfigDiff.newBuilder()
+                .setPayloadM(tenancyConfig.getPayloadM())
+                .setM(tenancyConfig.getGlobalM())
+                .build();
+    }
+
+    /**
+     * Marks the userId index of an existing collection as a tenant index and switches it to per-user graphs.
+     * The points stay where they are, Qdrant regroups them by user and rebuilds the graphs in the background.
+     */
+    private void migrateTenantLayout(QdrantClient qdrantClient, Collections.CollectionInfo collectionInfo,
+                                     LogVectorTenancyConfig tenancyConfig) throws ExecutionException, InterruptedException {
+        Collections.PayloadSchemaInfo userIdIndex = collectionInfo.getPayloadSchemaMap().get("userId");
+        if (userIdIndex == null || !userIdIndex.getParams().getKeywordIndexParams().getIsTenant()) {
+            log.info("Recreating the userId index of collection '{}' as a tenant index", LOG_COLLECTION_NAME);
+            if (userIdIndex != null) {
+                qdrantClient.deletePayloadIndexAsync(LOG_COLLECTION_NAME, "userId", true, null, null).get();
+            }
+            qdrantClient.createPayloadIndexAsync(LOG_COLLECTION_NAME, "userId", Collections.PayloadSchemaType.Keyword,
+                    TENANT_INDEX_PARAMS, true, null, null).get();
+        }
+
+        Collections.HnswConfigDiff hnswConfig = collectionInfo.getConfig().getHnswConfig();
+        if (hnswConfig.getPayloadM() != tenancyConfig.getPayloadM() || hnswConfig.getM() != tenancyConfig.getGlobalM()) {
+            log.info("Switching collection '{}' to per-user graphs", LOG_COLLECTION_NAME);
+            qdrantClient.updateCollectionAsync(Collections.UpdateCollection.newBuilder()
+                    .setCollectionName(LOG_COLLECTION_NAME)
+                    .setHnswConfig(tenantHnswConfig(tenancyConfig))
+                    .build()
+            ).get();
+        }
+    }
+
+    /**
+     * Moves an existing collection to the configured quantization and vector storage. Qdrant rebuilds the quantized
+     * vectors in the background and keeps serving searches from the old ones until it is done.
+     */
+    private void migrateQuantization(QdrantClient qdrantClient, Collections.CollectionInfo collectionInfo,
+                                     LogVectorQuantizationConfig quantizationConfig) throws ExecutionException, InterruptedException {
+        Collections.CollectionConfig current = collectionInfo.getConfig();
+        Collections.QuantizationConfig currentQuantization = current.getQuantizationConfig();
+        boolean quantizationMatches = quantizationConfig.toQuantizationConfig()
+                .map(currentQuantization::equals)
+                .orElse(currentQuantization.getQuantizationCase() == Collections.QuantizationConfig.QuantizationCase.QUANTIZATION_NOT_SET);
+        boolean onDiskMatches = current.getParams().getVectorsConfig().getParams().getOnDisk() == quantizationConfig.isOriginalsOnDisk();
+        if (quantizationMatches && onDiskMatches) return;
+
+        log.info("Migrating collection '{}' to {} quantization with originals on disk: {}", LOG_COLLECTION_NAME,
+                quantizationConfig.getType(), quantizationConfig.isOriginalsOnDisk());
+        qdrantClient.updateCollectionAsync(Collections.UpdateCollection.newBuilder()
+                .setCollectionName(LOG_COLLECTION_NAME)
+                .setQuantizationConfig(quantizationConfig.toQuantizationConfigDiff())
+                .setVectorsConfig(Collections.VectorsConfigDiff.newBuilder()
+                        .setParams(Collections.VectorParamsDiff.newBuilder()
+                                .setOnDisk(quantizationConfig.isOriginalsOnDisk())))
+                .build()
+        ).get();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.ai.vectorstore.type", havingValue = "embedded")
+    public VectorStore embeddedLogVectorStore(EmbeddingModel embeddingModel, ObjectMapper objectMapper,
+                                              EmbeddedVectorStoreConfig embeddedVectorStoreConfig) throws IOException {
+        return new EmbeddedHnswVectorStore(embeddingModel, objectMapper, embeddedVectorStoreConfig, "userId");
+    }
 }
@@ -0,0 +1,23 @@
+package com.sadi.backend.configs;
+
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Spring Boot moves Tomcat, {@code @Async} and scheduling onto virtual threads when
+ * {@code spring.threads.virtual.enabled} is set. Tool calls made while streaming a chat response run on Reactor's
+ * bounded elastic scheduler, which only picks up virtual threads from a system property read when Reactor's
+ * schedulers are first used, so it has to be set before the context starts.
+ */
+public class VirtualThreadsInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+    static final String REACTOR_VIRTUAL_THREADS_PROPERTY = "reactor.schedulers.defaultBoundedElasticOnVirtualThreads";
+
+    @Override
+    public void initialize(ConfigurableApplicationContext applicationContext) {
+        boolean enabled = applicationContext.getEnvironment()
+                .getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        if (enabled && System.getProperty(REACTOR_VIRTUAL_THREADS_PROPERTY) == null) {
+            System.setProperty(REACTOR_VIRTUAL_THREADS_PROPERTY, "true");
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.sadi.backend.dtos.responses.StatusResponse;
 import com.sadi.backend.services.UserService;
 import com.sadi.backend.services.abstractions.UserDeviceService;
 import com.sadi.backend.services.abstractions.UserVerificationService;
+import com.sadi.backend.utils.RateLimited;
 import com.sadi.backend.utils.SecurityUtils;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
@@ -56,6 +57,7 @@ public class AuthController {
     }
 
     @GetMapping("/register/otp")
+    @RateLimited(name = "registration-otp", capacity = 3, refillTokens = 5)
     public ResponseEntity<OtpResponse> registerOTP(){
         String otp = userVerificationService.cacheOtp();
         return ResponseEntity.ok(new OtpResponse(otp));
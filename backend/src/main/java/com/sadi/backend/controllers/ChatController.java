@@ -2,10 +2,15 @@ package com.sadi.backend.controllers;
 
 import com.sadi.backend.dtos.requests.ChatRequest;
 import com.sadi.backend.dtos.responses.ChatResponse;
+import com.sadi.backend.dtos.responses.CursorPage;
 import com.sadi.backend.enums.ChatType;
+import com.sadi.backend.services.ChatBulkhead;
+import com.sadi.backend.services.ChatStreamCoalescer;
 import com.sadi.backend.services.abstractions.ChatService;
 import com.sadi.backend.services.abstractions.LoggingTools;
 import com.sadi.backend.utils.BasicUtils;
+import com.sadi.backend.utils.KeysetCursor;
+import com.sadi.backend.utils.RateLimited;
 import com.sadi.backend.utils.SecurityUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -22,7 +27,9 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/v1/chat")
@@ -32,35 +39,49 @@ public class ChatController {
     private final ChatClient chatClient;
     private final ChatService chatService;
     private final LoggingTools loggingTools;
+    private final ChatBulkhead chatBulkhead;
+    private final ChatStreamCoalescer chatStreamCoalescer;
 
     @Value("classpath:/prompts/sysprompt.st")
     private Resource systemPrompt;
 
     @PostMapping
+    @RateLimited(name = "chat", capacity = 10, refillTokens = 60)
     public Flux<String> chat(
             @Valid @RequestBody ChatRequest req
             ) {
         log.debug("Received query: {}", req);
+        String userId = SecurityUtils.getName();
+        return chatStreamCoalescer.coalesce(userId, req.query(), req.requestId(), () -> generate(req, userId));
+    }
+
+    private Flux<String> generate(ChatRequest req, String userId) {
         SystemPromptTemplate template = new SystemPromptTemplate(systemPrompt);
         Message sysPrompt = template.createMessage(Map.of("time", BasicUtils.getISOStringFromZoneIdAndInstant(req.zone(), Instant.now())));
         StringBuilder response = new StringBuilder();
-        String userId = SecurityUtils.getName();
-        chatService.saveChat(req.query(), ChatType.USER, userId);
-        return chatClient
-                .prompt()
-                .system(sysPrompt.getText())
-                .user(req.query())
-                .tools(loggingTools)
-                .toolContext(Map.of("userId", userId, "zone", req.zone()))
-                .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, userId))
-                .stream().chatResponse().doOnNext(
-                        chatResponse ->
-                            response.append(chatResponse.getResult().getOutput().getText())
-                )
-                .doOnComplete(() ->
-                    chatService.saveChat(response.toString(), ChatType.ASSISTANT, userId)
-                )
-                .mapNotNull(chatResponse -> chatResponse.getResult().getOutput().getText());
+        ChatBulkhead.Permit permit = chatBulkhead.acquire(userId);
+        try {
+            chatService.saveChat(req.query(), ChatType.USER, userId);
+            return chatClient
+                    .prompt()
+                    .system(sysPrompt.getText())
+                    .user(req.query())
+                    .tools(loggingTools)
+                    .toolContext(Map.of("userId", userId, "zone", req.zone()))
+                    .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, userId))
+                    .stream().chatResponse().doOnNext(
+                            chatResponse ->
+                                response.append(chatResponse.getResult().getOutput().getText())
+                    )
+                    .doOnComplete(() ->
+                        chatService.saveChat(response.toString(), ChatType.ASSISTANT, userId)
+                    )
+                    .doFinally(signal -> permit.release())
+                    .mapNotNull(chatResponse -> chatResponse.getResult().getOutput().getText());
+        } catch (RuntimeException e) {
+            permit.release();
+            throw e;
+        }
     }
 
     @GetMapping
@@ -71,6 +92,20 @@ public class ChatController {
         return ResponseEntity.ok(new PagedModel<>(chatService.getChats(page, size)));
     }
 
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<ChatResponse>> scrollChats(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer size
+    ) {
+        List<ChatResponse> chats = chatService.getChats(KeysetCursor.decode(cursor), CursorPage.fetchLimit(size));
+        return ResponseEntity.ok(CursorPage.of(chats, size, Function.identity(),
+                chat -> KeysetCursor.encode(chat.getCreatedAt(), chat.getId())));
+    }
+
+    /**
+     * Kept for older clients. Chat memory is rehydrated from the database automatically when it is missing in Redis.
+     */
+    @Deprecated
     @PutMapping("/history")
     public ResponseEntity<Void> updateChatHistory()
     {
@@ -1,24 +1,40 @@
 package com.sadi.backend.controllers;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sadi.backend.dtos.requests.BulkLogItem;
 import com.sadi.backend.dtos.requests.CreateLogRequest;
 import com.sadi.backend.dtos.requests.UpdateLogRequest;
+import com.sadi.backend.dtos.responses.BulkLogResponse;
+import com.sadi.backend.dtos.responses.CursorPage;
+import com.sadi.backend.dtos.responses.LogDailyRollupResponse;
+import com.sadi.backend.dtos.responses.LogFeedResponse;
 import com.sadi.backend.dtos.responses.LogFullResponse;
 import com.sadi.backend.entities.Log;
 import com.sadi.backend.enums.LogType;
+import com.sadi.backend.services.LogEventBroker;
 import com.sadi.backend.services.UserService;
+import com.sadi.backend.services.abstractions.LogBulkIngestService;
+import com.sadi.backend.services.abstractions.LogRollupService;
 import com.sadi.backend.services.abstractions.LogService;
+import com.sadi.backend.utils.KeysetCursor;
 import com.sadi.backend.utils.SecurityUtils;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.*;
 import org.springframework.data.web.PagedModel;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
 import java.net.URI;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.UUID;
@@ -31,6 +47,10 @@ public class PatientLogController {
 
     private final LogService logService;
     private final UserService userService;
+    private final LogBulkIngestService logBulkIngestService;
+    private final LogRollupService logRollupService;
+    private final LogEventBroker logEventBroker;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     ResponseEntity<Void> creatLog(
@@ -44,6 +64,15 @@ public class PatientLogController {
         return  ResponseEntity.created(uri).build();
     }
 
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    ResponseEntity<BulkLogResponse> createLogs(HttpServletRequest request) throws IOException {
+        // A JSON array and newline delimited objects are both read lazily, one item at a time
+        try (MappingIterator<BulkLogItem> items = objectMapper.readerFor(BulkLogItem.class)
+                .readValues(request.getInputStream())) {
+            return ResponseEntity.ok(logBulkIngestService.ingest(SecurityUtils.getName(), items));
+        }
+    }
+
     @PutMapping("/{id}")
     ResponseEntity<Void> updateLog(
             @PathVariable UUID id,
@@ -96,4 +125,73 @@ public class PatientLogController {
         Page<LogFullResponse> pagedResult = new PageImpl<>(results, pageable, logPage.getTotalElements());
         return ResponseEntity.ok(new PagedModel<>(pagedResult));
     }
+
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<LogFullResponse>> scrollLogs(
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) Instant start,
+            @RequestParam(required = false) Instant end,
+            @RequestParam(required = false) LogType type,
+            @RequestParam(required = false, defaultValue = "DESC") Sort.Direction direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer size
+    ) {
+        log.debug("Scroll logs based on following params - start: {}, end: {}, type: {}, sort: {}, cursor: {}, size: {}",
+                start, end, type, direction, cursor, size);
+        if(userId == null)
+            userId = SecurityUtils.getName();
+        else{
+            userService.verifyCaregiver(userId, SecurityUtils.getName());
+        }
+        List<Log> logs = logService.getLogs(userId, type, start, end, KeysetCursor.decode(cursor), direction,
+                CursorPage.fetchLimit(size));
+        return ResponseEntity.ok(CursorPage.of(logs, size, LogFullResponse::getLogFullResponseFromLog,
+                lg -> KeysetCursor.encode(lg.getCreatedAt(), lg.getId())));
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(
+            @RequestParam(required = false) String userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        log.debug("Subscribe to log events of {} after {}", userId, lastEventId);
+        if(userId == null)
+            userId = SecurityUtils.getName();
+        else{
+            userService.verifyCaregiver(userId, SecurityUtils.getName());
+        }
+        return logEventBroker.subscribe(userId, lastEventId);
+    }
+
+    @GetMapping("/feed")
+    public ResponseEntity<CursorPage<LogFeedResponse>> getFeed(
+            @RequestParam(required = false) LogType type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer size
+    ) {
+        log.debug("Get log feed based on following params - type: {}, cursor: {}, size: {}", type, cursor, size);
+        List<Log> logs = logService.getFeed(SecurityUtils.getName(), type, KeysetCursor.decode(cursor),
+                CursorPage.fetchLimit(size));
+        return ResponseEntity.ok(CursorPage.of(logs, size, LogFeedResponse::getLogFeedResponseFromLog,
+                lg -> KeysetCursor.encode(lg.getCreatedAt(), lg.getId())));
+    }
+
+    @GetMapping("/rollups")
+    public ResponseEntity<List<LogDailyRollupResponse>> getRollups(
+            @RequestParam(required = false) List<String> userIds,
+            @RequestParam LocalDate start,
+            @RequestParam LocalDate end
+    ) {
+        log.debug("Get log rollups of {} from {} to {}", userIds, start, end);
+        String caller = SecurityUtils.getName();
+        if (userIds == null || userIds.isEmpty())
+            userIds = List.of(caller);
+        userIds = userIds.stream().distinct().toList();
+        for (String userId : userIds) {
+            if (!userId.equals(caller)) {
+                userService.verifyCaregiver(userId, caller);
+            }
+        }
+        return ResponseEntity.ok(logRollupService.getRollups(userIds, start, end));
+    }
 }
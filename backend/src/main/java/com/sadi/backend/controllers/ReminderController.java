@@ -1,11 +1,13 @@
 package com.sadi.backend.controllers;
 
 import com.sadi.backend.dtos.requests.ReminderReq;
+import com.sadi.backend.dtos.responses.CursorPage;
 import com.sadi.backend.dtos.responses.ReminderFullRes;
 import com.sadi.backend.entities.Reminder;
 import com.sadi.backend.enums.ReminderType;
 import com.sadi.backend.services.UserService;
 import com.sadi.backend.services.abstractions.ReminderService;
+import com.sadi.backend.utils.KeysetCursor;
 import com.sadi.backend.utils.SecurityUtils;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
@@ -82,6 +84,29 @@ public class ReminderController {
         return ResponseEntity.ok(new PagedModel<>(pagedResult));
     }
 
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<ReminderFullRes>> scrollReminders(
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) Instant start,
+            @RequestParam(required = false) Instant end,
+            @RequestParam(required = false) ReminderType type,
+            @RequestParam(required = false, defaultValue = "DESC") Sort.Direction direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer size
+    ) {
+        log.debug("Scroll reminders based on following params - start: {}, end: {}, type: {}, sort: {}, cursor: {}, size: {}",
+                start, end, type, direction, cursor, size);
+        if(userId == null)
+            userId = SecurityUtils.getName();
+        else{
+            userService.verifyCaregiver(userId, SecurityUtils.getName());
+        }
+        List<Reminder> reminders = reminderService.getReminders(userId, type, start, end, KeysetCursor.decode(cursor),
+                direction, CursorPage.fetchLimit(size));
+        return ResponseEntity.ok(CursorPage.of(reminders, size, ReminderFullRes::getReminderFullResFromReminder,
+                reminder -> KeysetCursor.encode(reminder.getNextExecution(), reminder.getId())));
+    }
+
     @GetMapping("/{id}")
     ResponseEntity<ReminderFullRes> getReminder(@PathVariable UUID id) {
         log.debug("Received get reminder request: {}", id);
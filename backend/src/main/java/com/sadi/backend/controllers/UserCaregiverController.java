@@ -3,6 +3,7 @@ package com.sadi.backend.controllers;
 import com.sadi.backend.dtos.requests.AddPatientCaregiverReq;
 import com.sadi.backend.dtos.responses.CaregiversPatientsDTO;
 import com.sadi.backend.services.abstractions.PatientCaregiverMgmtService;
+import com.sadi.backend.utils.RateLimited;
 import com.sadi.backend.utils.SecurityUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -24,6 +25,7 @@ public class UserCaregiverController {
     private final PatientCaregiverMgmtService patientCaregiverMgmtService;
 
     @GetMapping("/caregivers/patients/{userId}/otp")
+    @RateLimited(name = "caregiver-otp", capacity = 3, refillTokens = 10)
     public ResponseEntity<Void> getPatientPrimaryContactOtp(
             @PathVariable String userId
     ){
@@ -62,6 +64,7 @@ public class UserCaregiverController {
     }
 
     @GetMapping("/users/caregivers/{caregiverId}/otp")
+    @RateLimited(name = "caregiver-otp", capacity = 3, refillTokens = 10)
     public ResponseEntity<Void> sendOtpToRemoveCaregiver(
             @PathVariable String caregiverId
     ) {
@@ -1,6 +1,8 @@
 package com.sadi.backend.dtos;
 
+import com.sadi.backend.entities.Log;
 import io.qdrant.client.grpc.Points;
+import org.springframework.ai.document.Document;
 
 import java.time.Instant;
 import java.time.LocalDate;
@@ -28,6 +30,30 @@ public record LogDTO(
         );
     }
 
+    public LogDTO(LogTimelineRow row, ZoneId zoneId) {
+        this(
+                row.getDescription(),
+                row.getCreatedAt().atZone(zoneId).toLocalDate(),
+                row.getCreatedAt().atZone(zoneId).toLocalTime()
+        );
+    }
+
+    public LogDTO(Document document, ZoneId zoneId) {
+        this(
+                document.getText(),
+                extractDate(document.getMetadata().get("createdAt").toString(), zoneId),
+                extractTime(document.getMetadata().get("createdAt").toString(), zoneId)
+        );
+    }
+
+    public LogDTO(Log log, ZoneId zoneId) {
+        this(
+                log.getDescription(),
+                log.getCreatedAt().atZone(zoneId).toLocalDate(),
+                log.getCreatedAt().atZone(zoneId).toLocalTime()
+        );
+    }
+
     private static LocalDate extractDate(String createdAtStr, ZoneId zoneId) {
         return Instant.parse(createdAtStr).atZone(zoneId).toLocalDate();
     }
@@ -0,0 +1,39 @@
+package com.sadi.backend.dtos;
+
+import com.sadi.backend.entities.Log;
+import com.sadi.backend.enums.LogEventType;
+import com.sadi.backend.enums.LogType;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Change of a log pushed to subscribers. The id is the Redis stream entry id ("millis-sequence"), which increases
+ * with every event of a user and is sent as the SSE event id.
+ */
+public record LogEvent(String id, String userId, LogEventType type, UUID logId, LogType logType, String description,
+                       Instant createdAt) {
+    private static final Pattern ID_PATTERN = Pattern.compile("\\d+-\\d+");
+
+    public static LogEvent of(LogEventType type, Log log) {
+        return new LogEvent(null, log.getUser().getId(), type, log.getId(), log.getType(), log.getDescription(),
+                log.getCreatedAt());
+    }
+
+    public LogEvent withId(String id) {
+        return new LogEvent(id, userId, type, logId, logType, description, createdAt);
+    }
+
+    public static boolean isValidId(String id) {
+        return id != null && ID_PATTERN.matcher(id).matches();
+    }
+
+    public static int compareIds(String a, String b) {
+        int dash = a.indexOf('-');
+        int otherDash = b.indexOf('-');
+        int millis = Long.compare(Long.parseLong(a, 0, dash, 10), Long.parseLong(b, 0, otherDash, 10));
+        return millis != 0 ? millis : Long.compare(Long.parseLong(a, dash + 1, a.length(), 10),
+                Long.parseLong(b, otherDash + 1, b.length(), 10));
+    }
+}
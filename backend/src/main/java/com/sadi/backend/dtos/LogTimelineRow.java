@@ -0,0 +1,10 @@
+package com.sadi.backend.dtos;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public interface LogTimelineRow {
+    UUID getId();
+    String getDescription();
+    Instant getCreatedAt();
+}
@@ -0,0 +1,25 @@
+package com.sadi.backend.dtos.requests;
+
+import com.sadi.backend.enums.LogType;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PastOrPresent;
+import jakarta.validation.constraints.Size;
+
+import java.time.Instant;
+
+public record BulkLogItem(
+        @Size(min = 1, max = 100, message = "Idempotency key must be between 1 and 100 characters")
+        String idempotencyKey,
+
+        @NotNull(message = "Type cannot be null")
+        LogType type,
+
+        @NotNull(message = "Description cannot be null")
+        @Size(min = 1, max = 65535, message = "Description must be between 1 and 65535 characters")
+        String description,
+
+        @NotNull(message = "createdAt cannot be null")
+        @PastOrPresent(message = "createdAt cannot be in the future")
+        Instant createdAt
+) {
+}
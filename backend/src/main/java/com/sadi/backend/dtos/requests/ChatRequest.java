@@ -8,7 +8,10 @@ public record ChatRequest(
         @Size(min = 1, max = 2000, message = "Query must be between 1 and 2000 characters")
         String query,
 
-        String zone
+        String zone,
+
+        @Size(max = 100, message = "Request ID must be at most 100 characters")
+        String requestId
 ) {
         public ChatRequest {
                 // Compact constructor - applies defaults
@@ -0,0 +1,21 @@
+package com.sadi.backend.dtos.responses;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BulkLogResponse(
+        Integer created,
+        Integer duplicates,
+        Integer invalid,
+        Boolean truncated,
+        List<ItemResult> results
+) {
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    public record ItemResult(Integer index, String idempotencyKey, Status status, UUID id, String error) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.sadi.backend.dtos.responses;
+
+import com.sadi.backend.enums.LogType;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+public record LogDailyRollupResponse
+        (String userId, LocalDate day, LogType type, int count, Instant firstAt, Instant lastAt, String latestDescription) {
+}
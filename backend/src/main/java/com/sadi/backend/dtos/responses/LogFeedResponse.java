@@ -0,0 +1,15 @@
+package com.sadi.backend.dtos.responses;
+
+import com.sadi.backend.entities.Log;
+import com.sadi.backend.enums.LogType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record LogFeedResponse
+        (UUID id, String userId, LogType type, String description, Instant createdAt) {
+    public static LogFeedResponse getLogFeedResponseFromLog(Log log) {
+        // The id of a lazy user is read from the proxy without loading the user
+        return new LogFeedResponse(log.getId(), log.getUser().getId(), log.getType(), log.getDescription(), log.getCreatedAt());
+    }
+}
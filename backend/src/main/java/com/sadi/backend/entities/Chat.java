@@ -3,6 +3,7 @@ package com.sadi.backend.entities;
 import com.sadi.backend.enums.ChatType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.PartitionKey;
 import org.springframework.data.annotation.CreatedDate;
 
 import java.time.Instant;
@@ -32,6 +33,7 @@ public class Chat {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String message;
 
+    @PartitionKey
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
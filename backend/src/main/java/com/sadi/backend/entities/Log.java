@@ -4,6 +4,8 @@ import com.sadi.backend.dtos.BaseSortCategory;
 import com.sadi.backend.enums.LogType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.PartitionKey;
+import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.annotation.CreatedDate;
 
 import java.time.Instant;
@@ -35,10 +37,21 @@ public class Log {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String description;
 
+    // Also used in the WHERE clause of updates and deletes, so they touch one partition instead of all of them
+    @PartitionKey
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
 
+    // Bumped on every change, the reconciler checks logs changed after its checkpoint
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    // SHA-256 of the description whose embedding is currently stored in the vector store
+    @Column(length = 64)
+    private String indexedHash;
+
     public Log(User user, LogType type, String description, Instant createdAt) {
         this.user = user;
         this.type = type;
@@ -0,0 +1,58 @@
+package com.sadi.backend.entities;
+
+import com.sadi.backend.enums.LogIndexOperation;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Pending change of a log that still has to be applied to the vector store.
+ */
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@ToString
+@Table(name = "log_index_outbox")
+public class LogIndexTask {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private UUID logId;
+
+    @Column(nullable = false)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private LogIndexOperation operation;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    // Set once the task ran out of attempts, it is kept for inspection and not claimed again
+    private Instant failedAt;
+
+    public LogIndexTask(UUID logId, String userId, LogIndexOperation operation) {
+        this.logId = logId;
+        this.userId = userId;
+        this.operation = operation;
+        this.attempts = 0;
+        this.createdAt = Instant.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+}
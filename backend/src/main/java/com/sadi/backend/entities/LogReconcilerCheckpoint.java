@@ -0,0 +1,31 @@
+package com.sadi.backend.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Position up to which the reconciler has compared a source with the vector store.
+ * The lease keeps replicas from working on the same checkpoint.
+ */
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@ToString
+@Table(name = "log_reconciler_checkpoints")
+public class LogReconcilerCheckpoint {
+    @Id
+    private String name;
+
+    private Instant positionAt;
+
+    private UUID positionId;
+
+    private Instant leasedUntil;
+}
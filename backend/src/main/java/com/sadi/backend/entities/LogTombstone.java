@@ -0,0 +1,31 @@
+package com.sadi.backend.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Record of a deleted log, kept until the reconciler has checked that its point is gone from the vector store.
+ */
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@ToString
+@Table(name = "log_tombstones")
+public class LogTombstone {
+    @Id
+    private UUID logId;
+
+    @Column(nullable = false)
+    private String userId;
+
+    @Column(nullable = false, updatable = false)
+    private Instant deletedAt;
+}
@@ -0,0 +1,7 @@
+package com.sadi.backend.enums;
+
+public enum LogEventType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,6 @@
+package com.sadi.backend.enums;
+
+public enum LogIndexOperation {
+    UPSERT,
+    DELETE
+}
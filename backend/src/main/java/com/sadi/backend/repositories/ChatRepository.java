@@ -3,14 +3,25 @@ package com.sadi.backend.repositories;
 import com.sadi.backend.dtos.responses.ChatResponse;
 import com.sadi.backend.entities.Chat;
 import com.sadi.backend.entities.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface ChatRepository extends JpaRepository<Chat, UUID> {
     Page<ChatResponse> findByUser(User user, Pageable pageable);
+
+    @Query("select c.id as id, c.type as type, c.message as message, c.createdAt as createdAt from Chat c where c.user.id = :userId order by c.createdAt desc, c.id desc")
+    List<ChatResponse> findLatestByUserId(String userId, Limit limit);
+
+    // A row value comparison, so idx_chats_user_id_created_at_id is entered at the cursor instead of skipped through
+    @Query("select c.id as id, c.type as type, c.message as message, c.createdAt as createdAt from Chat c where c.user.id = :userId and (c.createdAt, c.id) < (:createdAt, :id) order by c.createdAt desc, c.id desc")
+    List<ChatResponse> findByUserIdBefore(String userId, Instant createdAt, UUID id, Limit limit);
 }
@@ -0,0 +1,28 @@
+package com.sadi.backend.repositories;
+
+import com.sadi.backend.entities.LogIndexTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface LogIndexTaskRepository extends JpaRepository<LogIndexTask, Long> {
+
+    // SKIP LOCKED lets several replicas claim disjoint batches
+    @Query(value = """
+            SELECT * FROM log_index_outbox
+            WHERE failed_at IS NULL AND next_attempt_at <= :now
+            ORDER BY next_attempt_at, id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<LogIndexTask> findDueForUpdate(Instant now, int limit);
+
+    @Modifying
+    @Query("DELETE FROM LogIndexTask t WHERE t.id IN :ids")
+    void deleteByIds(List<Long> ids);
+}
@@ -0,0 +1,19 @@
+package com.sadi.backend.repositories;
+
+import com.sadi.backend.entities.LogReconcilerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface LogReconcilerCheckpointRepository extends JpaRepository<LogReconcilerCheckpoint, String> {
+    @Modifying
+    @Query("""
+            UPDATE LogReconcilerCheckpoint c SET c.leasedUntil = :leasedUntil
+            WHERE c.name = :name AND (c.leasedUntil IS NULL OR c.leasedUntil < :now)
+            """)
+    int claim(String name, Instant now, Instant leasedUntil);
+}
@@ -1,17 +1,108 @@
 package com.sadi.backend.repositories;
 
+import com.sadi.backend.dtos.LogTimelineRow;
 import com.sadi.backend.entities.Log;
 import com.sadi.backend.entities.User;
+import com.sadi.backend.services.abstractions.LogService;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface LogRepository extends JpaRepository<Log, UUID>, JpaSpecificationExecutor<Log> {
     List<Log> findByUserAndCreatedAtIsBetween(User user, Instant createdAtAfter, Instant createdAtBefore, Sort sort);
+
+    // Served by idx_logs_user_id_created_at_id; description is too large to be part of a btree index
+    @Query("""
+            SELECT l.id AS id, l.description AS description, l.createdAt AS createdAt FROM Log l
+            WHERE l.user.id = :userId AND l.createdAt >= :start AND l.createdAt <= :end
+            ORDER BY l.createdAt ASC, l.id ASC
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + LogService.TIME_RANGE_LIMIT))
+    List<LogTimelineRow> findTimeline(String userId, Instant start, Instant end, Limit limit);
+
+    // The next page of findTimeline, strictly after the (createdAt, id) of the last row of the previous one
+    @Query("""
+            SELECT l.id AS id, l.description AS description, l.createdAt AS createdAt FROM Log l
+            WHERE l.user.id = :userId AND l.createdAt >= :start AND l.createdAt <= :end
+              AND (l.createdAt, l.id) > (:afterCreatedAt, :afterId)
+            ORDER BY l.createdAt ASC, l.id ASC
+            """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + LogService.TIME_RANGE_LIMIT))
+    List<LogTimelineRow> findTimelineAfter(String userId, Instant start, Instant end, Instant afterCreatedAt, UUID afterId,
+                                           Limit limit);
+
+    // Terms are OR-ed so a log matching only the medicine name still ranks; ts_rank_cd favours logs matching more of them
+    @Query(value = """
+            SELECT l.id FROM logs l,
+                 CAST(replace(CAST(plainto_tsquery('english', :query) AS TEXT), '&', '|') AS TSQUERY) q
+            WHERE l.user_id = :userId AND l.type = :type
+              AND l.created_at >= :start AND l.created_at <= :end
+              AND l.description_tsv @@ q
+            ORDER BY ts_rank_cd(l.description_tsv, q) DESC, l.created_at DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<UUID> searchByText(String userId, String type, String query, Instant start, Instant end, int limit);
+
+    // Each patient's newest logs are one range of idx_logs_user_id_created_at_id, read by the lateral subquery and
+    // merged by a top-N sort, so the feed takes one connection however many patients there are
+    @Query(value = """
+            SELECT l.* FROM unnest(CAST(:userIds AS TEXT[])) AS p(user_id)
+            CROSS JOIN LATERAL (
+                SELECT * FROM logs
+                WHERE logs.user_id = p.user_id
+                  AND logs.type = ANY(CAST(:types AS TEXT[]))
+                  AND (logs.created_at, logs.id) < (:beforeCreatedAt, :beforeId)
+                ORDER BY logs.created_at DESC, logs.id DESC
+                LIMIT :limit
+            ) l
+            ORDER BY l.created_at DESC, l.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Log> findFeed(String[] userIds, String[] types, Instant beforeCreatedAt, UUID beforeId, int limit);
+
+    // Served by idx_logs_updated_at_id; the row value comparison starts the index scan at the checkpoint
+    @Query("""
+            SELECT l FROM Log l
+            WHERE (l.updatedAt, l.id) > (:at, :id) AND l.updatedAt < :until
+            ORDER BY l.updatedAt ASC, l.id ASC
+            """)
+    List<Log> findChangedSince(Instant at, UUID id, Instant until, Limit limit);
+
+    @Query("SELECT l FROM Log l WHERE l.id > :id ORDER BY l.id ASC")
+    List<Log> findAfterId(UUID id, Limit limit);
+
+    // log_ids holds the created_at of every log, which prunes the lookup to the one partition holding the log
+    @Query(value = """
+            SELECT * FROM logs
+            WHERE id = :id AND created_at = (SELECT created_at FROM log_ids WHERE id = :id)
+            """, nativeQuery = true)
+    Optional<Log> findRoutedById(UUID id);
+
+    @Query(value = """
+            SELECT l.* FROM log_ids i
+            JOIN logs l ON l.id = i.id AND l.created_at = i.created_at
+            WHERE i.id IN :ids
+            """, nativeQuery = true)
+    List<Log> findAllRoutedById(Collection<UUID> ids);
+
+    @Query("SELECT l.id FROM Log l WHERE l.id IN :ids")
+    List<UUID> findExistingIds(Collection<UUID> ids);
+
+    @Modifying
+    @Query("UPDATE Log l SET l.indexedHash = :indexedHash WHERE l.id = :id")
+    void updateIndexedHash(UUID id, String indexedHash);
 }
@@ -0,0 +1,27 @@
+package com.sadi.backend.repositories;
+
+import com.sadi.backend.entities.LogTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface LogTombstoneRepository extends JpaRepository<LogTombstone, UUID> {
+    // Served by idx_log_tombstones_deleted_at_log_id; the row value comparison starts the index scan at the checkpoint
+    @Query("""
+            SELECT t FROM LogTombstone t
+            WHERE (t.deletedAt, t.logId) > (:at, :id) AND t.deletedAt < :until
+            ORDER BY t.deletedAt ASC, t.logId ASC
+            """)
+    List<LogTombstone> findDeletedSince(Instant at, UUID id, Instant until, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM LogTombstone t WHERE t.deletedAt < :before")
+    int deleteOlderThan(Instant before);
+}
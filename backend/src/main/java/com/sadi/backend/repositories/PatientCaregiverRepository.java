@@ -20,4 +20,7 @@ public interface PatientCaregiverRepository extends JpaRepository<PatientCaregiv
 
     @Query("select new com.sadi.backend.dtos.responses.CaregiversPatientsDTO(p.caregiver.id, p.caregiver.name, p.caregiver.gender, p.caregiver.profilePicture, p.createdAt, p.removedAt) from PatientCaregiver p where (p.patient.id = :patientId and (p.removedAt is null or :includeDeleted = true))")
     List<CaregiversPatientsDTO> findByPatientId(String patientId, Boolean includeDeleted);
+
+    @Query("select p.patient.id from PatientCaregiver p where p.caregiver.id = :caregiverId and p.removedAt is null")
+    List<String> findActivePatientIds(String caregiverId);
 }
@@ -0,0 +1,114 @@
+package com.sadi.backend.services;
+
+import com.sadi.backend.configs.ChatBulkheadConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of chat turns streaming from the LLM at the same time on this replica.
+ * Each user can have a single turn in flight; other turns wait in a bounded queue for a global permit.
+ */
+@Slf4j
+@Component
+public class ChatBulkhead {
+    private final ChatBulkheadConfig config;
+    private final Semaphore permits;
+    private final Set<String> activeUsers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Timer waitTimer;
+    private final MeterRegistry meterRegistry;
+
+    public ChatBulkhead(ChatBulkheadConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.permits = new Semaphore(config.getMaxConcurrent(), true);
+        this.waitTimer = Timer.builder("chat.bulkhead.wait")
+                .description("Time chat turns spend waiting for a bulkhead permit")
+                .register(meterRegistry);
+        Gauge.builder("chat.bulkhead.in_flight", permits, p -> config.getMaxConcurrent() - p.availablePermits())
+                .description("Chat turns currently streaming")
+                .register(meterRegistry);
+        Gauge.builder("chat.bulkhead.queued", queued, AtomicInteger::get)
+                .description("Chat turns waiting for a permit")
+                .register(meterRegistry);
+    }
+
+    public Permit acquire(String userId) {
+        if (!activeUsers.add(userId)) {
+            reject("user_busy");
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "A chat response is already in progress");
+        }
+
+        try {
+            if (!permits.tryAcquire()) {
+                waitForPermit();
+            }
+        } catch (RuntimeException e) {
+            activeUsers.remove(userId);
+            throw e;
+        }
+        return new Permit(userId);
+    }
+
+    private void waitForPermit() {
+        if (queued.incrementAndGet() > config.getMaxQueued()) {
+            queued.decrementAndGet();
+            reject("queue_full");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many chat requests, try again later");
+        }
+
+        long startedAt = System.nanoTime();
+        boolean acquired = false;
+        try {
+            acquired = permits.tryAcquire(config.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            queued.decrementAndGet();
+            waitTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+
+        if (!acquired) {
+            reject("timeout");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many chat requests, try again later");
+        }
+    }
+
+    private void reject(String reason) {
+        log.debug("Chat request rejected by bulkhead: {}", reason);
+        Counter.builder("chat.bulkhead.rejected")
+                .description("Chat turns rejected by the bulkhead")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public class Permit {
+        private final String userId;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Permit(String userId) {
+            this.userId = userId;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+                activeUsers.remove(userId);
+            }
+        }
+    }
+}
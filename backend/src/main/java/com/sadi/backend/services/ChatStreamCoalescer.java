@@ -0,0 +1,158 @@
+package com.sadi.backend.services;
+
+import com.sadi.backend.configs.ChatCoalescingConfig;
+import com.sadi.backend.utils.BasicUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.ConnectableFlux;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical chat turns of a user across replicas.
+ * <p>
+ * The first request for a (user, request ID, query) claims an owner key in Redis and publishes the chunks of its
+ * answer to a Redis list in small batches. Retries of the same turn do not start a new generation; they replay the
+ * list and then tail it until the owner appends an end marker.
+ * <p>
+ * The owner key has a short TTL that the owner keeps refreshing while it generates, so followers notice an owner
+ * that died without writing an end marker. Requests without a request ID are never coalesced.
+ */
+@Slf4j
+@Component
+public class ChatStreamCoalescer {
+    private static final String KEY_PREFIX = "chat:inflight:";
+    private static final String DATA = "d";
+    private static final String END = "e";
+    private static final String ERROR = "x";
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ChatCoalescingConfig config;
+    private final Counter attachedCounter;
+
+    public ChatStreamCoalescer(RedisTemplate<String, Object> redisTemplate, ChatCoalescingConfig config,
+                               MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+        this.attachedCounter = Counter.builder("chat.coalescing.attached")
+                .description("Chat turns attached to an answer that was already being generated")
+                .register(meterRegistry);
+    }
+
+    public Flux<String> coalesce(String userId, String query, String requestId, Supplier<Flux<String>> generation) {
+        // Without a request ID two different turns with the same text cannot be told apart from a retry
+        if (!config.isEnabled() || requestId == null) return generation.get();
+
+        String ownerKey = KEY_PREFIX + userId + ":" + BasicUtils.sha256Hex(requestId + "\n" + query);
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            String token = UUID.randomUUID().toString();
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(ownerKey, token, config.getOwnerTtl()))) {
+                return publish(ownerKey, ownerKey + ":" + token, generation);
+            }
+
+            // The owner may have failed and released the key in between, in which case we try to claim it again
+            Object ownerToken = redisTemplate.opsForValue().get(ownerKey);
+            if (ownerToken != null) {
+                log.debug("Attaching to in-flight chat turn {}", ownerKey);
+                attachedCounter.increment();
+                return follow(ownerKey, ownerToken.toString());
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many chat requests, try again later");
+    }
+
+    private Flux<String> publish(String ownerKey, String chunksKey, Supplier<Flux<String>> generation) {
+        Flux<String> source;
+        try {
+            source = generation.get();
+        } catch (RuntimeException e) {
+            redisTemplate.delete(ownerKey);
+            throw e;
+        }
+
+        AtomicBoolean first = new AtomicBoolean(true);
+        ConnectableFlux<String> shared = source.replay();
+        Duration heartbeatInterval = config.getOwnerTtl().dividedBy(3);
+        Disposable heartbeat = Flux.interval(heartbeatInterval, heartbeatInterval, Schedulers.boundedElastic())
+                .subscribe(tick -> redisTemplate.expire(ownerKey, config.getOwnerTtl()));
+        // Publishing is a subscriber of its own, so slow Redis writes never hold back the chunks sent to the client
+        shared.bufferTimeout(config.getFlushSize(), config.getFlushInterval())
+                .publishOn(Schedulers.boundedElastic())
+                .subscribe(
+                        chunks -> append(chunksKey, chunks.stream().map(chunk -> DATA + chunk).toList(), first),
+                        e -> finish(ownerKey, chunksKey, ERROR, first, heartbeat),
+                        () -> finish(ownerKey, chunksKey, END, first, heartbeat));
+        // The generation keeps running when this client disconnects so that its retry can still get the answer
+        shared.connect();
+        return shared;
+    }
+
+    private void append(String chunksKey, List<String> entries, AtomicBoolean first) {
+        redisTemplate.opsForList().rightPushAll(chunksKey, List.copyOf(entries));
+        if (first.compareAndSet(true, false)) {
+            redisTemplate.expire(chunksKey, config.getMaxDuration());
+        }
+    }
+
+    private void finish(String ownerKey, String chunksKey, String marker, AtomicBoolean first, Disposable heartbeat) {
+        heartbeat.dispose();
+        append(chunksKey, List.of(marker), first);
+        redisTemplate.expire(chunksKey, config.getRetention());
+        if (END.equals(marker)) {
+            redisTemplate.expire(ownerKey, config.getRetention());
+        } else {
+            redisTemplate.delete(ownerKey);
+        }
+    }
+
+    private Flux<String> follow(String ownerKey, String ownerToken) {
+        String chunksKey = ownerKey + ":" + ownerToken;
+        AtomicLong offset = new AtomicLong();
+        return Mono.fromCallable(() -> readChunks(ownerKey, ownerToken, chunksKey, offset))
+                .subscribeOn(Schedulers.boundedElastic())
+                .repeatWhen(polls -> polls.delayElements(config.getPollInterval()))
+                .flatMapIterable(Function.identity())
+                .takeUntil(entry -> !entry.startsWith(DATA))
+                .<String>handle((entry, sink) -> {
+                    if (entry.startsWith(DATA)) {
+                        sink.next(entry.substring(DATA.length()));
+                    } else if (entry.startsWith(ERROR)) {
+                        sink.error(new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Failed to generate a response"));
+                    }
+                })
+                .timeout(config.getMaxDuration());
+    }
+
+    private List<String> readChunks(String ownerKey, String ownerToken, String chunksKey, AtomicLong offset) {
+        List<String> entries = readChunks(chunksKey, offset);
+        if (!entries.isEmpty() || ownerToken.equals(String.valueOf(redisTemplate.opsForValue().get(ownerKey)))) {
+            return entries;
+        }
+        // The owner stopped refreshing its key, everything it wrote before is in the list by now
+        entries = readChunks(chunksKey, offset);
+        return entries.isEmpty() ? List.of(ERROR) : entries;
+    }
+
+    private List<String> readChunks(String chunksKey, AtomicLong offset) {
+        List<Object> entries = redisTemplate.opsForList().range(chunksKey, offset.get(), -1);
+        if (entries == null || entries.isEmpty()) return List.of();
+        offset.addAndGet(entries.size());
+        return entries.stream().map(String.class::cast).toList();
+    }
+}
@@ -0,0 +1,263 @@
+package com.sadi.backend.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sadi.backend.configs.LogEventStreamConfig;
+import com.sadi.backend.configs.TaskExecutors;
+import com.sadi.backend.dtos.LogEvent;
+import com.sadi.backend.entities.Log;
+import com.sadi.backend.enums.LogEventType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pushes log changes of a patient to the SSE connections of its caregivers on every replica.
+ * <p>
+ * Each event is appended to a capped Redis stream of the patient, whose entry id becomes the SSE event id, and then
+ * published on the patient's channel. A replica only subscribes to the channels of patients it has connections for.
+ * A reconnecting client sends its last event id and gets the entries after it from the stream before live events.
+ * <p>
+ * Events are written to clients on a pool of their own, so slow clients never hold the Redis listener, the scheduler
+ * or the application task executor. A write blocked for longer than the send timeout closes its connection, and until
+ * the container gives up on that write the platform thread pool gets an extra thread for it, so clients that stopped
+ * reading cannot take all senders.
+ */
+@Slf4j
+@Component
+public class LogEventBroker implements MessageListener, SubscriptionListener {
+    private static final String STREAM_PREFIX = "logs:events:stream:";
+    private static final String CHANNEL_PREFIX = "logs:events:channel:";
+    private static final String EVENT_FIELD = "event";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final ObjectMapper objectMapper;
+    private final LogEventStreamConfig config;
+    private final ExecutorService senderExecutor;
+    private final Map<String, Set<LogEventConnection>> connections = new ConcurrentHashMap<>();
+    // Completed once Redis confirms the SUBSCRIBE of the channel
+    private final Map<String, CompletableFuture<Void>> subscriptions = new ConcurrentHashMap<>();
+    // Closed connections whose sender is still blocked in a write
+    private final Set<LogEventConnection> stalledSends = ConcurrentHashMap.newKeySet();
+
+    public LogEventBroker(StringRedisTemplate stringRedisTemplate,
+                          RedisMessageListenerContainer redisMessageListenerContainer,
+                          ObjectMapper objectMapper, LogEventStreamConfig config, TaskExecutors taskExecutors) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        // Each connection queues at most one drain, so the queue is bounded by the number of connections
+        this.senderExecutor = taskExecutors.newFixed("log-events-", config.getSenderThreads());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senderExecutor.shutdownNow();
+    }
+
+    /**
+     * Publishes the change once the surrounding transaction commits, so subscribers never see a rolled back change.
+     */
+    public void publish(LogEventType type, Log lg) {
+        LogEvent event = LogEvent.of(type, lg);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(event);
+                }
+            });
+        } else {
+            send(event);
+        }
+    }
+
+    public SseEmitter subscribe(String userId, String lastEventId) {
+        if (lastEventId != null && !LogEvent.isValidId(lastEventId)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Last-Event-ID");
+        }
+        SseEmitter emitter = new SseEmitter(config.getTimeout().toMillis());
+        LogEventConnection connection = new LogEventConnection(emitter, senderExecutor, config.getBufferSize());
+        Runnable remove = () -> unsubscribe(userId, connection);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(t -> remove.run());
+
+        // Subscribing before reading the stream makes sure no event falls between the replay and the live ones
+        connections.compute(userId, (id, userConnections) -> {
+            if (userConnections == null) {
+                userConnections = ConcurrentHashMap.newKeySet();
+                subscriptions.put(CHANNEL_PREFIX + id, new CompletableFuture<>());
+                redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL_PREFIX + id));
+            }
+            userConnections.add(connection);
+            return userConnections;
+        });
+        // The listener is registered asynchronously, events published before Redis confirms it would be missed
+        awaitSubscription(userId, connection);
+
+        if (lastEventId == null) {
+            connection.replay(List.of(), false);
+        } else {
+            replay(userId, lastEventId, connection);
+        }
+        return emitter;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        LogEvent event;
+        try {
+            event = objectMapper.readValue(message.getBody(), LogEvent.class);
+        } catch (IOException e) {
+            log.warn("Skipping unreadable log event: {}", new String(message.getBody(), StandardCharsets.UTF_8));
+            return;
+        }
+        Set<LogEventConnection> userConnections = connections.get(event.userId());
+        if (userConnections != null) {
+            userConnections.forEach(c -> c.offer(event));
+        }
+    }
+
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+        CompletableFuture<Void> subscribed = subscriptions.get(new String(channel, StandardCharsets.UTF_8));
+        if (subscribed != null) {
+            subscribed.complete(null);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${logs.events.heartbeat-interval}")
+    public void heartbeat() {
+        // Keeps proxies from closing idle connections and detects clients that went away. It only queues the
+        // comment, the sender pool writes it.
+        stalledSends.removeIf(c -> !c.isSendStalled(config.getSendTimeout()));
+        connections.values().forEach(userConnections -> userConnections.forEach(connection -> {
+            if (connection.isSendStalled(config.getSendTimeout())) {
+                // The client resumes with its last event id once it reads again
+                log.debug("Closing a log event subscriber whose write is blocked for over {}", config.getSendTimeout());
+                stalledSends.add(connection);
+                connection.close();
+            } else {
+                connection.heartbeat();
+            }
+        }));
+        resizeSenders();
+    }
+
+    private void resizeSenders() {
+        // With virtual threads every drain has a thread of its own and there is no pool to grow
+        if (!(senderExecutor instanceof ThreadPoolExecutor pool)) return;
+        int size = config.getSenderThreads() + stalledSends.size();
+        if (size > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(size);
+            pool.setCorePoolSize(size);
+        } else if (size < pool.getCorePoolSize()) {
+            pool.setCorePoolSize(size);
+            pool.setMaximumPoolSize(size);
+        }
+    }
+
+    private void awaitSubscription(String userId, LogEventConnection connection) {
+        CompletableFuture<Void> subscribed = subscriptions.get(CHANNEL_PREFIX + userId);
+        if (subscribed == null) return;
+        try {
+            subscribed.get(config.getSubscribeTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            log.warn("Subscribing to the log events of user {} was not confirmed in {}", userId, config.getSubscribeTimeout());
+            unsubscribe(userId, connection);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Log events are unavailable");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            unsubscribe(userId, connection);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Log events are unavailable");
+        }
+    }
+
+    private void replay(String userId, String lastEventId, LogEventConnection connection) {
+        List<MapRecord<String, Object, Object>> records = stringRedisTemplate.opsForStream().range(
+                STREAM_PREFIX + userId,
+                Range.rightUnbounded(Range.Bound.inclusive(lastEventId)),
+                // The last seen event, up to replayLimit missed ones and one more telling whether there were too many
+                Limit.limit().count(config.getReplayLimit() + 2));
+        List<LogEvent> missed = records == null ? List.of() : records.stream()
+                .filter(r -> !r.getId().getValue().equals(lastEventId))
+                .map(this::toEvent)
+                .toList();
+        // The last seen event is gone when the stream was trimmed past it or expired
+        boolean lost = records == null || records.isEmpty() || !records.getFirst().getId().getValue().equals(lastEventId);
+        if (missed.size() > config.getReplayLimit()) {
+            connection.replay(List.of(), true);
+        } else {
+            connection.replay(missed, lost);
+        }
+    }
+
+    private void unsubscribe(String userId, LogEventConnection connection) {
+        connection.close();
+        connections.computeIfPresent(userId, (id, userConnections) -> {
+            userConnections.remove(connection);
+            if (!userConnections.isEmpty()) return userConnections;
+            subscriptions.remove(CHANNEL_PREFIX + id);
+            redisMessageListenerContainer.removeMessageListener(this, new ChannelTopic(CHANNEL_PREFIX + id));
+            return null;
+        });
+    }
+
+    private void send(LogEvent event) {
+        try {
+            String streamKey = STREAM_PREFIX + event.userId();
+            RecordId id = stringRedisTemplate.opsForStream().add(
+                    StreamRecords.string(Map.of(EVENT_FIELD, objectMapper.writeValueAsString(event))).withStreamKey(streamKey),
+                    RedisStreamCommands.XAddOptions.maxlen(config.getStreamMaxLength()).approximateTrimming(true));
+            stringRedisTemplate.expire(streamKey, config.getStreamTtl());
+            stringRedisTemplate.convertAndSend(CHANNEL_PREFIX + event.userId(),
+                    objectMapper.writeValueAsString(event.withId(id.getValue())));
+        } catch (JsonProcessingException | RuntimeException e) {
+            // Subscribers miss the event until they reconnect, the change itself is already committed
+            log.warn("Failed to publish {} event of log {}: {}", event.type(), event.logId(), e.getMessage());
+        }
+    }
+
+    private LogEvent toEvent(MapRecord<String, Object, Object> record) {
+        try {
+            return objectMapper.readValue(record.getValue().get(EVENT_FIELD).toString(), LogEvent.class)
+                    .withId(record.getId().getValue());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable log event " + record.getId(), e);
+        }
+    }
+}
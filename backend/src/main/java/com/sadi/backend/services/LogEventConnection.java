@@ -0,0 +1,154 @@
+package com.sadi.backend.services;
+
+import com.sadi.backend.dtos.LogEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One SSE subscriber. Events are queued in a bounded buffer and written by a task of the executor, so a slow client
+ * never blocks the Redis listener. A client that falls behind by more than the buffer is disconnected and resumes
+ * with its last event id.
+ * <p>
+ * Live events arriving while the missed ones are still read from Redis are held back and sent after them, skipping
+ * any already replayed.
+ * <p>
+ * {@link SseEmitter#send} blocks until the client takes the data and completing the emitter waits for a running send,
+ * so a connection closed mid-send is completed by its sender once that send returns, never by the closing thread.
+ */
+@Slf4j
+public class LogEventConnection {
+    private final SseEmitter emitter;
+    private final Executor executor;
+    private final int capacity;
+    private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+    private final List<LogEvent> pending = new ArrayList<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private volatile boolean sending;
+    private volatile long sendStartedAt;
+    private boolean replaying = true;
+    private String lastQueuedId;
+    private volatile boolean closed;
+
+    public LogEventConnection(SseEmitter emitter, Executor executor, int capacity) {
+        this.emitter = emitter;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public synchronized void offer(LogEvent event) {
+        if (closed) return;
+        if (!replaying) {
+            enqueue(event);
+        } else if (pending.size() < capacity) {
+            pending.add(event);
+        } else {
+            overflow();
+        }
+    }
+
+    /**
+     * Queues the events missed since the client's last event id and starts sending live events.
+     * A reset tells the client that events were lost and it has to reload the logs.
+     */
+    public synchronized void replay(List<LogEvent> missed, boolean reset) {
+        if (reset) {
+            put(SseEmitter.event().name("reset").data(""));
+        }
+        missed.forEach(this::enqueue);
+        replaying = false;
+        pending.forEach(this::enqueue);
+        pending.clear();
+    }
+
+    public synchronized void heartbeat() {
+        put(SseEmitter.event().comment("heartbeat"));
+    }
+
+    public void close() {
+        if (closed) return;
+        closed = true;
+        queue.clear();
+        if (!sending) {
+            complete();
+        }
+    }
+
+    /**
+     * Whether a write to the client has been blocked for longer than the timeout.
+     */
+    public boolean isSendStalled(Duration timeout) {
+        return sending && System.nanoTime() - sendStartedAt > timeout.toNanos();
+    }
+
+    private void complete() {
+        // Completing the emitter runs its completion callback, which removes the connection
+        if (completed.compareAndSet(false, true)) {
+            emitter.complete();
+        }
+    }
+
+    private void enqueue(LogEvent event) {
+        if (lastQueuedId != null && LogEvent.compareIds(event.id(), lastQueuedId) <= 0) return;
+        lastQueuedId = event.id();
+        put(SseEmitter.event()
+                .id(event.id())
+                .name(event.type().name().toLowerCase(Locale.ROOT))
+                .data(event, MediaType.APPLICATION_JSON));
+    }
+
+    private void put(SseEmitter.SseEventBuilder event) {
+        if (closed) return;
+        if (!queue.offer(event)) {
+            overflow();
+            return;
+        }
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while (!closed && (event = queue.poll()) != null) {
+                sendStartedAt = System.nanoTime();
+                sending = true;
+                // Either this sees the close, or the close sees the send and leaves completing to this thread
+                if (closed) {
+                    sending = false;
+                    break;
+                }
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Log event stream closed while sending: {}", e.getMessage());
+                    close();
+                } finally {
+                    sending = false;
+                }
+            }
+            draining.set(false);
+        } while (!closed && !queue.isEmpty() && draining.compareAndSet(false, true));
+        if (closed) {
+            complete();
+        }
+    }
+
+    private void overflow() {
+        log.debug("Disconnecting a log event subscriber that fell {} events behind", capacity);
+        close();
+    }
+}
@@ -0,0 +1,111 @@
+package com.sadi.backend.services;
+
+import com.sadi.backend.configs.LogVectorQuantizationConfig;
+import com.sadi.backend.configs.VectorStoreConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.QueryFactory;
+import io.qdrant.client.WithPayloadSelectorFactory;
+import io.qdrant.client.WithVectorsSelectorFactory;
+import io.qdrant.client.grpc.Points;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static io.qdrant.client.ConditionFactory.hasId;
+import static io.qdrant.client.ConditionFactory.matchKeyword;
+
+/**
+ * Measures how many of the float32 top 10 neighbours the quantized search of {@code getLogsByQuery} still finds.
+ * Stored logs are used as queries, each searched within the logs of its own user like the chat tools do.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LogVectorRecallBenchmark {
+    private static final int K = 10;
+
+    private final VectorStore logVectorStore;
+    private final LogVectorQuantizationConfig config;
+    private final MeterRegistry meterRegistry;
+    // Bits of the last measured recall, read by the gauge
+    private final AtomicLong recallAtK = new AtomicLong(Double.doubleToLongBits(Double.NaN));
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void runOnStartup() {
+        Optional<QdrantClient> qdrantClient = logVectorStore.getNativeClient();
+        if (config.getBenchmarkSamples() <= 0 || qdrantClient.isEmpty()) return;
+        try {
+            double recall = measureRecall(qdrantClient.get(), config.getBenchmarkSamples());
+            recallAtK.set(Double.doubleToLongBits(recall));
+            meterRegistry.gauge("logs.vectors.recall_at_10", List.of(Tag.of("quantization", config.getType().name())),
+                    recallAtK, bits -> Double.longBitsToDouble(bits.get()));
+            log.info("Recall@{} of {} quantization (rescore: {}, oversampling: {}) against float32: {}", K,
+                    config.getType(), config.isRescore(), config.getOversampling(), String.format("%.4f", recall));
+        } catch (ExecutionException | RuntimeException e) {
+            log.warn("Vector recall benchmark failed: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public double measureRecall(QdrantClient qdrantClient, int samples) throws ExecutionException, InterruptedException {
+        List<Points.RetrievedPoint> queries = qdrantClient.scrollAsync(Points.ScrollPoints.newBuilder()
+                .setCollectionName(VectorStoreConfig.LOG_COLLECTION_NAME)
+                .setWithVectors(WithVectorsSelectorFactory.enable(true))
+                .setWithPayload(WithPayloadSelectorFactory.include(List.of("userId")))
+                .setLimit(samples)
+                .build()
+        ).get().getResultList();
+
+        double total = 0;
+        int measured = 0;
+        for (Points.RetrievedPoint query : queries) {
+            // The query log itself is excluded, it would be the top hit of both searches
+            Points.Filter filter = Points.Filter.newBuilder()
+                    .addMust(matchKeyword("userId", query.getPayloadMap().get("userId").getStringValue()))
+                    .addMustNot(hasId(query.getId()))
+                    .build();
+            List<Float> vector = query.getVectors().getVector().getDataList();
+
+            Set<Points.PointId> expected = search(qdrantClient, vector, filter, Points.SearchParams.newBuilder()
+                    .setExact(true)
+                    .setQuantization(Points.QuantizationSearchParams.newBuilder().setIgnore(true))
+                    .build());
+            if (expected.isEmpty()) continue;
+            Set<Points.PointId> actual = search(qdrantClient, vector, filter, config.toSearchParams());
+
+            total += (double) actual.stream().filter(expected::contains).count() / expected.size();
+            measured++;
+        }
+        return measured == 0 ? 1.0 : total / measured;
+    }
+
+    private Set<Points.PointId> search(QdrantClient qdrantClient, List<Float> vector, Points.Filter filter,
+                                       Points.SearchParams params) throws ExecutionException, InterruptedException {
+        return qdrantClient.queryAsync(Points.QueryPoints.newBuilder()
+                        .setCollectionName(VectorStoreConfig.LOG_COLLECTION_NAME)
+                        .setQuery(QueryFactory.nearest(vector))
+                        .setFilter(filter)
+                        .setParams(params)
+                        .setLimit(K)
+                        .build())
+                .get()
+                .stream()
+                .map(Points.ScoredPoint::getId)
+                .collect(Collectors.toSet());
+    }
+}
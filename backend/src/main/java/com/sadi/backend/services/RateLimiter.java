@@ -0,0 +1,97 @@
+package com.sadi.backend.services;
+
+import com.sadi.backend.configs.RateLimitConfig;
+import com.sadi.backend.utils.RateLimited;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Token buckets kept in Redis. A check is a single script call that refills and takes from the bucket atomically,
+ * so concurrent calls on different replicas cannot overdraw it.
+ */
+@Slf4j
+@Component
+public class RateLimiter {
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> script = RedisScript.of(new ClassPathResource("scripts/token_bucket.lua"), List.class);
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RateLimitConfig config;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimiter(StringRedisTemplate stringRedisTemplate, RateLimitConfig config, MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Decision tryAcquire(RateLimited policy, String subject) {
+        return tryAcquire(policy.name(), policy.scope() == RateLimited.Scope.USER ? subject : null,
+                policy.capacity(), policy.refillTokens(), Duration.ofMillis(policy.unit().toMillis(policy.period())));
+    }
+
+    /**
+     * Takes a token from the bucket of the policy, or of the subject within it when one is given.
+     */
+    public Decision tryAcquire(String policy, String subject, int capacity, int refillTokens, Duration period) {
+        if (!config.isEnabled()) return Decision.ALLOWED;
+        return take(policy, subject, capacity, refillTokens, period);
+    }
+
+    /**
+     * Like {@link #tryAcquire(String, String, int, int, Duration)}, but not switched off by rate-limit.enabled, for
+     * callers that have a switch of their own.
+     */
+    public Decision take(String policy, String subject, int capacity, int refillTokens, Duration period) {
+        String key = KEY_PREFIX + policy + (subject != null ? ":" + subject : "");
+        List<?> result;
+        try {
+            result = stringRedisTemplate.execute(script, List.of(key),
+                    String.valueOf(capacity),
+                    String.valueOf(refillTokens),
+                    String.valueOf(period.toMillis()));
+        } catch (RuntimeException e) {
+            log.warn("Rate limit check of {} failed: {}", policy, e.getMessage());
+            count(policy, "error");
+            if (config.isFailOpen()) return Decision.ALLOWED;
+            throw e;
+        }
+
+        if (result == null || result.size() < 3) {
+            throw new IllegalStateException("Unexpected rate limit script result " + result);
+        }
+        boolean allowed = ((Number) result.get(0)).longValue() == 1;
+        count(policy, allowed ? "allowed" : "throttled");
+        return new Decision(allowed, Duration.ofMillis(((Number) result.get(1)).longValue()),
+                ((Number) result.get(2)).longValue());
+    }
+
+    private void count(String policy, String result) {
+        Counter.builder("rate.limit.requests")
+                .description("Rate limited calls by policy and whether they were let through")
+                .tag("policy", policy)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public record Decision(boolean allowed, Duration retryAfter, long remaining) {
+        static final Decision ALLOWED = new Decision(true, Duration.ZERO, -1);
+
+        /**
+         * Whole seconds to wait, rounded up as Retry-After takes no fractions.
+         */
+        public long retryAfterSeconds() {
+            return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.sadi.backend.services;
+
+import com.sadi.backend.configs.TablePartitionConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Creates the monthly partitions of the time partitioned tables ahead of time and drops chat partitions past their
+ * retention, so old chats go away with a cheap DROP TABLE instead of a DELETE that leaves work for vacuum.
+ * Rows that landed in the default partition, such as imports of old logs, are moved into partitions of their own month
+ * so lookups by time can prune them like any other row.
+ * Every step is idempotent, so replicas running it at the same time do no harm.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TablePartitionMaintainer {
+    private static final String CHATS = "chats";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("uuuuMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TablePartitionConfig config;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${db.partitions.cron}", zone = "UTC")
+    public void maintain() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        // Chats past the retention are deleted first so they do not get partitions of their own
+        if (config.getChatRetentionMonths() > 0) {
+            dropChatsBefore(current.minusMonths(config.getChatRetentionMonths()));
+        }
+        for (String table : config.getTables()) {
+            splitDefaultPartition(table);
+            for (int i = 0; i <= config.getMonthsAhead(); i++) {
+                createPartition(table, current.plusMonths(i));
+            }
+        }
+    }
+
+    private void splitDefaultPartition(String table) {
+        try {
+            Integer months = jdbcTemplate.queryForObject("SELECT split_default_partition(?)", Integer.class, table);
+            if (months != null && months > 0) {
+                log.info("Moved rows of {} months out of the default partition of {}", months, table);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not split the default partition of {}: {}", table, e.getMessage());
+        }
+    }
+
+    private void createPartition(String table, YearMonth month) {
+        try {
+            jdbcTemplate.queryForObject("SELECT create_monthly_partition(?, ?)", String.class, table, month.atDay(1));
+        } catch (DataAccessException e) {
+            log.warn("Could not create the {} partition of {}: {}", month, table, e.getMessage());
+        }
+    }
+
+    /**
+     * Drops every monthly chat partition that ends before the given month and deletes the few rows of the default
+     * partition that are that old.
+     */
+    private void dropChatsBefore(YearMonth oldestKept) {
+        List<String> partitions = jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                         JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'chats'::regclass
+                  AND c.relname ~ '^chats_p[0-9]{6}$'
+                """, String.class);
+        for (String partition : partitions) {
+            YearMonth month = YearMonth.parse(partition.substring((CHATS + "_p").length()), PARTITION_MONTH);
+            if (month.isBefore(oldestKept)) {
+                // The name was matched against a strict pattern above, so it is safe to inline
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+                log.info("Dropped chat partition {} past the retention of {} months", partition, config.getChatRetentionMonths());
+            }
+        }
+        LocalDate cutoff = oldestKept.atDay(1);
+        int deleted = jdbcTemplate.update("DELETE FROM chats_default WHERE created_at < ?",
+                cutoff.atStartOfDay().atOffset(ZoneOffset.UTC));
+        if (deleted > 0) {
+            log.info("Deleted {} chats past the retention from the default partition", deleted);
+        }
+    }
+}
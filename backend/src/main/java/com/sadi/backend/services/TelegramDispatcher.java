@@ -0,0 +1,244 @@
+package com.sadi.backend.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sadi.backend.configs.TaskExecutors;
+import com.sadi.backend.configs.TelegramDispatcherConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.*;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends Telegram messages from a bounded queue, paced to stay within the Bot API limits. A token bucket shared by
+ * all replicas caps the messages per second of the bot, and messages to one chat are spaced by the chat interval
+ * when they are queued. Messages Telegram throttles are retried after the time it asks for, other transient
+ * failures after a growing backoff. Requests are made by a small pool of senders of the dispatcher's own; when all
+ * of them are busy the dispatcher thread sends the message itself and stops taking new ones meanwhile.
+ * <p>
+ * Errors are logged without their message, which would contain the request URL and with it the bot token.
+ */
+@Slf4j
+@Component
+public class TelegramDispatcher {
+    private static final String GLOBAL_POLICY = "telegram-global";
+    private static final long CHAT_SLOT_CLEANUP_MILLIS = Duration.ofMinutes(1).toMillis();
+
+    private final RestClient telegramRestClient;
+    private final RateLimiter rateLimiter;
+    private final ExecutorService senderExecutor;
+    private final TelegramDispatcherConfig config;
+    private final MeterRegistry meterRegistry;
+    private final DelayQueue<Outgoing> queue = new DelayQueue<>();
+    // Counts messages until they are delivered or dropped, including those being sent
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Map<String, Long> nextChatSlots = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Timer deliveryTimer;
+    private long lastSlotCleanup = System.currentTimeMillis();
+    private volatile Thread worker;
+
+    public TelegramDispatcher(RestClient telegramRestClient, RateLimiter rateLimiter,
+                              TaskExecutors taskExecutors, TelegramDispatcherConfig config,
+                              MeterRegistry meterRegistry) {
+        this.telegramRestClient = telegramRestClient;
+        this.rateLimiter = rateLimiter;
+        this.senderExecutor = taskExecutors.newBounded("telegram-sender-", config.getSenderThreads(),
+                config.getSenderThreads());
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.deliveryTimer = Timer.builder("telegram.messages.delivery")
+                .description("Time from queueing a Telegram message until Telegram accepted it")
+                .register(meterRegistry);
+        Gauge.builder("telegram.messages.pending", pending, AtomicInteger::get)
+                .description("Telegram messages queued or being sent")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        worker = Thread.ofPlatform().daemon().name("telegram-dispatcher").start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread current = worker;
+        if (current != null) current.interrupt();
+        senderExecutor.shutdownNow();
+        if (!queue.isEmpty()) log.warn("Dropping {} queued Telegram messages on shutdown", queue.size());
+    }
+
+    /**
+     * Queues a message, returning false when the queue is full and the message was dropped.
+     */
+    public boolean enqueue(String chatId, String text) {
+        if (pending.incrementAndGet() > config.getQueueCapacity()) {
+            pending.decrementAndGet();
+            drop("queue_full");
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        long interval = config.getChatInterval().toMillis();
+        long slot = nextChatSlots.merge(chatId, now, (previous, current) -> Math.max(current, previous + interval));
+        queue.add(new Outgoing(chatId, text, now, slot, 1, sequence.incrementAndGet()));
+        return true;
+    }
+
+    /**
+     * Waits for the next due message and hands it to a sender once the bot-wide bucket has a token for it.
+     */
+    public void dispatchNext() throws InterruptedException {
+        Outgoing message = queue.take();
+        RateLimiter.Decision decision;
+        try {
+            decision = config.isGlobalLimitEnabled()
+                    ? rateLimiter.take(GLOBAL_POLICY, null, config.getGlobalPerSecond(), config.getGlobalPerSecond(),
+                    Duration.ofSeconds(1))
+                    : new RateLimiter.Decision(true, Duration.ZERO, -1);
+        } catch (RuntimeException e) {
+            // The bucket could not be checked, the message is still due and stays counted as pending
+            log.warn("Checking the Telegram rate limit failed with {}", e.getClass().getSimpleName());
+            queue.add(message);
+            Thread.sleep(config.getRetryBackoff().toMillis());
+            return;
+        }
+        if (!decision.allowed()) {
+            // Still due, so it goes out first once the bucket refilled
+            queue.add(message);
+            Thread.sleep(decision.retryAfter().toMillis());
+            return;
+        }
+        try {
+            senderExecutor.execute(() -> send(message));
+        } catch (RejectedExecutionException e) {
+            // Only happens on shutdown
+            queue.add(message);
+            return;
+        }
+        cleanupChatSlots();
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                dispatchNext();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Telegram dispatcher failed to dispatch a message", e);
+            }
+        }
+    }
+
+    private void send(Outgoing message) {
+        try {
+            telegramRestClient.post()
+                    .uri("/bot{token}/sendMessage")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("chat_id", message.chatId(), "text", message.text()))
+                    .retrieve()
+                    .toBodilessEntity();
+            pending.decrementAndGet();
+            deliveryTimer.record(System.currentTimeMillis() - message.queuedAt(), TimeUnit.MILLISECONDS);
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            Duration retryAfter = retryAfter(e);
+            // Later messages to the chat have to wait as well
+            nextChatSlots.merge(message.chatId(), System.currentTimeMillis() + retryAfter.toMillis(), Math::max);
+            retry(message, retryAfter, "throttled");
+        } catch (HttpServerErrorException | ResourceAccessException e) {
+            log.warn("Sending a Telegram message to chat {} failed with {}", message.chatId(), e.getClass().getSimpleName());
+            retry(message, config.getRetryBackoff().multipliedBy(1L << Math.min(message.attempt() - 1, 10)), "failed");
+        } catch (RestClientResponseException e) {
+            // The chat does not exist or blocked the bot, sending again would not help
+            log.warn("Telegram rejected a message to chat {} with {}", message.chatId(), e.getStatusCode());
+            pending.decrementAndGet();
+            drop("rejected");
+        } catch (RuntimeException e) {
+            log.error("Sending a Telegram message to chat {} failed with {}", message.chatId(), e.getClass().getName());
+            pending.decrementAndGet();
+            drop("error");
+        }
+    }
+
+    private void retry(Outgoing message, Duration delay, String reason) {
+        if (message.attempt() >= config.getMaxAttempts()) {
+            pending.decrementAndGet();
+            drop("retries_exhausted");
+            return;
+        }
+        Counter.builder("telegram.messages.retried")
+                .description("Telegram messages sent again, by the reason of the failed attempt")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        queue.add(message.retryAt(System.currentTimeMillis() + delay.toMillis()));
+    }
+
+    private Duration retryAfter(HttpClientErrorException e) {
+        long seconds = -1;
+        try {
+            JsonNode body = e.getResponseBodyAs(JsonNode.class);
+            if (body != null) seconds = body.path("parameters").path("retry_after").asLong(-1);
+        } catch (RuntimeException ignored) {
+            // Not the usual error body, fall back to the header
+        }
+        if (seconds < 0 && e.getResponseHeaders() != null) {
+            String header = e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+            if (header != null && header.matches("\\d+")) seconds = Long.parseLong(header);
+        }
+        return seconds < 0 ? config.getRetryBackoff() : Duration.ofSeconds(seconds);
+    }
+
+    private void cleanupChatSlots() {
+        long now = System.currentTimeMillis();
+        if (now - lastSlotCleanup < CHAT_SLOT_CLEANUP_MILLIS) return;
+        lastSlotCleanup = now;
+        long expired = now - config.getChatInterval().toMillis();
+        nextChatSlots.values().removeIf(slot -> slot < expired);
+    }
+
+    private void drop(String reason) {
+        Counter.builder("telegram.messages.dropped")
+                .description("Telegram messages given up on, by reason")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private record Outgoing(String chatId, String text, long queuedAt, long notBefore, int attempt,
+                            long sequence) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(notBefore - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            Outgoing that = (Outgoing) other;
+            int byTime = Long.compare(notBefore, that.notBefore);
+            return byTime != 0 ? byTime : Long.compare(sequence, that.sequence);
+        }
+
+        Outgoing retryAt(long at) {
+            return new Outgoing(chatId, text, queuedAt, at, attempt + 1, sequence);
+        }
+    }
+}
@@ -2,6 +2,9 @@ package com.sadi.backend.services;
 
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthException;
+import com.sadi.backend.caches.CaregiverAccessCache;
+import com.sadi.backend.caches.FirebaseTokenCache;
+import com.sadi.backend.configs.EntityCacheConfig;
 import com.sadi.backend.dtos.requests.CaregiverRegistrationRequest;
 import com.sadi.backend.dtos.requests.PatientRegistrationRequest;
 import com.sadi.backend.entities.PatientCaregiver;
@@ -17,6 +20,10 @@ import com.sadi.backend.utils.SecurityUtils;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.core.env.Environment;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -24,6 +31,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Collections;
+import java.util.List;
 
 @Slf4j
 @Service
@@ -33,18 +41,23 @@ public class UserService {
     private final UserVerificationService userVerificationService;
     private final PatientCaregiverRepository patientCaregiverRepository;
     private final Environment environment;
+    private final FirebaseTokenCache firebaseTokenCache;
+    private final CaregiverAccessCache caregiverAccessCache;
 
-    public UserService(UserRepository userRepository, PatientDetailRepository patientDetailRepository, UserVerificationService userVerificationService, PatientCaregiverRepository patientCaregiverRepository, Environment environment) {
+    public UserService(UserRepository userRepository, PatientDetailRepository patientDetailRepository, UserVerificationService userVerificationService, PatientCaregiverRepository patientCaregiverRepository, Environment environment, FirebaseTokenCache firebaseTokenCache, CaregiverAccessCache caregiverAccessCache) {
         this.userRepository = userRepository;
         this.patientDetailRepository = patientDetailRepository;
         this.userVerificationService = userVerificationService;
         this.patientCaregiverRepository = patientCaregiverRepository;
         this.environment = environment;
+        this.firebaseTokenCache = firebaseTokenCache;
+        this.caregiverAccessCache = caregiverAccessCache;
     }
 
     public Boolean existsByEmail(String email) {
         return userRepository.existsByEmail(email);
     }
+    @Cacheable(cacheNames = EntityCacheConfig.USERS, key = "#id")
     public User getUser(String id) {
         return userRepository.findById(id).orElseThrow(
                 () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found")
@@ -99,6 +112,7 @@ public class UserService {
         User primaryContact = getUser(req.primaryContact());
         patientDetailRepository.save(new PatientDetail(saveUser, primaryContact));
         patientCaregiverRepository.save(new PatientCaregiver(saveUser, primaryContact));
+        caregiverAccessCache.evict(primaryContact.getId());
 
         addScope(id, Role.PATIENT);
         return id;
@@ -111,6 +125,7 @@ public class UserService {
         FirebaseAuth firebaseAuth = FirebaseAuth.getInstance();
         try {
             firebaseAuth.setCustomUserClaims(uuid, Collections.singletonMap("scp", role.toString()));
+            firebaseTokenCache.evictUser(uuid);
         } catch (FirebaseAuthException e) {
             log.error("Error adding scope to user in firebase: {}", e.getMessage());
             throw new InternalError("Error adding scope to user in firebase");
@@ -118,19 +133,39 @@ public class UserService {
     }
 
     public void verifyCaregiver(String patientId, String userId) {
-        patientCaregiverRepository.findByPatientAndCaregiver(new User(patientId), new User(userId))
-                .filter(r -> r.getRemovedAt() == null)
-                .ifPresentOrElse(r -> {}, () -> {
-                    throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Forbidden");
-                });
+        if (!caregiverAccessCache.isActiveCaregiver(patientId, userId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access Forbidden");
+        }
+    }
+
+    public List<String> getActivePatientIds(String caregiverId) {
+        return List.copyOf(caregiverAccessCache.getActivePatientIds(caregiverId));
     }
 
+    /**
+     * Cached details always carry both users, whatever fetchUser asks for.
+     */
+    @Cacheable(cacheNames = EntityCacheConfig.PATIENT_DETAILS, key = "#userId")
     public PatientDetail getPatientDetail(String userId, Boolean fetchUser) {
-        if(!fetchUser)
-            return patientDetailRepository.findById(userId)
+        PatientDetail detail = patientDetailRepository.getPatientDetailWithUserById(userId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Patient not found"));
+        // A copy without Hibernate proxies, so it can be serialized and used after the session closed
+        return new PatientDetail(detail.getId(), Hibernate.unproxy(detail.getUser(), User.class),
+                Hibernate.unproxy(detail.getPrimaryContact(), User.class));
+    }
 
-        return patientDetailRepository.getPatientDetailWithUserById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Patient not found"));
+    /**
+     * Cached patient details embed their primary contact, so all of them are dropped as well.
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = EntityCacheConfig.USERS, key = "#userId"),
+            @CacheEvict(cacheNames = EntityCacheConfig.PATIENT_DETAILS, allEntries = true)
+    })
+    public void setTelegramChatId(String userId, String chatId) {
+        User user = userRepository.findById(userId).orElseThrow(
+                () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found")
+        );
+        user.setTelegramChatId(chatId);
     }
 }
@@ -2,10 +2,14 @@ package com.sadi.backend.services.abstractions;
 
 import com.sadi.backend.dtos.responses.ChatResponse;
 import com.sadi.backend.enums.ChatType;
+import com.sadi.backend.utils.KeysetCursor;
 import org.springframework.data.domain.Page;
 
+import java.util.List;
+
 public interface ChatService {
     void saveChat(String message, ChatType type, String userId);
     Page<ChatResponse> getChats(Integer page, Integer size);
+    List<ChatResponse> getChats(KeysetCursor cursor, int limit);
     void updateChatHistory();
 }
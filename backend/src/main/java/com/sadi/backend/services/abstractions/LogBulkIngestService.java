@@ -0,0 +1,10 @@
+package com.sadi.backend.services.abstractions;
+
+import com.sadi.backend.dtos.requests.BulkLogItem;
+import com.sadi.backend.dtos.responses.BulkLogResponse;
+
+import java.util.Iterator;
+
+public interface LogBulkIngestService {
+    BulkLogResponse ingest(String userId, Iterator<BulkLogItem> items);
+}
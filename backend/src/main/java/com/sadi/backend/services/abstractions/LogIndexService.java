@@ -0,0 +1,10 @@
+package com.sadi.backend.services.abstractions;
+
+import com.sadi.backend.enums.LogIndexOperation;
+
+import java.util.UUID;
+
+public interface LogIndexService {
+    void enqueue(UUID logId, String userId, LogIndexOperation operation);
+    int indexPending();
+}
@@ -0,0 +1,7 @@
+package com.sadi.backend.services.abstractions;
+
+public interface LogReconcilerService {
+    int reconcileChanges();
+    int reconcileDeletes();
+    int sweep();
+}
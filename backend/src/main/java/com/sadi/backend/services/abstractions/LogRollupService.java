@@ -0,0 +1,16 @@
+package com.sadi.backend.services.abstractions;
+
+import com.sadi.backend.dtos.responses.LogDailyRollupResponse;
+import com.sadi.backend.entities.Log;
+import com.sadi.backend.enums.LogType;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface LogRollupService {
+    void addLogs(String userId, List<Log> logs);
+    void refresh(String userId, LogType type, Instant createdAt);
+    List<LogDailyRollupResponse> getRollups(Collection<String> userIds, LocalDate start, LocalDate end);
+}
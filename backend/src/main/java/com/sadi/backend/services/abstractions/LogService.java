@@ -2,23 +2,34 @@ package com.sadi.backend.services.abstractions;
 
 import com.sadi.backend.dtos.LogDTO;
 import com.sadi.backend.dtos.requests.UpdateLogRequest;
+import com.sadi.backend.dtos.responses.CursorPage;
 import com.sadi.backend.entities.Log;
 import com.sadi.backend.enums.LogType;
+import com.sadi.backend.utils.KeysetCursor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface LogService {
+    int TIME_RANGE_LIMIT = 100;
+
     UUID saveLog(Log log);
     UUID saveLog(String userId, LogType type, String description, Instant createdAt);
-    List<LogDTO> getLogsByTimeStamp(String userId, String zoneId, Instant start, Instant end);
+    CursorPage<LogDTO> getLogsByTimeStamp(String userId, String zoneId, Instant start, Instant end, KeysetCursor cursor);
     List<LogDTO> getLogsByQuery(String userId, String zoneId, String queryString, String logType, Instant start, Instant end);
+    CompletableFuture<CursorPage<LogDTO>> getLogsByTimeStampAsync(String userId, String zoneId, Instant start, Instant end,
+                                                                  KeysetCursor cursor);
+    CompletableFuture<List<LogDTO>> getLogsByQueryAsync(String userId, String zoneId, String queryString, String logType, Instant start, Instant end);
     void deleteLog(UUID id);
     void verifyOwner(Log log, String userId);
     Log getLog(UUID id);
     void updateLog(UUID id, UpdateLogRequest req);
     Page<Log> getLogs(String userId, LogType type, Instant start, Instant end, Pageable pageable);
+    List<Log> getLogs(String userId, LogType type, Instant start, Instant end, KeysetCursor cursor, Sort.Direction direction, int limit);
+    List<Log> getFeed(String caregiverId, LogType type, KeysetCursor cursor, int limit);
 }
@@ -1,6 +1,7 @@
 package com.sadi.backend.services.abstractions;
 
 import com.sadi.backend.dtos.LogDTO;
+import com.sadi.backend.dtos.responses.CursorPage;
 import org.springframework.ai.chat.model.ToolContext;
 
 import java.time.Instant;
@@ -8,6 +9,6 @@ import java.util.List;
 
 public interface LoggingTools {
     String saveLog(String logType, String details, Integer minutes, ToolContext toolContext);
-    List<LogDTO> getLogs(String starDatetime, String endDatetime, ToolContext toolContext);
+    CursorPage<LogDTO> getLogs(String starDatetime, String endDatetime, String cursor, ToolContext toolContext);
     List<LogDTO> getLogsForSpecificTopic(String queryString, String logType, String starDatetime, String endDatetime, ToolContext toolContext);
 }
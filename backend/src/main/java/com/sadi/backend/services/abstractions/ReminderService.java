@@ -4,12 +4,15 @@ import com.sadi.backend.dtos.requests.ReminderDTO;
 import com.sadi.backend.dtos.requests.ReminderReq;
 import com.sadi.backend.entities.Reminder;
 import com.sadi.backend.enums.ReminderType;
+import com.sadi.backend.utils.KeysetCursor;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 public interface ReminderService {
@@ -20,6 +23,7 @@ public interface ReminderService {
     void updateNextExecution(UUID id, @NotNull String cronExpression, String zoneId);
     void deleteReminderById(UUID id);
     Page<Reminder> getReminders(String userId, ReminderType type, Instant start, Instant end, Pageable pageable);
+    List<Reminder> getReminders(String userId, ReminderType type, Instant start, Instant end, KeysetCursor cursor, Sort.Direction direction, int limit);
     Reminder getReminder(UUID id);
     void verifyOwnerOrCaregiver(String userId, Reminder reminder);
 }
@@ -1,15 +1,16 @@
 package com.sadi.backend.services.impls;
 
+import com.sadi.backend.configs.RedisChatMemoryRepository;
 import com.sadi.backend.dtos.responses.ChatResponse;
 import com.sadi.backend.entities.Chat;
 import com.sadi.backend.entities.User;
 import com.sadi.backend.enums.ChatType;
 import com.sadi.backend.repositories.ChatRepository;
 import com.sadi.backend.services.abstractions.ChatService;
+import com.sadi.backend.utils.KeysetCursor;
 import com.sadi.backend.utils.SecurityUtils;
 import lombok.RequiredArgsConstructor;
-import org.springframework.ai.chat.memory.ChatMemoryRepository;
-import org.springframework.ai.chat.messages.Message;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -21,7 +22,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ChatServiceImpl implements ChatService {
     private final ChatRepository chatRepository;
-    private final ChatMemoryRepository redisChatMemoryRepository;
+    private final RedisChatMemoryRepository redisChatMemoryRepository;
 
     @Override
     public void saveChat(String message, ChatType type, String userId) {
@@ -39,11 +40,16 @@ public class ChatServiceImpl implements ChatService {
     }
 
     @Override
-    public void updateChatHistory() {
+    public List<ChatResponse> getChats(KeysetCursor cursor, int limit) {
         String userId = SecurityUtils.getName();
-        List<Message> results = getChats(0, 20).stream().map(
-                ChatResponse::getMessageObject
-        ).toList().reversed();
-        redisChatMemoryRepository.saveAll(userId, results);
+        if (cursor == null) {
+            return chatRepository.findLatestByUserId(userId, Limit.of(limit));
+        }
+        return chatRepository.findByUserIdBefore(userId, cursor.sortKeyAsInstant(), cursor.id(), Limit.of(limit));
+    }
+
+    @Override
+    public void updateChatHistory() {
+        redisChatMemoryRepository.rehydrate(SecurityUtils.getName());
     }
 }
@@ -0,0 +1,187 @@
+package com.sadi.backend.services.impls;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.sadi.backend.caches.LogQueryCache;
+import com.sadi.backend.configs.LogBulkIngestConfig;
+import com.sadi.backend.dtos.requests.BulkLogItem;
+import com.sadi.backend.dtos.responses.BulkLogResponse;
+import com.sadi.backend.dtos.responses.BulkLogResponse.ItemResult;
+import com.sadi.backend.dtos.responses.BulkLogResponse.Status;
+import com.sadi.backend.entities.Log;
+import com.sadi.backend.entities.User;
+import com.sadi.backend.enums.LogIndexOperation;
+import com.sadi.backend.services.UserService;
+import com.sadi.backend.services.abstractions.LogBulkIngestService;
+import com.sadi.backend.services.abstractions.LogRollupService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts logs, their idempotency keys, their vector-index outbox rows and their daily rollups with JDBC batches,
+ * one transaction per chunk. Items are read and validated one at a time so large imports are never held in memory as a whole.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LogBulkIngestServiceJdbcImpl implements LogBulkIngestService {
+    private static final String INSERT_KEY = """
+            INSERT INTO log_idempotency_keys (user_id, idempotency_key, log_id, created_at)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT DO NOTHING
+            """;
+    private static final String INSERT_LOG = """
+            INSERT INTO logs (id, user_id, type, description, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+    private static final String INSERT_OUTBOX = """
+            INSERT INTO log_index_outbox (log_id, user_id, operation, attempts, next_attempt_at, created_at)
+            VALUES (?, ?, ?, 0, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final UserService userService;
+    private final LogQueryCache logQueryCache;
+    private final LogRollupService logRollupService;
+    private final LogBulkIngestConfig config;
+
+    private record Pending(int index, BulkLogItem item, UUID id) {
+    }
+
+    @Override
+    public BulkLogResponse ingest(String userId, Iterator<BulkLogItem> items) {
+        userService.getUser(userId);
+
+        List<ItemResult> results = new ArrayList<>();
+        List<Pending> chunk = new ArrayList<>();
+        boolean truncated = false;
+        int index = 0;
+        while (true) {
+            BulkLogItem item;
+            try {
+                if (!items.hasNext()) break;
+                if (index >= config.getMaxItems()) {
+                    truncated = true;
+                    break;
+                }
+                item = items.next();
+            } catch (RuntimeJsonMappingException e) {
+                String message = e.getCause() instanceof JsonMappingException cause ? cause.getOriginalMessage() : e.getMessage();
+                results.add(new ItemResult(index++, null, Status.INVALID, null, message));
+                continue;
+            } catch (RuntimeException e) {
+                if (!(e.getCause() instanceof IOException)) throw e;
+                // The rest of the body cannot be parsed, keep what was ingested so far
+                results.add(new ItemResult(index, null, Status.INVALID, null, "Malformed JSON, stopped reading"));
+                truncated = true;
+                break;
+            }
+
+            Set<ConstraintViolation<BulkLogItem>> violations = validator.validate(item);
+            if (!violations.isEmpty()) {
+                String message = violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+                results.add(new ItemResult(index++, item.idempotencyKey(), Status.INVALID, null, message));
+                continue;
+            }
+
+            chunk.add(new Pending(index++, item, UUID.randomUUID()));
+            if (chunk.size() >= config.getChunkSize()) {
+                results.addAll(flush(userId, chunk));
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(flush(userId, chunk));
+        }
+
+        results.sort(Comparator.comparing(ItemResult::index));
+        int created = count(results, Status.CREATED);
+        if (created > 0) {
+            logQueryCache.bumpVersion(userId);
+        }
+        log.debug("Bulk ingested {} logs for {} ({} items read)", created, userId, index);
+        return new BulkLogResponse(created, count(results, Status.DUPLICATE), count(results, Status.INVALID), truncated, results);
+    }
+
+    private List<ItemResult> flush(String userId, List<Pending> chunk) {
+        return transactionTemplate.execute(status -> {
+            OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+            Map<String, UUID> duplicates = claimIdempotencyKeys(userId, chunk, now);
+
+            List<ItemResult> results = new ArrayList<>();
+            List<Pending> fresh = new ArrayList<>();
+            for (Pending pending : chunk) {
+                String key = pending.item().idempotencyKey();
+                if (key != null && duplicates.containsKey(key) && !duplicates.get(key).equals(pending.id())) {
+                    results.add(new ItemResult(pending.index(), key, Status.DUPLICATE, duplicates.get(key), null));
+                } else {
+                    fresh.add(pending);
+                    results.add(new ItemResult(pending.index(), key, Status.CREATED, pending.id(), null));
+                }
+            }
+
+            jdbcTemplate.batchUpdate(INSERT_LOG, fresh.stream()
+                    .map(p -> new Object[]{p.id(), userId, p.item().type().toString(), p.item().description(),
+                            p.item().createdAt().atOffset(ZoneOffset.UTC), now})
+                    .toList());
+            jdbcTemplate.batchUpdate(INSERT_OUTBOX, fresh.stream()
+                    .map(p -> new Object[]{p.id(), userId, LogIndexOperation.UPSERT.toString(), now, now})
+                    .toList());
+            User user = new User(userId);
+            logRollupService.addLogs(userId, fresh.stream()
+                    .map(p -> new Log(user, p.item().type(), p.item().description(), p.item().createdAt()))
+                    .toList());
+            return results;
+        });
+    }
+
+    /**
+     * Returns the logs already stored for keys that could not be claimed, either from an earlier request or from
+     * an earlier item of this one.
+     */
+    private Map<String, UUID> claimIdempotencyKeys(String userId, List<Pending> chunk, OffsetDateTime now) {
+        List<Pending> keyed = chunk.stream().filter(p -> p.item().idempotencyKey() != null).toList();
+        if (keyed.isEmpty()) return Map.of();
+
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_KEY, keyed.stream()
+                .map(p -> new Object[]{userId, p.item().idempotencyKey(), p.id(), now})
+                .toList());
+        List<String> conflicting = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) conflicting.add(keyed.get(i).item().idempotencyKey());
+        }
+        if (conflicting.isEmpty()) return Map.of();
+
+        String placeholders = String.join(", ", Collections.nCopies(conflicting.size(), "?"));
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        args.addAll(conflicting);
+        Map<String, UUID> existing = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT idempotency_key, log_id FROM log_idempotency_keys WHERE user_id = ? AND idempotency_key IN (" + placeholders + ")",
+                rs -> {
+                    existing.put(rs.getString("idempotency_key"), rs.getObject("log_id", UUID.class));
+                },
+                args.toArray()
+        );
+        return existing;
+    }
+
+    private static int count(List<ItemResult> results, Status status) {
+        return (int) results.stream().filter(r -> r.status() == status).count();
+    }
+}
@@ -0,0 +1,264 @@
+package com.sadi.backend.services.impls;
+
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.exception.ServiceResponseException;
+import com.sadi.backend.caches.LogQueryCache;
+import com.sadi.backend.configs.LogIndexerConfig;
+import com.sadi.backend.configs.VectorStoreConfig;
+import com.sadi.backend.entities.Log;
+import com.sadi.backend.entities.LogIndexTask;
+import com.sadi.backend.enums.LogIndexOperation;
+import com.sadi.backend.repositories.LogIndexTaskRepository;
+import com.sadi.backend.repositories.LogRepository;
+import com.sadi.backend.services.abstractions.LogIndexService;
+import com.sadi.backend.utils.BasicUtils;
+import com.sadi.backend.utils.FutureUtils;
+import io.grpc.Status;
+import io.grpc.StatusException;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.qdrant.client.PointIdFactory;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.ValueFactory;
+import io.qdrant.client.grpc.Points;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Applies log changes to the vector store from the outbox written together with the logs.
+ * <p>
+ * Batches are claimed in a short transaction by pushing their next attempt past a lease, so the embedding and
+ * Qdrant calls run without holding a database connection and other replicas skip the claimed rows.
+ * <p>
+ * When a batch fails because the embedding model, Qdrant or the database is unavailable, the whole batch is retried
+ * with backoff and the poll ends. Any other failure retries its logs one by one, so a single bad log does not hold
+ * back the others. A task
+ * failing {@code maxAttempts} times is marked failed and counted in {@code logs.indexer.failed}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LogIndexServiceImpl implements LogIndexService {
+    private final LogIndexTaskRepository logIndexTaskRepository;
+    private final LogRepository logRepository;
+    private final VectorStore logVectorStore;
+    private final LogQueryCache logQueryCache;
+    private final LogIndexerConfig config;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void enqueue(UUID logId, String userId, LogIndexOperation operation) {
+        logIndexTaskRepository.save(new LogIndexTask(logId, userId, operation));
+    }
+
+    @Scheduled(fixedDelayString = "${logs.indexer.poll-interval}")
+    public void processPending() {
+        for (int batch = 1; indexPending() == config.getBatchSize(); batch++) {
+            if (batch >= config.getMaxBatchesPerTick()) {
+                log.debug("Log index outbox has more pending tasks, continuing on the next poll");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Applies one claimed batch and returns its size, or 0 when none was due or the embedding model or vector store
+     * could not be reached, which ends the poll.
+     */
+    @Override
+    public int indexPending() {
+        List<LogIndexTask> tasks = transactionTemplate.execute(status -> claim());
+        if (tasks == null || tasks.isEmpty()) return 0;
+
+        try {
+            apply(tasks);
+            complete(tasks);
+            return tasks.size();
+        } catch (RuntimeException e) {
+            log.warn("Failed to index {} log changes: {}", tasks.size(), e.getMessage());
+            List<List<LogIndexTask>> byLog = new ArrayList<>(tasks.stream()
+                    .collect(Collectors.groupingBy(LogIndexTask::getLogId, LinkedHashMap::new, Collectors.toList()))
+                    .values());
+            // Splitting only helps against a log the services reject, during an outage it multiplies the calls
+            if (byLog.size() == 1 || isTransient(e)) {
+                transactionTemplate.executeWithoutResult(status -> retryLater(ids(tasks), e));
+                return isTransient(e) ? 0 : tasks.size();
+            }
+            for (int i = 0; i < byLog.size(); i++) {
+                RuntimeException outage = indexOne(byLog.get(i));
+                if (outage != null) {
+                    List<Long> remaining = byLog.subList(i + 1, byLog.size()).stream().flatMap(List::stream)
+                            .map(LogIndexTask::getId).toList();
+                    if (!remaining.isEmpty()) {
+                        transactionTemplate.executeWithoutResult(status -> retryLater(remaining, outage));
+                    }
+                    return 0;
+                }
+            }
+        }
+        return tasks.size();
+    }
+
+    /**
+     * Returns the failure when the log failed for a reason that is not its own, so the rest of the batch should wait.
+     */
+    private RuntimeException indexOne(List<LogIndexTask> tasks) {
+        try {
+            apply(tasks);
+            complete(tasks);
+            return null;
+        } catch (RuntimeException e) {
+            log.warn("Failed to index log {}: {}", tasks.getFirst().getLogId(), e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> retryLater(ids(tasks), e));
+            return isTransient(e) ? e : null;
+        }
+    }
+
+    /**
+     * Connectivity failures, timeouts, throttling and server errors of the embedding model, Qdrant or the database,
+     * which say nothing about the documents being indexed.
+     */
+    private static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException
+                    || cause instanceof TimeoutException
+                    || cause instanceof TransientAiException
+                    || cause instanceof ResourceAccessException
+                    || cause instanceof HttpServerErrorException
+                    || cause instanceof HttpClientErrorException.TooManyRequests
+                    || cause instanceof TransientDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof ServiceResponseException) {
+                return true;
+            }
+            if (cause instanceof HttpResponseException http && http.getResponse() != null) {
+                int status = http.getResponse().getStatusCode();
+                if (status == 429 || status >= 500) return true;
+            }
+            if (cause instanceof StatusRuntimeException || cause instanceof StatusException) {
+                Status.Code code = Status.fromThrowable(cause).getCode();
+                if (code == Status.Code.UNAVAILABLE || code == Status.Code.DEADLINE_EXCEEDED
+                        || code == Status.Code.RESOURCE_EXHAUSTED || code == Status.Code.ABORTED
+                        || code == Status.Code.INTERNAL) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void complete(List<LogIndexTask> tasks) {
+        List<Long> ids = ids(tasks);
+        transactionTemplate.executeWithoutResult(status -> logIndexTaskRepository.deleteByIds(ids));
+        tasks.stream().map(LogIndexTask::getUserId).distinct().forEach(logQueryCache::bumpVersion);
+    }
+
+    private static List<Long> ids(List<LogIndexTask> tasks) {
+        return tasks.stream().map(LogIndexTask::getId).toList();
+    }
+
+    private List<LogIndexTask> claim() {
+        Instant now = Instant.now();
+        List<LogIndexTask> tasks = logIndexTaskRepository.findDueForUpdate(now, config.getBatchSize());
+        tasks.forEach(task -> task.setNextAttemptAt(now.plus(config.getLease())));
+        return tasks;
+    }
+
+    private void apply(List<LogIndexTask> tasks) {
+        // Only the latest change of each log matters
+        Map<UUID, LogIndexOperation> latest = new LinkedHashMap<>();
+        tasks.stream()
+                .sorted(Comparator.comparing(LogIndexTask::getId))
+                .forEach(task -> latest.put(task.getLogId(), task.getOperation()));
+
+        List<UUID> deleted = latest.entrySet().stream()
+                .filter(e -> e.getValue() == LogIndexOperation.DELETE)
+                .map(Map.Entry::getKey)
+                .toList();
+        List<UUID> upserted = latest.entrySet().stream()
+                .filter(e -> e.getValue() == LogIndexOperation.UPSERT)
+                .map(Map.Entry::getKey)
+                .toList();
+
+        if (!upserted.isEmpty()) {
+            upsert(logRepository.findAllRoutedById(upserted));
+        }
+        if (!deleted.isEmpty()) {
+            logVectorStore.delete(deleted.stream().map(UUID::toString).toList());
+        }
+    }
+
+    private void upsert(List<Log> logs) {
+        Optional<QdrantClient> qdrantClient = logVectorStore.getNativeClient();
+        Map<UUID, String> hashes = new HashMap<>();
+        List<Document> documents = new ArrayList<>();
+        Map<String, List<Points.PointId>> payloadOnly = new HashMap<>();
+        for (Log lg : logs) {
+            String hash = BasicUtils.sha256Hex(lg.getDescription());
+            // The embedded vector store cannot update payloads, so the log is re-added and embedded again there
+            if (hash.equals(lg.getIndexedHash()) && qdrantClient.isPresent()) {
+                payloadOnly.computeIfAbsent(lg.getType().toString(), t -> new ArrayList<>())
+                        .add(PointIdFactory.id(lg.getId()));
+            } else {
+                hashes.put(lg.getId(), hash);
+                documents.add(new Document(lg.getId().toString(), lg.getDescription(), lg.getMetadata()));
+            }
+        }
+
+        if (!documents.isEmpty()) {
+            // The vector store embeds in batches sized by its TokenCountBatchingStrategy and upserts them together
+            logVectorStore.add(documents);
+            transactionTemplate.executeWithoutResult(status -> hashes.forEach(logRepository::updateIndexedHash));
+        }
+        // The description is unchanged, so only the payload has to be updated
+        payloadOnly.forEach((type, pointIds) -> FutureUtils.toCompletableFuture(qdrantClient.get().setPayloadAsync(
+                VectorStoreConfig.LOG_COLLECTION_NAME,
+                Map.of("type", ValueFactory.value(type)),
+                pointIds,
+                true,
+                null,
+                null
+        )).join());
+        log.debug("Indexed {} logs, updated payload of {} logs", documents.size(), logs.size() - documents.size());
+    }
+
+    private void retryLater(List<Long> ids, RuntimeException e) {
+        Instant now = Instant.now();
+        for (LogIndexTask task : logIndexTaskRepository.findAllById(ids)) {
+            task.setAttempts(task.getAttempts() + 1);
+            task.setLastError(e.getMessage());
+            if (task.getAttempts() >= config.getMaxAttempts()) {
+                log.error("Giving up indexing {} of log {} after {} attempts", task.getOperation(), task.getLogId(),
+                        task.getAttempts());
+                task.setFailedAt(now);
+                meterRegistry.counter("logs.indexer.failed").increment();
+            } else {
+                task.setNextAttemptAt(now.plus(backoff(task.getAttempts())));
+            }
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = config.getInitialBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(config.getMaxBackoff()) > 0 ? config.getMaxBackoff() : delay;
+    }
+}
@@ -0,0 +1,263 @@
+package com.sadi.backend.services.impls;
+
+import com.sadi.backend.configs.LogReconcilerConfig;
+import com.sadi.backend.configs.VectorStoreConfig;
+import com.sadi.backend.entities.Log;
+import com.sadi.backend.entities.LogReconcilerCheckpoint;
+import com.sadi.backend.entities.LogTombstone;
+import com.sadi.backend.enums.LogIndexOperation;
+import com.sadi.backend.repositories.LogReconcilerCheckpointRepository;
+import com.sadi.backend.repositories.LogRepository;
+import com.sadi.backend.repositories.LogTombstoneRepository;
+import com.sadi.backend.services.abstractions.LogIndexService;
+import com.sadi.backend.services.abstractions.LogReconcilerService;
+import com.sadi.backend.utils.FutureUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.qdrant.client.PointIdFactory;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.WithPayloadSelectorFactory;
+import io.qdrant.client.WithVectorsSelectorFactory;
+import io.qdrant.client.grpc.JsonWithInt;
+import io.qdrant.client.grpc.Points;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Finds logs whose vector store point is missing or out of date, and points whose log is gone, and repairs them
+ * through the index outbox.
+ * <p>
+ * Only logs changed and deleted after a checkpoint are compared, so a run costs as much as the changes since the
+ * previous one. The optional full sweep walks all logs and points a batch at a time to catch older differences.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LogReconcilerServiceImpl implements LogReconcilerService {
+    private static final String CHANGES = "changes";
+    private static final String DELETES = "deletes";
+    private static final String SWEEP_ROWS = "sweep-rows";
+    private static final String SWEEP_POINTS = "sweep-points";
+    private static final UUID MIN_ID = new UUID(0, 0);
+
+    private final LogRepository logRepository;
+    private final LogTombstoneRepository logTombstoneRepository;
+    private final LogReconcilerCheckpointRepository checkpointRepository;
+    private final LogIndexService logIndexService;
+    private final VectorStore logVectorStore;
+    private final LogReconcilerConfig config;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Scheduled(fixedDelayString = "${logs.reconciler.interval}")
+    public void reconcile() {
+        if (!config.isEnabled()) return;
+        reconcileChanges();
+        reconcileDeletes();
+        transactionTemplate.executeWithoutResult(status ->
+                logTombstoneRepository.deleteOlderThan(Instant.now().minus(config.getTombstoneRetention())));
+    }
+
+    @Scheduled(fixedDelayString = "${logs.reconciler.sweep-interval}")
+    public void scheduledSweep() {
+        if (!config.isSweepEnabled()) return;
+        sweep();
+    }
+
+    @Override
+    public int reconcileChanges() {
+        Instant until = Instant.now().minus(config.getGrace());
+        return withCheckpoint(CHANGES, (qdrantClient, checkpoint) -> {
+            int repaired = 0;
+            for (int i = 0; i < config.getMaxBatchesPerRun(); i++) {
+                List<Log> logs = logRepository.findChangedSince(
+                        Objects.requireNonNullElse(checkpoint.getPositionAt(), Instant.EPOCH),
+                        Objects.requireNonNullElse(checkpoint.getPositionId(), MIN_ID),
+                        until, Limit.of(config.getBatchSize()));
+                if (logs.isEmpty()) break;
+
+                repaired += repairLogs(qdrantClient, logs);
+                checkpoint.setPositionAt(logs.getLast().getUpdatedAt());
+                checkpoint.setPositionId(logs.getLast().getId());
+                if (logs.size() < config.getBatchSize()) break;
+            }
+            return repaired;
+        });
+    }
+
+    @Override
+    public int reconcileDeletes() {
+        Instant until = Instant.now().minus(config.getGrace());
+        return withCheckpoint(DELETES, (qdrantClient, checkpoint) -> {
+            int repaired = 0;
+            for (int i = 0; i < config.getMaxBatchesPerRun(); i++) {
+                List<LogTombstone> tombstones = logTombstoneRepository.findDeletedSince(
+                        Objects.requireNonNullElse(checkpoint.getPositionAt(), Instant.EPOCH),
+                        Objects.requireNonNullElse(checkpoint.getPositionId(), MIN_ID),
+                        until, Limit.of(config.getBatchSize()));
+                if (tombstones.isEmpty()) break;
+
+                Set<String> remaining = retrieve(qdrantClient, tombstones.stream().map(LogTombstone::getLogId).toList(), false)
+                        .keySet();
+                List<LogTombstone> orphans = tombstones.stream()
+                        .filter(t -> remaining.contains(t.getLogId().toString()))
+                        .toList();
+                enqueue(orphans.stream().collect(Collectors.toMap(LogTombstone::getLogId, LogTombstone::getUserId)),
+                        LogIndexOperation.DELETE, "deleted");
+                repaired += orphans.size();
+
+                checkpoint.setPositionAt(tombstones.getLast().getDeletedAt());
+                checkpoint.setPositionId(tombstones.getLast().getLogId());
+                if (tombstones.size() < config.getBatchSize()) break;
+            }
+            return repaired;
+        });
+    }
+
+    @Override
+    public int sweep() {
+        int repaired = withCheckpoint(SWEEP_ROWS, (qdrantClient, checkpoint) -> {
+            List<Log> logs = logRepository.findAfterId(Objects.requireNonNullElse(checkpoint.getPositionId(), MIN_ID),
+                    Limit.of(config.getSweepBatchSize()));
+            // Starts over once the end is reached
+            checkpoint.setPositionId(logs.size() < config.getSweepBatchSize() ? null : logs.getLast().getId());
+            return logs.isEmpty() ? 0 : repairLogs(qdrantClient, logs);
+        });
+        repaired += withCheckpoint(SWEEP_POINTS, (qdrantClient, checkpoint) -> {
+            Points.ScrollPoints.Builder scroll = Points.ScrollPoints.newBuilder()
+                    .setCollectionName(VectorStoreConfig.LOG_COLLECTION_NAME)
+                    .setWithPayload(WithPayloadSelectorFactory.include(List.of("userId")))
+                    .setWithVectors(WithVectorsSelectorFactory.enable(false))
+                    .setLimit(config.getSweepBatchSize());
+            if (checkpoint.getPositionId() != null) {
+                scroll.setOffset(PointIdFactory.id(checkpoint.getPositionId()));
+            }
+            Points.ScrollResponse response = FutureUtils.toCompletableFuture(qdrantClient.scrollAsync(scroll.build())).join();
+            checkpoint.setPositionId(response.hasNextPageOffset()
+                    ? UUID.fromString(response.getNextPageOffset().getUuid()) : null);
+
+            // Points written by hand or by an old version may have no userId, so the map allows null values
+            Map<UUID, String> points = new HashMap<>();
+            response.getResultList().forEach(p ->
+                    points.put(UUID.fromString(p.getId().getUuid()), payloadString(p.getPayloadMap(), "userId")));
+            if (points.isEmpty()) return 0;
+            Set<UUID> existing = new HashSet<>(logRepository.findExistingIds(points.keySet()));
+            Map<UUID, String> orphans = new HashMap<>();
+            List<String> untraceable = new ArrayList<>();
+            points.forEach((id, pointUserId) -> {
+                if (existing.contains(id)) return;
+                if (pointUserId != null) {
+                    orphans.put(id, pointUserId);
+                } else {
+                    untraceable.add(id.toString());
+                }
+            });
+            enqueue(orphans, LogIndexOperation.DELETE, "orphan");
+            if (!untraceable.isEmpty()) {
+                // The outbox needs the user to invalidate its cached queries, these belong to no user
+                logVectorStore.delete(untraceable);
+                meterRegistry.counter("logs.reconciler.repairs", "reason", "orphan").increment(untraceable.size());
+            }
+            return orphans.size() + untraceable.size();
+        });
+        return repaired;
+    }
+
+    private int repairLogs(QdrantClient qdrantClient, List<Log> logs) {
+        Map<String, Points.RetrievedPoint> points = retrieve(qdrantClient, logs.stream().map(Log::getId).toList(), true);
+        List<Log> missing = new ArrayList<>();
+        List<Log> stale = new ArrayList<>();
+        for (Log lg : logs) {
+            Points.RetrievedPoint point = points.get(lg.getId().toString());
+            if (point == null) {
+                missing.add(lg);
+            } else if (!matches(point, lg)) {
+                stale.add(lg);
+            }
+        }
+        if (missing.isEmpty() && stale.isEmpty()) return 0;
+
+        // Without the hash the indexer writes the whole point again instead of only updating its type
+        transactionTemplate.executeWithoutResult(status -> {
+            missing.forEach(lg -> logRepository.updateIndexedHash(lg.getId(), null));
+            stale.forEach(lg -> logRepository.updateIndexedHash(lg.getId(), null));
+        });
+        enqueue(missing.stream().collect(Collectors.toMap(Log::getId, lg -> lg.getUser().getId())), LogIndexOperation.UPSERT, "missing");
+        enqueue(stale.stream().collect(Collectors.toMap(Log::getId, lg -> lg.getUser().getId())), LogIndexOperation.UPSERT, "stale");
+        log.info("Reconciler found {} logs missing from and {} logs stale in the vector store", missing.size(), stale.size());
+        return missing.size() + stale.size();
+    }
+
+    private static boolean matches(Points.RetrievedPoint point, Log lg) {
+        Map<String, JsonWithInt.Value> payload = point.getPayloadMap();
+        return lg.getDescription().equals(payloadString(payload, "doc_content"))
+                && lg.getType().toString().equals(payloadString(payload, "type"))
+                && lg.getUser().getId().equals(payloadString(payload, "userId"))
+                && lg.getCreatedAt().equals(parseInstant(payloadString(payload, "createdAt")));
+    }
+
+    private Map<String, Points.RetrievedPoint> retrieve(QdrantClient qdrantClient, List<UUID> ids, boolean withPayload) {
+        return FutureUtils.toCompletableFuture(qdrantClient.retrieveAsync(
+                        VectorStoreConfig.LOG_COLLECTION_NAME,
+                        ids.stream().map(PointIdFactory::id).toList(),
+                        WithPayloadSelectorFactory.enable(withPayload),
+                        WithVectorsSelectorFactory.enable(false),
+                        null
+                )).join()
+                .stream()
+                .collect(Collectors.toMap(p -> p.getId().getUuid(), p -> p));
+    }
+
+    private void enqueue(Map<UUID, String> userIdsByLog, LogIndexOperation operation, String reason) {
+        if (userIdsByLog.isEmpty()) return;
+        transactionTemplate.executeWithoutResult(status ->
+                userIdsByLog.forEach((logId, userId) -> logIndexService.enqueue(logId, userId, operation)));
+        meterRegistry.counter("logs.reconciler.repairs", "reason", reason).increment(userIdsByLog.size());
+    }
+
+    /**
+     * Runs the work on a checkpoint unless another replica holds it, and stores the position the work advanced to.
+     */
+    private int withCheckpoint(String name, BiFunction<QdrantClient, LogReconcilerCheckpoint, Integer> work) {
+        Optional<QdrantClient> qdrantClient = logVectorStore.getNativeClient();
+        if (qdrantClient.isEmpty()) return 0;
+
+        Instant now = Instant.now();
+        Integer claimed = transactionTemplate.execute(status -> checkpointRepository.claim(name, now, now.plus(config.getLease())));
+        if (claimed == null || claimed == 0) return 0;
+
+        LogReconcilerCheckpoint checkpoint = checkpointRepository.findById(name).orElseThrow();
+        try {
+            return work.apply(qdrantClient.get(), checkpoint);
+        } catch (RuntimeException e) {
+            log.warn("Reconciling {} failed: {}", name, e.getMessage());
+            return 0;
+        } finally {
+            checkpoint.setLeasedUntil(null);
+            transactionTemplate.executeWithoutResult(status -> checkpointRepository.save(checkpoint));
+        }
+    }
+
+    private static String payloadString(Map<String, JsonWithInt.Value> payload, String key) {
+        JsonWithInt.Value value = payload.get(key);
+        return value == null ? null : value.getStringValue();
+    }
+
+    private static Instant parseInstant(String value) {
+        try {
+            return value == null ? null : Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.sadi.backend.services.impls;
+
+import com.sadi.backend.configs.LogRollupConfig;
+import com.sadi.backend.dtos.responses.LogDailyRollupResponse;
+import com.sadi.backend.entities.Log;
+import com.sadi.backend.enums.LogType;
+import com.sadi.backend.services.abstractions.LogRollupService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps one row per user, day and log type with the count, first and last time and latest description of the logs
+ * in it, so dashboards read a few rows per day instead of every log.
+ * <p>
+ * Days are cut in the single zone of {@link LogRollupConfig#getZone()} for every user. The zone the stored rows were
+ * built in is recorded in the database, and the service does not start while it differs from the configured one,
+ * since rows of both zones would be mixed otherwise.
+ * <p>
+ * Added logs are folded into their rows. Updates and deletes recompute the affected row from the logs of that day,
+ * after locking the row so concurrent writers to the same day are applied one after another. Has to be called in
+ * the transaction that changes the logs.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LogRollupServiceJdbcImpl implements LogRollupService {
+    private static final String ADD = """
+            INSERT INTO log_daily_rollups AS r (user_id, day, type, log_count, first_at, last_at, latest_description)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (user_id, day, type) DO UPDATE SET
+                log_count = r.log_count + EXCLUDED.log_count,
+                first_at = LEAST(r.first_at, EXCLUDED.first_at),
+                last_at = GREATEST(r.last_at, EXCLUDED.last_at),
+                latest_description = CASE WHEN EXCLUDED.last_at >= r.last_at
+                    THEN EXCLUDED.latest_description ELSE r.latest_description END
+            """;
+    // Creates the row if needed and locks it until the transaction ends
+    private static final String LOCK = """
+            INSERT INTO log_daily_rollups AS r (user_id, day, type, log_count, first_at, last_at, latest_description)
+            VALUES (?, ?, ?, 0, ?, ?, '')
+            ON CONFLICT (user_id, day, type) DO UPDATE SET log_count = r.log_count
+            """;
+    private static final String RECOMPUTE = """
+            UPDATE log_daily_rollups r SET
+                log_count = a.log_count,
+                first_at = COALESCE(a.first_at, r.first_at),
+                last_at = COALESCE(a.last_at, r.last_at),
+                latest_description = COALESCE(a.latest_description, '')
+            FROM (SELECT count(*) AS log_count,
+                         min(created_at) AS first_at,
+                         max(created_at) AS last_at,
+                         (array_agg(description ORDER BY created_at DESC, id DESC))[1] AS latest_description
+                  FROM logs
+                  WHERE user_id = ? AND type = ? AND created_at >= ? AND created_at < ?) a
+            WHERE r.user_id = ? AND r.day = ? AND r.type = ?
+            """;
+    private static final String DELETE_EMPTY = """
+            DELETE FROM log_daily_rollups
+            WHERE user_id = ? AND day = ? AND type = ? AND log_count = 0
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LogRollupConfig config;
+
+    private record Key(String userId, LocalDate day, LogType type) {
+    }
+
+    @PostConstruct
+    public void verifyZone() {
+        String zone = config.getZone().getId();
+        String storedZone = jdbcTemplate.queryForObject("SELECT zone FROM log_rollup_settings", String.class);
+        if (zone.equals(storedZone)) return;
+        if (!config.isRebuildOnZoneChange()) {
+            throw new IllegalStateException("Log rollups were built in " + storedZone + " but logs.rollups.zone is " + zone
+                    + "; set logs.rollups.rebuild-on-zone-change to rebuild them");
+        }
+        log.info("Rebuilding log rollups from {} to {}", storedZone, zone);
+        jdbcTemplate.queryForObject("SELECT rebuild_log_daily_rollups(?)", Object.class, zone);
+    }
+
+    @Override
+    public void addLogs(String userId, List<Log> logs) {
+        if (logs.isEmpty()) return;
+        Map<Key, List<Log>> buckets = logs.stream().collect(Collectors.groupingBy(
+                lg -> new Key(userId, dayOf(lg.getCreatedAt()), lg.getType()),
+                // Rows are locked in key order so two bulk imports cannot deadlock on each other
+                () -> new TreeMap<>(Comparator.comparing(Key::day).thenComparing(Key::type)),
+                Collectors.toList()));
+
+        jdbcTemplate.batchUpdate(ADD, buckets.entrySet().stream()
+                .map(e -> {
+                    Log first = Collections.min(e.getValue(), Comparator.comparing(Log::getCreatedAt));
+                    Log last = Collections.max(e.getValue(), Comparator.comparing(Log::getCreatedAt));
+                    return new Object[]{userId, e.getKey().day(), e.getKey().type().toString(), e.getValue().size(),
+                            utc(first.getCreatedAt()), utc(last.getCreatedAt()), last.getDescription()};
+                })
+                .toList());
+    }
+
+    @Override
+    public void refresh(String userId, LogType type, Instant createdAt) {
+        LocalDate day = dayOf(createdAt);
+        OffsetDateTime start = utc(day.atStartOfDay(config.getZone()).toInstant());
+        OffsetDateTime end = utc(day.plusDays(1).atStartOfDay(config.getZone()).toInstant());
+
+        jdbcTemplate.update(LOCK, userId, day, type.toString(), start, start);
+        jdbcTemplate.update(RECOMPUTE, userId, type.toString(), start, end, userId, day, type.toString());
+        jdbcTemplate.update(DELETE_EMPTY, userId, day, type.toString());
+    }
+
+    @Override
+    public List<LogDailyRollupResponse> getRollups(Collection<String> userIds, LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "End date must not be before start date");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= config.getMaxDays()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Date range must not exceed " + config.getMaxDays() + " days");
+        }
+        if (userIds.size() > config.getMaxUsers()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + config.getMaxUsers() + " users can be requested");
+        }
+        if (userIds.isEmpty()) return List.of();
+        String placeholders = String.join(", ", Collections.nCopies(userIds.size(), "?"));
+        List<Object> args = new ArrayList<>(userIds);
+        args.add(start);
+        args.add(end);
+        return jdbcTemplate.query(
+                "SELECT user_id, day, type, log_count, first_at, last_at, latest_description FROM log_daily_rollups " +
+                        "WHERE user_id IN (" + placeholders + ") AND day BETWEEN ? AND ? ORDER BY user_id, day, type",
+                (rs, rowNum) -> new LogDailyRollupResponse(
+                        rs.getString("user_id"),
+                        rs.getObject("day", LocalDate.class),
+                        LogType.valueOf(rs.getString("type")),
+                        rs.getInt("log_count"),
+                        rs.getObject("first_at", OffsetDateTime.class).toInstant(),
+                        rs.getObject("last_at", OffsetDateTime.class).toInstant(),
+                        rs.getString("latest_description")),
+                args.toArray()
+        );
+    }
+
+    private LocalDate dayOf(Instant instant) {
+        return instant.atZone(config.getZone()).toLocalDate();
+    }
+
+    private static OffsetDateTime utc(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+}
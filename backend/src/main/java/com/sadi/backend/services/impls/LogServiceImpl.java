@@ -1,15 +1,32 @@
 package com.sadi.backend.services.impls;
 
 import com.google.protobuf.Timestamp;
+import com.sadi.backend.caches.LogQueryCache;
+import com.sadi.backend.configs.LogSearchConfig;
+import com.sadi.backend.configs.TaskExecutors;
+import com.sadi.backend.configs.LogTimeRangeConfig;
+import com.sadi.backend.configs.LogVectorQuantizationConfig;
 import com.sadi.backend.dtos.LogDTO;
+import com.sadi.backend.dtos.LogTimelineRow;
 import com.sadi.backend.dtos.requests.UpdateLogRequest;
+import com.sadi.backend.dtos.responses.CursorPage;
 import com.sadi.backend.entities.Log;
+import com.sadi.backend.entities.LogTombstone;
 import com.sadi.backend.entities.User;
+import com.sadi.backend.enums.LogEventType;
+import com.sadi.backend.enums.LogIndexOperation;
 import com.sadi.backend.enums.LogType;
 import com.sadi.backend.repositories.LogRepository;
+import com.sadi.backend.repositories.LogTombstoneRepository;
+import com.sadi.backend.services.LogEventBroker;
 import com.sadi.backend.services.UserService;
+import com.sadi.backend.services.abstractions.LogIndexService;
+import com.sadi.backend.services.abstractions.LogRollupService;
 import com.sadi.backend.services.abstractions.LogService;
 import com.sadi.backend.specifications.LogSpecification;
+import com.sadi.backend.utils.FutureUtils;
+import com.sadi.backend.utils.KeysetCursor;
+import com.sadi.backend.utils.RankFusion;
 import com.sadi.backend.utils.SecurityUtils;
 import io.qdrant.client.QdrantClient;
 import io.qdrant.client.QueryFactory;
@@ -18,11 +35,14 @@ import io.qdrant.client.grpc.Points;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.document.Document;
 import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -30,11 +50,12 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
 import java.time.ZoneId;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
-import java.util.concurrent.ExecutionException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static io.qdrant.client.ConditionFactory.datetimeRange;
 import static io.qdrant.client.ConditionFactory.matchKeyword;
@@ -43,19 +64,36 @@ import static io.qdrant.client.ConditionFactory.matchKeyword;
 @Service
 @RequiredArgsConstructor
 public class LogServiceImpl implements LogService {
+    private static final Instant SEARCH_UPPER_BOUND = Instant.parse("9999-12-31T00:00:00Z");
+
+    private record SearchHit(String id, LogDTO log) {
+    }
+
+    // Postgres compares uuids as unsigned bytes, so this is the largest id
+    private static final UUID FEED_START_ID = new UUID(-1L, -1L);
+
     private final LogRepository logRepository;
-    private final QdrantClient qdrantClient;
-    private final EmbeddingModel embeddingModel;
+    private final LogTombstoneRepository logTombstoneRepository;
     private final VectorStore logVectorStore;
+    private final EmbeddingModel embeddingModel;
     private final UserService userService;
+    private final LogQueryCache logQueryCache;
+    private final LogIndexService logIndexService;
+    private final LogRollupService logRollupService;
+    private final LogEventBroker logEventBroker;
+    private final TaskExecutors taskExecutors;
+    private final LogTimeRangeConfig logTimeRangeConfig;
+    private final LogSearchConfig logSearchConfig;
+    private final LogVectorQuantizationConfig logVectorQuantizationConfig;
 
     @Override
     @Transactional
     public UUID saveLog(Log log) {
         Log savedLog = logRepository.save(log);
-        logVectorStore.add(List.of(new Document(savedLog.getId().toString(),
-                savedLog.getDescription(),
-                savedLog.getMetadata())));
+        logRollupService.addLogs(savedLog.getUser().getId(), List.of(savedLog));
+        logIndexService.enqueue(savedLog.getId(), savedLog.getUser().getId(), LogIndexOperation.UPSERT);
+        logQueryCache.bumpVersion(savedLog.getUser().getId());
+        logEventBroker.publish(LogEventType.CREATED, savedLog);
         return savedLog.getId();
     }
 
@@ -68,8 +106,31 @@ public class LogServiceImpl implements LogService {
     }
 
     @Override
-    public List<LogDTO> getLogsByTimeStamp(String userId, String zoneId, Instant start, Instant end)
+    public CursorPage<LogDTO> getLogsByTimeStamp(String userId, String zoneId, Instant start, Instant end, KeysetCursor cursor)
     {
+        if (logTimeRangeConfig.getBackend() == LogTimeRangeConfig.Backend.POSTGRES || logVectorStore.getNativeClient().isEmpty()
+                || cursor != null) {
+            return getLogsByTimeStampFromDatabase(userId, zoneId, start, end, cursor);
+        }
+        return getLogsByTimeStampAsync(userId, zoneId, start, end, null).join();
+    }
+
+    @Override
+    public List<LogDTO> getLogsByQuery(String userId, String zoneId, String queryString, String logType, Instant start, Instant end) {
+        return getLogsByQueryAsync(userId, zoneId, queryString, logType, start, end).join();
+    }
+
+    @Override
+    public CompletableFuture<CursorPage<LogDTO>> getLogsByTimeStampAsync(String userId, String zoneId, Instant start, Instant end,
+                                                                         KeysetCursor cursor)
+    {
+        Optional<QdrantClient> qdrantClient = logVectorStore.getNativeClient();
+        // Only Qdrant supports ordered scrolls, the embedded vector store always reads the range from the database.
+        // A Qdrant scroll cannot resume after a (createdAt, id) pair either, so later pages come from the database too.
+        if (logTimeRangeConfig.getBackend() == LogTimeRangeConfig.Backend.POSTGRES || qdrantClient.isEmpty() || cursor != null) {
+            return CompletableFuture.supplyAsync(() -> getLogsByTimeStampFromDatabase(userId, zoneId, start, end, cursor),
+                    taskExecutors.blocking());
+        }
         List<Points.Condition> conditions = new ArrayList<>();
         conditions.add(matchKeyword("userId", userId));
         conditions.add(datetimeRange("createdAt",
@@ -81,31 +142,70 @@ public class LogServiceImpl implements LogService {
         Points.Filter filter = Points.Filter.newBuilder()
                 .addAllMust(conditions)
                 .build();
-        try {
-            Points.ScrollResponse res = qdrantClient.scrollAsync(
-                    Points.ScrollPoints.newBuilder()
-                            .setCollectionName("logs")
-                            .setFilter(filter)
-                            .setOrderBy(Points.OrderBy.newBuilder()
-                                    .setKey("createdAt")
-                                    .setDirection(Points.Direction.Asc)
-                                    .build())
-                            .setWithPayload(WithPayloadSelectorFactory.enable(true))
-                            .build()
-            ).get();
-            List<LogDTO> logDtos = res.getResultList().stream()
-                    .map(p -> new LogDTO(p, ZoneId.of(zoneId)))
-                    .toList();
-            log.debug("logs from getLogsByTimeStamp {}", logDtos);
-            return logDtos;
-        } catch (InterruptedException | ExecutionException e) {
-            log.error(e.getMessage());
-            return List.of();
-        }
+        return FutureUtils.toCompletableFuture(qdrantClient.get().scrollAsync(
+                        Points.ScrollPoints.newBuilder()
+                                .setCollectionName("logs")
+                                .setFilter(filter)
+                                .setOrderBy(Points.OrderBy.newBuilder()
+                                        .setKey("createdAt")
+                                        .setDirection(Points.Direction.Asc)
+                                        .build())
+                                .setWithPayload(WithPayloadSelectorFactory.enable(true))
+                                .setLimit(TIME_RANGE_LIMIT + 1)
+                                .build()
+                ))
+                .thenCompose(res -> {
+                    // Ties on createdAt are not ordered by id, so a range that needs a cursor is read from the database
+                    if (res.getResultCount() > TIME_RANGE_LIMIT) {
+                        return CompletableFuture.supplyAsync(() -> getLogsByTimeStampFromDatabase(userId, zoneId, start, end, null),
+                                taskExecutors.blocking());
+                    }
+                    List<LogDTO> logDtos = res.getResultList().stream()
+                            .map(p -> new LogDTO(p, ZoneId.of(zoneId)))
+                            .toList();
+                    log.debug("logs from getLogsByTimeStamp {}", logDtos);
+                    return CompletableFuture.completedFuture(new CursorPage<>(logDtos, null, false));
+                })
+                .exceptionally(t -> new CursorPage<>(onSearchFailure(t), null, false));
     }
 
     @Override
-    public List<LogDTO> getLogsByQuery(String userId, String zoneId, String queryString, String logType, Instant start, Instant end) {
+    public CompletableFuture<List<LogDTO>> getLogsByQueryAsync(String userId, String zoneId, String queryString, String logType, Instant start, Instant end) {
+        ZoneId zone = ZoneId.of(zoneId);
+        int candidates = logSearchConfig.isHybrid() ? logSearchConfig.getCandidates() : logSearchConfig.getTopK();
+        Optional<QdrantClient> qdrantClient = logVectorStore.getNativeClient();
+        CompletableFuture<List<SearchHit>> vectorSearch = qdrantClient.isPresent()
+                ? searchQdrant(qdrantClient.get(), userId, queryString, logType, start, end, candidates, zone)
+                : CompletableFuture.supplyAsync(() -> searchVectorStore(userId, queryString, logType, start, end, candidates, zone),
+                        taskExecutors.blocking());
+
+        if (!logSearchConfig.isHybrid()) {
+            return vectorSearch
+                    .thenApply(hits -> {
+                        List<LogDTO> logDtos = hits.stream().map(SearchHit::log).toList();
+                        log.debug("logs from getLogsForSpecificTopic {}", logDtos);
+                        return logDtos;
+                    })
+                    .exceptionally(this::onSearchFailure);
+        }
+
+        // Each retriever degrades to an empty ranking on its own, so one failing still leaves the other's results
+        CompletableFuture<List<SearchHit>> textSearch = CompletableFuture
+                .supplyAsync(() -> searchByText(userId, queryString, logType, start, end, zone), taskExecutors.blocking())
+                .exceptionally(t -> {
+                    onSearchFailure(t);
+                    return List.of();
+                });
+        return vectorSearch
+                .exceptionally(t -> {
+                    onSearchFailure(t);
+                    return List.of();
+                })
+                .thenCombine(textSearch, this::fuseResults);
+    }
+
+    private CompletableFuture<List<SearchHit>> searchQdrant(QdrantClient qdrantClient, String userId, String queryString,
+                                                            String logType, Instant start, Instant end, int limit, ZoneId zone) {
         List<Points.Condition> conditions = new ArrayList<>();
         conditions.add(matchKeyword("userId", userId));
         conditions.add(matchKeyword("type", logType));
@@ -124,30 +224,105 @@ public class LogServiceImpl implements LogService {
                 .addAllMust(conditions)
                 .build();
 
-        try {
-            List<Points.ScoredPoint> points = qdrantClient.queryAsync(
-                    Points.QueryPoints.newBuilder().setCollectionName("logs")
-                            .setQuery(QueryFactory.nearest(embeddingModel.embed(queryString)))
-                            .setWithPayload(WithPayloadSelectorFactory.enable(true))
-                            .setFilter(filter)
-                            .setLimit(10)
-                            .build()
-            ).get();
-            List<LogDTO> logDtos = points.stream()
-                    .map(p -> new LogDTO(p, ZoneId.of(zoneId)))
-                    .collect(Collectors.toList());
-            log.debug("logs from getLogsForSpecificTopic {}", logDtos);
-            return logDtos;
-
-        } catch (InterruptedException | ExecutionException e) {
-            log.error(e.getMessage());
-            return List.of();
+        // The embedding client is blocking, so it runs on the blocking executor while the text search runs alongside
+        return CompletableFuture.supplyAsync(() -> embeddingModel.embed(queryString), taskExecutors.blocking())
+                .thenCompose(vector -> FutureUtils.toCompletableFuture(qdrantClient.queryAsync(
+                        Points.QueryPoints.newBuilder().setCollectionName("logs")
+                                .setQuery(QueryFactory.nearest(vector))
+                                .setWithPayload(WithPayloadSelectorFactory.enable(true))
+                                .setFilter(filter)
+                                .setParams(logVectorQuantizationConfig.toSearchParams())
+                                .setLimit(limit)
+                                .build()
+                )))
+                .thenApply(points -> points.stream()
+                        .map(p -> new SearchHit(p.getId().getUuid(), new LogDTO(p, zone)))
+                        .toList());
+    }
+
+    private List<SearchHit> searchVectorStore(String userId, String queryString, String logType,
+                                              Instant start, Instant end, int limit, ZoneId zone) {
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+        FilterExpressionBuilder.Op filter = b.and(b.eq("userId", userId), b.eq("type", logType));
+        if (start != null && end != null) {
+            filter = b.and(filter, b.and(b.gte("createdAt", start.toString()), b.lte("createdAt", end.toString())));
         }
+        return logVectorStore.similaritySearch(SearchRequest.builder()
+                        .query(queryString)
+                        .topK(limit)
+                        .filterExpression(filter.build())
+                        .build())
+                .stream()
+                .map(d -> new SearchHit(d.getId(), new LogDTO(d, zone)))
+                .toList();
+    }
+
+    private List<SearchHit> searchByText(String userId, String queryString, String logType, Instant start, Instant end, ZoneId zone) {
+        List<UUID> ids = logRepository.searchByText(userId, logType, queryString,
+                start != null && end != null ? start : Instant.EPOCH,
+                start != null && end != null ? end : SEARCH_UPPER_BOUND,
+                logSearchConfig.getCandidates());
+        if (ids.isEmpty()) return List.of();
+
+        Map<UUID, Log> logs = logRepository.findAllRoutedById(ids).stream()
+                .collect(Collectors.toMap(Log::getId, Function.identity()));
+        return ids.stream()
+                .map(logs::get)
+                .filter(Objects::nonNull)
+                .map(lg -> new SearchHit(lg.getId().toString(), new LogDTO(lg, zone)))
+                .toList();
+    }
+
+    private List<LogDTO> fuseResults(List<SearchHit> vectorHits, List<SearchHit> textHits) {
+        Map<String, LogDTO> logDtos = new HashMap<>();
+        vectorHits.forEach(hit -> logDtos.putIfAbsent(hit.id(), hit.log()));
+        textHits.forEach(hit -> logDtos.putIfAbsent(hit.id(), hit.log()));
+
+        List<LogDTO> fused = RankFusion.reciprocalRankFusion(
+                        List.of(vectorHits.stream().map(SearchHit::id).toList(), textHits.stream().map(SearchHit::id).toList()),
+                        logSearchConfig.getRrfK(), logSearchConfig.getTopK())
+                .stream()
+                .map(logDtos::get)
+                .toList();
+        log.debug("logs from getLogsForSpecificTopic {}", fused);
+        return fused;
+    }
+
+    private CursorPage<LogDTO> getLogsByTimeStampFromDatabase(String userId, String zoneId, Instant start, Instant end,
+                                                              KeysetCursor cursor) {
+        ZoneId zone = ZoneId.of(zoneId);
+        Limit limit = Limit.of(TIME_RANGE_LIMIT + 1);
+        List<LogTimelineRow> rows = cursor == null
+                ? logRepository.findTimeline(userId, start, end, limit)
+                : logRepository.findTimelineAfter(userId, start, end, cursor.sortKeyAsInstant(), cursor.id(), limit);
+        CursorPage<LogDTO> page = CursorPage.of(rows, TIME_RANGE_LIMIT, row -> new LogDTO(row, zone),
+                row -> KeysetCursor.encode(row.getCreatedAt(), row.getId()));
+        log.debug("logs from getLogsByTimeStamp {}", page.content());
+        return page;
+    }
+
+    private List<LogDTO> onSearchFailure(Throwable t) {
+        Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+        log.error(cause.getMessage());
+        return List.of();
+    }
+
+    @Override
+    public List<Log> getFeed(String caregiverId, LogType type, KeysetCursor cursor, int limit) {
+        List<String> patientIds = userService.getActivePatientIds(caregiverId);
+        if (patientIds.isEmpty()) return List.of();
+        String[] types = (type == null ? Arrays.stream(LogType.values()) : Stream.of(type))
+                .map(LogType::name)
+                .toArray(String[]::new);
+        // Without a cursor the feed starts after the largest possible key
+        Instant beforeCreatedAt = cursor == null ? SEARCH_UPPER_BOUND : cursor.sortKeyAsInstant();
+        UUID beforeId = cursor == null ? FEED_START_ID : cursor.id();
+        return logRepository.findFeed(patientIds.toArray(String[]::new), types, beforeCreatedAt, beforeId, limit);
     }
 
     @Override
     public Log getLog(UUID id) {
-        return logRepository.findById(id).orElseThrow(
+        return logRepository.findRoutedById(id).orElseThrow(
                 () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Log not found with id: " + id)
         );
     }
@@ -158,14 +333,21 @@ public class LogServiceImpl implements LogService {
         Log lg = getLog(id);
         verifyOwner(lg, SecurityUtils.getName());
 
+        LogType previousType = lg.getType();
         lg.setDescription(req.description());
         lg.setType(req.type());
+        // The rollups are recomputed from the logs table, which has to see the change first
+        logRepository.flush();
+        // Rollup rows are locked in LogType order, like addLogs does, so two updates moving logs between the same
+        // types in opposite directions cannot deadlock
+        Stream.of(previousType, lg.getType())
+                .distinct()
+                .sorted()
+                .forEach(type -> logRollupService.refresh(lg.getUser().getId(), type, lg.getCreatedAt()));
 
-        logVectorStore.add(List.of(new Document(
-                lg.getId().toString(),
-                lg.getDescription(),
-                lg.getMetadata()
-        )));
+        logIndexService.enqueue(lg.getId(), lg.getUser().getId(), LogIndexOperation.UPSERT);
+        logQueryCache.bumpVersion(lg.getUser().getId());
+        logEventBroker.publish(LogEventType.UPDATED, lg);
     }
 
     @Override
@@ -181,11 +363,27 @@ public class LogServiceImpl implements LogService {
         Log lg = getLog(id);
         verifyOwner(lg, SecurityUtils.getName());
         logRepository.delete(lg);
-        logVectorStore.delete(List.of(id.toString()));
+        logRepository.flush();
+        logRollupService.refresh(lg.getUser().getId(), lg.getType(), lg.getCreatedAt());
+        logTombstoneRepository.save(new LogTombstone(id, lg.getUser().getId(), Instant.now()));
+        logIndexService.enqueue(id, lg.getUser().getId(), LogIndexOperation.DELETE);
+        logQueryCache.bumpVersion(lg.getUser().getId());
+        logEventBroker.publish(LogEventType.DELETED, lg);
     }
 
     public Page<Log> getLogs(String userId, LogType type, Instant start, Instant end, Pageable pageable) {
         Specification<Log> spec = LogSpecification.getSpecification(userId, type, start, end);
         return logRepository.findAll(spec, pageable);
     }
+
+    @Override
+    public List<Log> getLogs(String userId, LogType type, Instant start, Instant end, KeysetCursor cursor,
+                             Sort.Direction direction, int limit) {
+        Specification<Log> spec = LogSpecification.getSpecification(userId, type, start, end);
+        if (cursor != null) {
+            spec = spec.and(LogSpecification.withKeysetAfter(cursor.sortKeyAsInstant(), cursor.id(), direction));
+        }
+        Sort sort = Sort.by(direction, Log.LogSortCategory.CREATED_AT.getValue(), "id");
+        return logRepository.findBy(spec, q -> q.sortBy(sort).limit(limit).all());
+    }
 }
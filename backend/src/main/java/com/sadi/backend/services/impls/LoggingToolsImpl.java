@@ -1,12 +1,15 @@
 package com.sadi.backend.services.impls;
 
+import com.sadi.backend.caches.LogQueryCache;
 import com.sadi.backend.dtos.LogDTO;
+import com.sadi.backend.dtos.responses.CursorPage;
 import com.sadi.backend.entities.Log;
 import com.sadi.backend.entities.User;
 import com.sadi.backend.enums.LogType;
 import com.sadi.backend.services.abstractions.LogService;
 import com.sadi.backend.services.abstractions.LoggingTools;
 import com.sadi.backend.utils.BasicUtils;
+import com.sadi.backend.utils.KeysetCursor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.model.ToolContext;
 import org.springframework.ai.tool.annotation.Tool;
@@ -22,9 +25,11 @@ import java.util.Optional;
 @Component
 public class LoggingToolsImpl implements LoggingTools {
     private final LogService logService;
+    private final LogQueryCache logQueryCache;
 
-    public LoggingToolsImpl(LogService logService) {
+    public LoggingToolsImpl(LogService logService, LogQueryCache logQueryCache) {
         this.logService = logService;
+        this.logQueryCache = logQueryCache;
     }
 
     @Tool(description = "User this tool to saveLogs")
@@ -53,13 +58,16 @@ public class LoggingToolsImpl implements LoggingTools {
     @Override
     @Tool(description = """
             Use this tool to retrieve logs for summarization within the specified start and end timestamps. Remember start and end must be in iso time format.
-            With each log you will get a date specifying the date on which the log was created and time on which the log was created
-            """)
-    public List<LogDTO> getLogs(
+            With each log you will get a date specifying the date on which the log was created and time on which the log was created.
+            """ + "Logs are returned in time order, at most " + LogService.TIME_RANGE_LIMIT + " per call. If the result has a "
+            + "nextCursor, call the tool again with the same start and end and that cursor to get the rest.\n")
+    public CursorPage<LogDTO> getLogs(
             @ToolParam(description = "Start time in iso format")
             String startDatetime,
             @ToolParam(description = "End time in iso format")
             String endDatetime,
+            @ToolParam(description = "The nextCursor of the previous call for the same range; leave it out for the first page", required = false)
+            String cursor,
             ToolContext toolContext
     ) {
         String userId = (String) toolContext.getContext().get("userId");
@@ -68,8 +76,20 @@ public class LoggingToolsImpl implements LoggingTools {
         Instant start =  BasicUtils.getInstantISOStringAndZoneId(startDatetime, zoneId);
         Instant end =  BasicUtils.getInstantISOStringAndZoneId(endDatetime, zoneId);
 
-        log.debug("Get logs between {} and {}, {}, {}", start, end, userId, zoneId);
-        return logService.getLogsByTimeStamp(userId, zoneId, start, end);
+        log.debug("Get logs between {} and {}, {}, {}, cursor {}", start, end, userId, zoneId, cursor);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        if(after != null){
+            return logService.getLogsByTimeStamp(userId, zoneId, start, end, after);
+        }
+        long version = logQueryCache.getVersion(userId);
+        // A cached range always holds every log between start and end, so a hit is never followed by another page
+        Optional<List<LogDTO>> cached = logQueryCache.getLogsByTimeStamp(userId, version, zoneId, start, end);
+        if(cached.isPresent()){
+            return new CursorPage<>(cached.get(), null, false);
+        }
+        CursorPage<LogDTO> logs = logService.getLogsByTimeStamp(userId, zoneId, start, end, null);
+        logQueryCache.putLogsByTimeStamp(userId, version, zoneId, start, end, logs.content());
+        return logs;
     }
 
     @Override
@@ -77,7 +97,7 @@ public class LoggingToolsImpl implements LoggingTools {
             Use these tool to retrieve logs related to certain query. This tool allows you to filter events based on timestamp & log type.
             """)
     public List<LogDTO> getLogsForSpecificTopic(
-            @ToolParam(description = "We will perform a similarity search based on this queryString")
+            @ToolParam(description = "We will perform a similarity and keyword search based on this queryString; include exact names such as medicine names")
             String queryString,
             @ToolParam(description = "Pass the type of log. Must be one of the following values (EATING, MEDICINE, SOCIAL, OUTINGS, BATHING)")
             String logType,
@@ -100,6 +120,13 @@ public class LoggingToolsImpl implements LoggingTools {
         }
 
         log.debug("Get logs for specific topic with query: {}, logType: {}, userId: {}, start: {}, end: {}", queryString, logType, userId, start, end);
-        return logService.getLogsByQuery(userId, zoneId, queryString, logType, start, end);
+        long version = logQueryCache.getVersion(userId);
+        Optional<List<LogDTO>> cached = logQueryCache.getLogsByQuery(userId, version, zoneId, queryString, logType, start, end);
+        if(cached.isPresent()){
+            return cached.get();
+        }
+        List<LogDTO> logs = logService.getLogsByQuery(userId, zoneId, queryString, logType, start, end);
+        logQueryCache.putLogsByQuery(userId, version, zoneId, queryString, logType, start, end, logs);
+        return logs;
     }
 }
@@ -1,5 +1,6 @@
 package com.sadi.backend.services.impls;
 
+import com.sadi.backend.caches.CaregiverAccessCache;
 import com.sadi.backend.dtos.responses.CaregiversPatientsDTO;
 import com.sadi.backend.entities.PatientCaregiver;
 import com.sadi.backend.entities.PatientDetail;
@@ -35,6 +36,7 @@ public class PatientCaregiverMgmtServiceRedisImpl implements PatientCaregiverMgm
     private final RedisTemplate<String, Object> redisTemplate;
     private final EmailService emailService;
     private final PatientCaregiverRepository patientCaregiverRepository;
+    private final CaregiverAccessCache caregiverAccessCache;
 
 
     @Override
@@ -83,10 +85,14 @@ public class PatientCaregiverMgmtServiceRedisImpl implements PatientCaregiverMgm
                 throw new ResponseStatusException(HttpStatus.CONFLICT, "Patient is already added to the caregiver");
             }
             existing.setRemovedAt(null);
-            return patientCaregiverRepository.save(existing).getId();
+            UUID id = patientCaregiverRepository.save(existing).getId();
+            caregiverAccessCache.evict(caregiver.getId());
+            return id;
         }
 
-        return patientCaregiverRepository.save(new PatientCaregiver(patient, caregiver)).getId();
+        UUID id = patientCaregiverRepository.save(new PatientCaregiver(patient, caregiver)).getId();
+        caregiverAccessCache.evict(caregiver.getId());
+        return id;
     }
 
     @Override
@@ -106,6 +112,7 @@ public class PatientCaregiverMgmtServiceRedisImpl implements PatientCaregiverMgm
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Primary contacts cannot be removed from their own patient list");
         }
         relationship.setRemovedAt(Instant.now());
+        caregiverAccessCache.evict(caregiver.getId());
 
         notifyPrimaryContactOfRemoval(primaryContact, caregiver, patient);
     }
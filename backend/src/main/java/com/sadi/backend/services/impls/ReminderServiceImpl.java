@@ -11,12 +11,14 @@ import com.sadi.backend.services.abstractions.ReminderSchedulerService;
 import com.sadi.backend.services.abstractions.ReminderSenderService;
 import com.sadi.backend.services.abstractions.ReminderService;
 import com.sadi.backend.specifications.ReminderSpecification;
+import com.sadi.backend.utils.KeysetCursor;
 import com.sadi.backend.utils.SecurityUtils;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -24,6 +26,7 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -112,6 +115,17 @@ public class ReminderServiceImpl implements ReminderService {
         return reminderRepository.findAll(spec, pageable);
     }
 
+    @Override
+    public List<Reminder> getReminders(String userId, ReminderType type, Instant start, Instant end, KeysetCursor cursor,
+                                       Sort.Direction direction, int limit) {
+        Specification<Reminder> spec = ReminderSpecification.getSpecification(userId, type, start, end);
+        if (cursor != null) {
+            spec = spec.and(ReminderSpecification.withKeysetAfter(cursor.sortKeyAsLong(), cursor.id(), direction));
+        }
+        Sort sort = Sort.by(direction, Reminder.ReminderSortCategory.NEXT_EXECUTION.getValue(), "id");
+        return reminderRepository.findBy(spec, q -> q.sortBy(sort).limit(limit).all());
+    }
+
     @Override
     public Reminder getReminder(UUID id) {
         return reminderRepository.findById(id).orElseThrow(
@@ -1,6 +1,6 @@
 package com.sadi.backend.services.impls;
 
-import com.sadi.backend.entities.User;
+import com.sadi.backend.services.TelegramDispatcher;
 import com.sadi.backend.services.UserService;
 import com.sadi.backend.utils.SecurityUtils;
 import jakarta.transaction.Transactional;
@@ -8,18 +8,13 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
-import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -27,12 +22,10 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class TelegramServiceRedisImpl {
 
-    @Value("${BOT_TOKEN}")
-    private String botToken;
-
     private final String TELEGRAM_KEY_PREFIX = "telegram:registration:";
     private final RedisTemplate<String, Object> redisTemplate;
     private final UserService userService;
+    private final TelegramDispatcher telegramDispatcher;
 
     public String getUUIDForRegistration() {
         String userId = SecurityUtils.getName();
@@ -54,33 +47,12 @@ public class TelegramServiceRedisImpl {
                     "The UUID is invalid or has expired. Please request a new UUID.");
         }
         String userId = (String) obj;
-        User user = userService.getUser(userId);
-        user.setTelegramChatId(chatId);
+        userService.setTelegramChatId(userId, chatId);
         redisTemplate.delete(key);
     }
 
-    @Async
     public void sendMessage(String chatId, String message) {
-        log.info("Sending message to chat {}: {}", chatId, message);
-
-        String apiUrl = "https://api.telegram.org/bot" + botToken + "/sendMessage";
-        RestClient restClient = RestClient.builder().build();
-
-        Map<String, Object> payload = Map.of(
-                "chat_id", chatId,
-                "text", message
-        );
-
-        try {
-            restClient.post()
-                    .uri(apiUrl)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(payload)
-                    .retrieve()
-                    .body(String.class);
-
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-        }
+        log.debug("Queueing message to chat {}", chatId);
+        telegramDispatcher.enqueue(chatId, message);
     }
 }
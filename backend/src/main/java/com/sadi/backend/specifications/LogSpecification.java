@@ -2,11 +2,13 @@ package com.sadi.backend.specifications;
 
 import com.sadi.backend.entities.Log;
 import com.sadi.backend.enums.LogType;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
+import java.util.UUID;
 
 public class LogSpecification {
     public static Specification<Log> withType(LogType type) {
@@ -42,6 +44,23 @@ public class LogSpecification {
         };
     }
 
+    public static Specification<Log> withKeysetAfter(Instant createdAt, UUID id, Sort.Direction direction) {
+        return (root, query, cb) -> {
+            if (createdAt == null || id == null) {
+                return null;
+            }
+            // The first bound is implied by the second, but only it can start the index range scan
+            if (direction == Sort.Direction.ASC) {
+                return cb.and(cb.greaterThanOrEqualTo(root.get("createdAt"), createdAt),
+                        cb.or(cb.greaterThan(root.get("createdAt"), createdAt),
+                                cb.and(cb.equal(root.get("createdAt"), createdAt), cb.greaterThan(root.get("id"), id))));
+            }
+            return cb.and(cb.lessThanOrEqualTo(root.get("createdAt"), createdAt),
+                    cb.or(cb.lessThan(root.get("createdAt"), createdAt),
+                            cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id))));
+        };
+    }
+
     public static Specification<Log> getSpecification(String userId, LogType type, Instant startDate, Instant endDate) {
         return Specification.where(withUserId(userId))
                 .and(withType(type))
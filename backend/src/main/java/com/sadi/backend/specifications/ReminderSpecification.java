@@ -4,11 +4,13 @@ import com.sadi.backend.entities.Log;
 import com.sadi.backend.entities.Reminder;
 import com.sadi.backend.enums.LogType;
 import com.sadi.backend.enums.ReminderType;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
+import java.util.UUID;
 
 public class ReminderSpecification {
     public static Specification<Reminder> withType(ReminderType type) {
@@ -44,6 +46,23 @@ public class ReminderSpecification {
         };
     }
 
+    public static Specification<Reminder> withKeysetAfter(Long nextExecution, UUID id, Sort.Direction direction) {
+        return (root, query, cb) -> {
+            if (nextExecution == null || id == null) {
+                return null;
+            }
+            // The first bound is implied by the second, but only it can start the index range scan
+            if (direction == Sort.Direction.ASC) {
+                return cb.and(cb.greaterThanOrEqualTo(root.get("nextExecution"), nextExecution),
+                        cb.or(cb.greaterThan(root.get("nextExecution"), nextExecution),
+                                cb.and(cb.equal(root.get("nextExecution"), nextExecution), cb.greaterThan(root.get("id"), id))));
+            }
+            return cb.and(cb.lessThanOrEqualTo(root.get("nextExecution"), nextExecution),
+                    cb.or(cb.lessThan(root.get("nextExecution"), nextExecution),
+                            cb.and(cb.equal(root.get("nextExecution"), nextExecution), cb.lessThan(root.get("id"), id))));
+        };
+    }
+
     public static Specification<Reminder> getSpecification(String userId, ReminderType type, Instant startDate, Instant endDate) {
         return Specification.where(withUserId(userId))
                 .and(withType(type))
@@ -1,9 +1,13 @@
 package com.sadi.backend.utils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
 
 public class BasicUtils {
     public static Instant getInstantISOStringAndZoneId(String isoString, String zoneId) {
@@ -15,4 +19,13 @@ public class BasicUtils {
         return LocalDateTime.ofInstant(instant, ZoneId.of(zoneId))
                 .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
     }
+
+    public static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
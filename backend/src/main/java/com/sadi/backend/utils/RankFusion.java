@@ -0,0 +1,23 @@
+package com.sadi.backend.utils;
+
+import java.util.*;
+
+public class RankFusion {
+    /**
+     * Reciprocal rank fusion: every ranking contributes 1 / (k + rank) to the score of each of its items.
+     * Ties keep the order in which the items were first seen.
+     */
+    public static <T> List<T> reciprocalRankFusion(List<List<T>> rankings, int k, int topK) {
+        Map<T, Double> scores = new LinkedHashMap<>();
+        for (List<T> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                scores.merge(ranking.get(rank), 1.0 / (k + rank + 1), Double::sum);
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<T, Double>comparingByValue().reversed())
+                .limit(topK)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
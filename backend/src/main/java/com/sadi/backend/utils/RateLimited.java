@@ -0,0 +1,35 @@
+package com.sadi.backend.utils;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits calls to a controller method with a token bucket shared by all replicas. The bucket holds up to
+ * {@code capacity} calls and gets {@code refillTokens} back every {@code period}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+    /**
+     * Name of the policy, used in the bucket key and in metrics.
+     */
+    String name();
+
+    int capacity();
+
+    int refillTokens();
+
+    long period() default 1;
+
+    TimeUnit unit() default TimeUnit.HOURS;
+
+    Scope scope() default Scope.USER;
+
+    enum Scope {
+        /** One bucket per authenticated user. */
+        USER,
+        /** One bucket for the endpoint, shared by all callers. */
+        ENDPOINT
+    }
+}
@@ -0,0 +1,385 @@
+package com.sadi.backend.vectorstores;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sadi.backend.configs.EmbeddedVectorStoreConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Vector store running inside the backend for single node installs without a Qdrant server.
+ * <p>
+ * Vectors are appended to a memory-mapped file and indexed by an HNSW graph. Documents and deletes are appended to a
+ * log that is replayed on startup, and the graph is snapshotted periodically and on shutdown so a restart only
+ * has to insert the vectors added after the last snapshot. Replaced and deleted vectors stay in the files until a
+ * startup finds that they make up the compaction threshold of the slots; the live vectors and documents are then
+ * copied to new files and the graph is rebuilt.
+ * <p>
+ * Searches restricted to one partition (the user of a log) with few vectors are answered exactly by scanning the
+ * partition, larger ones go through the graph.
+ */
+@Slf4j
+public class EmbeddedHnswVectorStore implements VectorStore, Closeable {
+    private static final String VECTORS_FILE = "vectors.bin";
+    private static final String DOCUMENTS_FILE = "documents.log";
+    private static final String GRAPH_FILE = "graph.bin";
+    private static final String COMPACTING_SUFFIX = ".compacting";
+
+    private final EmbeddingModel embeddingModel;
+    private final ObjectMapper objectMapper;
+    private final EmbeddedVectorStoreConfig config;
+    private final String partitionKey;
+    private final Path directory;
+    private final MappedVectorFile vectors;
+    private final HnswGraph graph;
+    private final BufferedWriter documentLog;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Indexed by slot, null when the slot was deleted or replaced
+    private final List<StoredDocument> documents = new ArrayList<>();
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final Map<Object, Set<Integer>> slotsByPartition = new HashMap<>();
+    private int insertsSinceSnapshot;
+
+    private record StoredDocument(String id, String text, Map<String, Object> metadata) {
+    }
+
+    private record LogEntry(String op, Integer slot, String id, String text, Map<String, Object> metadata) {
+    }
+
+    public EmbeddedHnswVectorStore(EmbeddingModel embeddingModel, ObjectMapper objectMapper,
+                                   EmbeddedVectorStoreConfig config, String partitionKey) throws IOException {
+        this.embeddingModel = embeddingModel;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.partitionKey = partitionKey;
+        this.directory = Path.of(config.getDirectory());
+        Files.createDirectories(directory);
+
+        recoverCompaction();
+        MappedVectorFile vectorFile = openVectors();
+        replayDocumentLog(vectorFile);
+        int dead = vectorFile.size() - slotsById.size();
+        if (dead > 0 && dead >= vectorFile.size() * config.getCompactionThreshold()) {
+            vectorFile = compact(vectorFile);
+        }
+        this.vectors = vectorFile;
+        this.graph = new HnswGraph(vectors, config.getM(), config.getEfConstruction());
+        loadGraph();
+        this.documentLog = Files.newBufferedWriter(directory.resolve(DOCUMENTS_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        log.info("Loaded embedded vector store from {} with {} documents", directory, slotsById.size());
+    }
+
+    @Override
+    public void add(List<Document> documentsToAdd) {
+        if (documentsToAdd.isEmpty()) return;
+        // Embedding is the slow part, so it happens before taking the lock
+        List<float[]> embeddings = embeddingModel.embed(documentsToAdd.stream().map(Document::getText).toList());
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < documentsToAdd.size(); i++) {
+                Document document = documentsToAdd.get(i);
+                // The vector is written before the log entry, so a crash in between only leaves an unused slot
+                int slot = vectors.append(normalize(embeddings.get(i)));
+                graph.insert(slot);
+                StoredDocument stored = new StoredDocument(document.getId(), document.getText(), new HashMap<>(document.getMetadata()));
+                put(slot, stored);
+                writeEntry(new LogEntry("add", slot, stored.id(), stored.text(), stored.metadata()));
+            }
+            documentLog.flush();
+            insertsSinceSnapshot += documentsToAdd.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (insertsSinceSnapshot >= config.getSnapshotInterval()) {
+            snapshot();
+        }
+    }
+
+    @Override
+    public void delete(List<String> ids) {
+        lock.writeLock().lock();
+        try {
+            for (String id : ids) {
+                if (remove(id)) {
+                    writeEntry(new LogEntry("delete", null, id, null, null));
+                }
+            }
+            documentLog.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        List<String> ids;
+        lock.readLock().lock();
+        try {
+            ids = documents.stream()
+                    .filter(d -> d != null && MetadataFilter.matches(filterExpression, d.metadata()))
+                    .map(StoredDocument::id)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+        delete(ids);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        float[] query = normalize(embeddingModel.embed(request.getQuery()));
+        Filter.Expression filter = request.getFilterExpression();
+
+        lock.readLock().lock();
+        try {
+            IntPredicate accept = slot -> {
+                StoredDocument document = documents.get(slot);
+                return document != null && (filter == null || MetadataFilter.matches(filter, document.metadata()));
+            };
+            Object partition = filter == null ? null : MetadataFilter.requiredValue(filter, partitionKey);
+            Set<Integer> partitionSlots = partition == null ? null : slotsByPartition.getOrDefault(partition, Set.of());
+
+            List<HnswGraph.Scored> hits = partitionSlots != null && partitionSlots.size() <= config.getExactSearchThreshold()
+                    ? exactSearch(query, partitionSlots, request.getTopK(), accept)
+                    : graph.search(query, request.getTopK(), config.getEfSearch(), accept);
+
+            double threshold = request.getSimilarityThreshold();
+            return hits.stream()
+                    .filter(hit -> threshold == SearchRequest.SIMILARITY_THRESHOLD_ACCEPT_ALL || hit.score() >= threshold)
+                    .map(hit -> {
+                        StoredDocument document = documents.get(hit.node());
+                        return Document.builder()
+                                .id(document.id())
+                                .text(document.text())
+                                .metadata(new HashMap<>(document.metadata()))
+                                .score((double) hit.score())
+                                .build();
+                    })
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Persists the graph so the next startup does not have to rebuild it.
+     */
+    public synchronized void snapshot() {
+        lock.readLock().lock();
+        try {
+            vectors.force();
+            Path temp = directory.resolve(GRAPH_FILE + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                graph.writeTo(out);
+            }
+            Files.move(temp, directory.resolve(GRAPH_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            insertsSinceSnapshot = 0;
+            log.debug("Snapshotted embedded vector store graph with {} nodes", graph.size());
+        } catch (IOException e) {
+            log.warn("Failed to snapshot embedded vector store graph: {}", e.getMessage());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        snapshot();
+        lock.writeLock().lock();
+        try {
+            documentLog.close();
+            vectors.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<HnswGraph.Scored> exactSearch(float[] query, Set<Integer> slots, int topK, IntPredicate accept) {
+        PriorityQueue<HnswGraph.Scored> best = new PriorityQueue<>(Comparator.comparingDouble(HnswGraph.Scored::score));
+        for (int slot : slots) {
+            if (!accept.test(slot)) continue;
+            best.add(new HnswGraph.Scored(slot, vectors.dot(query, slot)));
+            if (best.size() > topK) best.poll();
+        }
+        List<HnswGraph.Scored> ordered = new ArrayList<>(best);
+        ordered.sort(Comparator.comparingDouble(HnswGraph.Scored::score).reversed());
+        return ordered;
+    }
+
+    private void put(int slot, StoredDocument document) {
+        remove(document.id());
+        while (documents.size() <= slot) {
+            documents.add(null);
+        }
+        documents.set(slot, document);
+        slotsById.put(document.id(), slot);
+        Object partition = document.metadata().get(partitionKey);
+        if (partition != null) {
+            slotsByPartition.computeIfAbsent(partition, p -> new HashSet<>()).add(slot);
+        }
+    }
+
+    private boolean remove(String id) {
+        Integer slot = slotsById.remove(id);
+        if (slot == null) return false;
+        StoredDocument document = documents.set(slot, null);
+        Object partition = document.metadata().get(partitionKey);
+        Set<Integer> partitionSlots = partition == null ? null : slotsByPartition.get(partition);
+        if (partitionSlots != null) {
+            partitionSlots.remove(slot);
+            if (partitionSlots.isEmpty()) slotsByPartition.remove(partition);
+        }
+        return true;
+    }
+
+    private void writeEntry(LogEntry entry) throws IOException {
+        documentLog.write(objectMapper.writeValueAsString(entry));
+        documentLog.newLine();
+    }
+
+    private MappedVectorFile openVectors() throws IOException {
+        return new MappedVectorFile(directory.resolve(VECTORS_FILE), embeddingModel.dimensions(), config.getInitialCapacity());
+    }
+
+    /**
+     * Copies the live slots to new files in slot order and replaces the old files with them. The graph snapshot is
+     * removed first, as its node ids are the old slots.
+     */
+    private MappedVectorFile compact(MappedVectorFile old) throws IOException {
+        List<Integer> liveSlots = slotsById.values().stream().sorted().toList();
+        log.info("Compacting embedded vector store, {} of {} slots are live", liveSlots.size(), old.size());
+        Path vectorsTemp = directory.resolve(VECTORS_FILE + COMPACTING_SUFFIX);
+        Path documentsTemp = directory.resolve(DOCUMENTS_FILE + COMPACTING_SUFFIX);
+        Files.deleteIfExists(vectorsTemp);
+        Files.deleteIfExists(documentsTemp);
+
+        // The vectors file is created first, recoverCompaction relies on it
+        try (MappedVectorFile compacted = new MappedVectorFile(vectorsTemp, old.dimension(),
+                Math.max(liveSlots.size(), config.getInitialCapacity()));
+             BufferedWriter writer = Files.newBufferedWriter(documentsTemp, StandardCharsets.UTF_8)) {
+            for (int oldSlot : liveSlots) {
+                StoredDocument document = documents.get(oldSlot);
+                int slot = compacted.append(old.get(oldSlot));
+                writer.write(objectMapper.writeValueAsString(
+                        new LogEntry("add", slot, document.id(), document.text(), document.metadata())));
+                writer.newLine();
+            }
+        }
+        try (FileChannel channel = FileChannel.open(documentsTemp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        old.close();
+
+        Files.deleteIfExists(directory.resolve(GRAPH_FILE));
+        Files.move(vectorsTemp, directory.resolve(VECTORS_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(documentsTemp, directory.resolve(DOCUMENTS_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        documents.clear();
+        slotsById.clear();
+        slotsByPartition.clear();
+        MappedVectorFile vectorFile = openVectors();
+        replayDocumentLog(vectorFile);
+        return vectorFile;
+    }
+
+    /**
+     * Finishes or discards a compaction interrupted by a crash. While the compacted vectors file still exists the
+     * old files are untouched and it is discarded, once it was moved only the documents are left to move.
+     */
+    private void recoverCompaction() throws IOException {
+        Path vectorsTemp = directory.resolve(VECTORS_FILE + COMPACTING_SUFFIX);
+        Path documentsTemp = directory.resolve(DOCUMENTS_FILE + COMPACTING_SUFFIX);
+        if (Files.exists(vectorsTemp)) {
+            Files.delete(vectorsTemp);
+            Files.deleteIfExists(documentsTemp);
+        } else if (Files.exists(documentsTemp)) {
+            log.warn("Finishing an interrupted compaction of the embedded vector store");
+            Files.move(documentsTemp, directory.resolve(DOCUMENTS_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private void replayDocumentLog(MappedVectorFile vectors) throws IOException {
+        Path path = directory.resolve(DOCUMENTS_FILE);
+        if (Files.exists(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    LogEntry entry;
+                    try {
+                        entry = objectMapper.readValue(line, LogEntry.class);
+                    } catch (IOException e) {
+                        // Only the last line can be torn by a crash
+                        log.warn("Skipping unreadable entry of embedded vector store log: {}", e.getMessage());
+                        continue;
+                    }
+                    if ("delete".equals(entry.op())) {
+                        remove(entry.id());
+                    } else if (entry.slot() < vectors.size()) {
+                        put(entry.slot(), new StoredDocument(entry.id(), entry.text(),
+                                entry.metadata() == null ? new HashMap<>() : entry.metadata()));
+                    }
+                }
+            }
+        }
+        while (documents.size() < vectors.size()) {
+            documents.add(null);
+        }
+    }
+
+    private void loadGraph() {
+        Path path = directory.resolve(GRAPH_FILE);
+        if (Files.exists(path)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                graph.readFrom(in);
+            } catch (IOException e) {
+                log.warn("Rebuilding embedded vector store graph, the snapshot could not be read: {}", e.getMessage());
+                graph.clear();
+            }
+        }
+        int missing = vectors.size() - graph.size();
+        for (int slot = graph.size(); slot < vectors.size(); slot++) {
+            graph.insert(slot);
+        }
+        insertsSinceSnapshot = missing;
+        if (missing > 0) {
+            log.info("Inserted {} vectors added after the last graph snapshot", missing);
+        }
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = norm == 0 ? 0 : (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,233 @@
+package com.sadi.backend.vectorstores;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical navigable small world graph over the vectors of a {@link MappedVectorFile}.
+ * Node ids are the slots of the vectors, which are expected to be unit length so the dot product is the cosine
+ * similarity. Only the adjacency lists are kept on the heap. Not thread safe.
+ */
+class HnswGraph {
+    private final MappedVectorFile vectors;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+    // links.get(node)[level] holds the neighbours of the node on that level
+    private final List<int[][]> links = new ArrayList<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    record Scored(int node, float score) {
+    }
+
+    HnswGraph(MappedVectorFile vectors, int m, int efConstruction) {
+        this.vectors = vectors;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    int size() {
+        return links.size();
+    }
+
+    void insert(int node) {
+        if (node != links.size()) {
+            throw new IllegalArgumentException("Nodes have to be inserted in slot order, expected " + links.size());
+        }
+        float[] vector = vectors.get(node);
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        int[][] nodeLinks = new int[level + 1][];
+        Arrays.fill(nodeLinks, new int[0]);
+        links.add(nodeLinks);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = searchLayer(vector, List.of(current), 1, l, n -> true).getFirst().node();
+        }
+        List<Integer> entryPoints = List.of(current);
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Scored> candidates = searchLayer(vector, entryPoints, efConstruction, l, n -> true);
+            int[] neighbours = selectNeighbours(candidates, m);
+            nodeLinks[l] = neighbours;
+            for (int neighbour : neighbours) {
+                connect(neighbour, node, l);
+            }
+            entryPoints = candidates.stream().map(Scored::node).toList();
+        }
+
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * Returns up to {@code k} accepted nodes ordered by descending similarity. Rejected nodes are still traversed,
+     * so a selective filter widens the search instead of cutting the graph apart.
+     */
+    List<Scored> search(float[] query, int k, int ef, IntPredicate accept) {
+        if (entryPoint < 0) return List.of();
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = searchLayer(query, List.of(current), 1, l, n -> true).getFirst().node();
+        }
+        List<Scored> results = searchLayer(query, List.of(current), Math.max(ef, k), 0, accept);
+        return results.size() > k ? results.subList(0, k) : results;
+    }
+
+    void clear() {
+        links.clear();
+        entryPoint = -1;
+        maxLevel = -1;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(links.size());
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        for (int[][] nodeLinks : links) {
+            out.writeInt(nodeLinks.length);
+            for (int[] neighbours : nodeLinks) {
+                out.writeInt(neighbours.length);
+                for (int neighbour : neighbours) {
+                    out.writeInt(neighbour);
+                }
+            }
+        }
+    }
+
+    void readFrom(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size > vectors.size()) {
+            throw new IOException("Graph snapshot has " + size + " nodes but only " + vectors.size() + " vectors exist");
+        }
+        links.clear();
+        entryPoint = in.readInt();
+        maxLevel = in.readInt();
+        for (int node = 0; node < size; node++) {
+            int[][] nodeLinks = new int[in.readInt()][];
+            for (int l = 0; l < nodeLinks.length; l++) {
+                int[] neighbours = new int[in.readInt()];
+                for (int i = 0; i < neighbours.length; i++) {
+                    neighbours[i] = in.readInt();
+                }
+                nodeLinks[l] = neighbours;
+            }
+            links.add(nodeLinks);
+        }
+    }
+
+    private void connect(int node, int neighbour, int level) {
+        int[] current = links.get(node)[level];
+        int maxM = level == 0 ? maxM0 : m;
+        if (current.length < maxM) {
+            int[] extended = Arrays.copyOf(current, current.length + 1);
+            extended[current.length] = neighbour;
+            links.get(node)[level] = extended;
+            return;
+        }
+
+        float[] vector = vectors.get(node);
+        List<Scored> candidates = new ArrayList<>(current.length + 1);
+        for (int n : current) {
+            candidates.add(new Scored(n, vectors.dot(vector, n)));
+        }
+        candidates.add(new Scored(neighbour, vectors.dot(vector, neighbour)));
+        candidates.sort(Comparator.comparingDouble(Scored::score).reversed());
+        links.get(node)[level] = selectNeighbours(candidates, maxM);
+    }
+
+    /**
+     * Neighbour selection heuristic of the HNSW paper: a candidate is skipped when it is closer to an already selected
+     * neighbour than to the base node, which keeps links spread in different directions. Skipped candidates fill up
+     * the remaining slots. Candidates have to be ordered by descending similarity to the base node.
+     */
+    private int[] selectNeighbours(List<Scored> candidates, int max) {
+        List<Scored> selected = new ArrayList<>(max);
+        List<float[]> selectedVectors = new ArrayList<>(max);
+        List<Scored> skipped = new ArrayList<>();
+        for (Scored candidate : candidates) {
+            if (selected.size() == max) break;
+            float[] candidateVector = vectors.get(candidate.node());
+            boolean diverse = true;
+            for (float[] selectedVector : selectedVectors) {
+                if (dot(candidateVector, selectedVector) > candidate.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+                selectedVectors.add(candidateVector);
+            } else {
+                skipped.add(candidate);
+            }
+        }
+        for (int i = 0; i < skipped.size() && selected.size() < max; i++) {
+            selected.add(skipped.get(i));
+        }
+        return selected.stream().mapToInt(Scored::node).toArray();
+    }
+
+    private List<Scored> searchLayer(float[] query, List<Integer> entryPoints, int ef, int level, IntPredicate accept) {
+        BitSet visited = new BitSet(links.size());
+        PriorityQueue<Scored> candidates = new PriorityQueue<>(Comparator.comparingDouble(Scored::score).reversed());
+        PriorityQueue<Scored> results = new PriorityQueue<>(Comparator.comparingDouble(Scored::score));
+        for (int entry : entryPoints) {
+            visited.set(entry);
+            Scored scored = new Scored(entry, vectors.dot(query, entry));
+            candidates.add(scored);
+            if (accept.test(entry)) offer(results, scored, ef);
+        }
+
+        while (!candidates.isEmpty()) {
+            Scored candidate = candidates.poll();
+            if (results.size() >= ef && candidate.score() < results.peek().score()) break;
+
+            int[][] candidateLinks = links.get(candidate.node());
+            if (level >= candidateLinks.length) continue;
+            for (int neighbour : candidateLinks[level]) {
+                if (visited.get(neighbour)) continue;
+                visited.set(neighbour);
+                float score = vectors.dot(query, neighbour);
+                if (results.size() < ef || score > results.peek().score()) {
+                    Scored scored = new Scored(neighbour, score);
+                    candidates.add(scored);
+                    if (accept.test(neighbour)) offer(results, scored, ef);
+                }
+            }
+        }
+
+        List<Scored> ordered = new ArrayList<>(results);
+        ordered.sort(Comparator.comparingDouble(Scored::score).reversed());
+        return ordered;
+    }
+
+    private static void offer(PriorityQueue<Scored> results, Scored scored, int ef) {
+        results.add(scored);
+        if (results.size() > ef) results.poll();
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,120 @@
+package com.sadi.backend.vectorstores;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only store of fixed size float vectors in a memory-mapped file, so the vectors live in the page cache
+ * instead of the heap and are available again right after a restart.
+ * <p>
+ * Layout: a header of magic, dimension and count followed by the vectors as little-endian float32.
+ * Not thread safe, callers have to guard writes against concurrent reads.
+ */
+class MappedVectorFile implements Closeable {
+    private static final int MAGIC = 0x4D545653;
+    private static final int HEADER_BYTES = 16;
+    private static final int COUNT_OFFSET = 8;
+
+    private final FileChannel channel;
+    private final int dimension;
+    private final int vectorBytes;
+    private final int maxCapacity;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int count;
+
+    MappedVectorFile(Path path, int dimension, int initialCapacity) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.vectorBytes = dimension * Float.BYTES;
+        this.maxCapacity = (Integer.MAX_VALUE - HEADER_BYTES) / vectorBytes;
+
+        if (channel.size() >= HEADER_BYTES) {
+            map((int) Math.max(initialCapacity, (channel.size() - HEADER_BYTES) / vectorBytes));
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IllegalStateException("Not a vector file: " + path);
+            }
+            int storedDimension = buffer.getInt(4);
+            if (storedDimension != dimension) {
+                throw new IllegalStateException("Vector file " + path + " has dimension " + storedDimension
+                        + " but the embedding model produces " + dimension);
+            }
+            this.count = buffer.getInt(COUNT_OFFSET);
+        } else {
+            map(initialCapacity);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, dimension);
+            buffer.putInt(COUNT_OFFSET, 0);
+        }
+        this.dimension = dimension;
+    }
+
+    int dimension() {
+        return dimension;
+    }
+
+    int size() {
+        return count;
+    }
+
+    int append(float[] vector) throws IOException {
+        if (count == capacity) {
+            if (capacity == maxCapacity) {
+                throw new IllegalStateException("Embedded vector store is full, it holds at most " + maxCapacity + " vectors");
+            }
+            map((int) Math.min(capacity * 2L, maxCapacity));
+        }
+        int offset = offset(count);
+        for (int i = 0; i < dimension; i++) {
+            buffer.putFloat(offset + i * Float.BYTES, vector[i]);
+        }
+        // The count is written last so a torn append is not visible after a reload
+        buffer.putInt(COUNT_OFFSET, ++count);
+        return count - 1;
+    }
+
+    float[] get(int slot) {
+        float[] vector = new float[dimension];
+        int offset = offset(slot);
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = buffer.getFloat(offset + i * Float.BYTES);
+        }
+        return vector;
+    }
+
+    float dot(float[] query, int slot) {
+        int offset = offset(slot);
+        float sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            sum += query[i] * buffer.getFloat(offset + i * Float.BYTES);
+        }
+        return sum;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private int offset(int slot) {
+        return HEADER_BYTES + slot * vectorBytes;
+    }
+
+    private void map(int newCapacity) throws IOException {
+        newCapacity = Math.min(newCapacity, maxCapacity);
+        long bytes = HEADER_BYTES + (long) newCapacity * vectorBytes;
+        if (buffer != null) buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        capacity = newCapacity;
+    }
+}
@@ -0,0 +1,95 @@
+package com.sadi.backend.vectorstores;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Evaluates Spring AI filter expressions against the metadata of a stored document.
+ */
+class MetadataFilter {
+    static boolean matches(Filter.Operand operand, Map<String, Object> metadata) {
+        if (operand instanceof Filter.Group group) {
+            return matches(group.content(), metadata);
+        }
+        if (!(operand instanceof Filter.Expression expression)) {
+            throw new IllegalArgumentException("Unsupported filter operand: " + operand);
+        }
+        return switch (expression.type()) {
+            case AND -> matches(expression.left(), metadata) && matches(expression.right(), metadata);
+            case OR -> matches(expression.left(), metadata) || matches(expression.right(), metadata);
+            case NOT -> !matches(expression.left(), metadata);
+            case IN, NIN -> {
+                Object actual = metadata.get(key(expression));
+                boolean contained = value(expression) instanceof List<?> values
+                        && values.stream().anyMatch(v -> compare(actual, v) == 0);
+                yield expression.type() == Filter.ExpressionType.IN == contained;
+            }
+            default -> {
+                Object actual = metadata.get(key(expression));
+                if (actual == null) yield expression.type() == Filter.ExpressionType.NE;
+                int comparison = compare(actual, value(expression));
+                yield switch (expression.type()) {
+                    case EQ -> comparison == 0;
+                    case NE -> comparison != 0;
+                    case GT -> comparison > 0;
+                    case GTE -> comparison >= 0;
+                    case LT -> comparison < 0;
+                    case LTE -> comparison <= 0;
+                    default -> throw new IllegalArgumentException("Unsupported filter expression: " + expression);
+                };
+            }
+        };
+    }
+
+    /**
+     * Returns the value a key has to be equal to for the filter to match, when the filter requires one.
+     */
+    static Object requiredValue(Filter.Operand operand, String key) {
+        if (operand instanceof Filter.Group group) {
+            return requiredValue(group.content(), key);
+        }
+        if (!(operand instanceof Filter.Expression expression)) return null;
+        if (expression.type() == Filter.ExpressionType.AND) {
+            Object left = requiredValue(expression.left(), key);
+            return left != null ? left : requiredValue(expression.right(), key);
+        }
+        if (expression.type() == Filter.ExpressionType.EQ && key.equals(key(expression))) {
+            return value(expression);
+        }
+        return null;
+    }
+
+    private static String key(Filter.Expression expression) {
+        return ((Filter.Key) expression.left()).key();
+    }
+
+    private static Object value(Filter.Expression expression) {
+        return ((Filter.Value) expression.right()).value();
+    }
+
+    // Timestamps are stored as ISO strings whose fraction digits vary, so they are compared as instants
+    private static int compare(Object actual, Object expected) {
+        if (actual instanceof Number a && expected instanceof Number e) {
+            return Double.compare(a.doubleValue(), e.doubleValue());
+        }
+        String a = Objects.toString(actual);
+        String e = Objects.toString(expected);
+        if (looksLikeInstant(a) && looksLikeInstant(e)) {
+            try {
+                return Instant.parse(a).compareTo(Instant.parse(e));
+            } catch (DateTimeParseException ignored) {
+                // fall back to comparing the strings
+            }
+        }
+        return a.compareTo(e);
+    }
+
+    private static boolean looksLikeInstant(String value) {
+        return value.length() >= 20 && value.charAt(4) == '-' && value.charAt(10) == 'T';
+    }
+}
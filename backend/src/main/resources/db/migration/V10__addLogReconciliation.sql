@@ -0,0 +1,39 @@
+ALTER TABLE logs
+    ADD COLUMN updated_at TIMESTAMP WITHOUT TIME ZONE;
+
+UPDATE logs
+SET updated_at = created_at;
+
+ALTER TABLE logs
+    ALTER COLUMN updated_at SET NOT NULL;
+
+CREATE INDEX idx_logs_updated_at_id
+    ON logs (updated_at, id);
+
+-- Deleted logs leave no row behind, so the reconciler finds them here
+CREATE TABLE log_tombstones
+(
+    log_id     UUID                        NOT NULL,
+    user_id    VARCHAR(255)                NOT NULL,
+    deleted_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_log_tombstones PRIMARY KEY (log_id)
+);
+
+CREATE INDEX idx_log_tombstones_deleted_at_log_id
+    ON log_tombstones (deleted_at, log_id);
+
+CREATE TABLE log_reconciler_checkpoints
+(
+    name         VARCHAR(50) NOT NULL,
+    position_at  TIMESTAMP WITHOUT TIME ZONE,
+    position_id  UUID,
+    leased_until TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT pk_log_reconciler_checkpoints PRIMARY KEY (name)
+);
+
+-- Existing logs are only covered by the full sweep, incremental checks start after them
+INSERT INTO log_reconciler_checkpoints (name, position_at)
+VALUES ('changes', (SELECT max(updated_at) FROM logs)),
+       ('deletes', NULL),
+       ('sweep-rows', NULL),
+       ('sweep-points', NULL);
@@ -0,0 +1,24 @@
+-- One row per user, local day and log type, kept up to date by every write to logs
+CREATE TABLE log_daily_rollups
+(
+    user_id            VARCHAR(255)                NOT NULL,
+    day                DATE                        NOT NULL,
+    type               VARCHAR(20)                 NOT NULL,
+    log_count          INTEGER                     NOT NULL,
+    first_at           TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    last_at            TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    latest_description TEXT                        NOT NULL,
+    CONSTRAINT pk_log_daily_rollups PRIMARY KEY (user_id, day, type)
+);
+
+-- Days are cut in the default zone of logs.rollups.zone
+INSERT INTO log_daily_rollups (user_id, day, type, log_count, first_at, last_at, latest_description)
+SELECT user_id,
+       (created_at AT TIME ZONE 'UTC' AT TIME ZONE 'Asia/Dhaka')::date,
+       type,
+       count(*),
+       min(created_at),
+       max(created_at),
+       (array_agg(description ORDER BY created_at DESC, id DESC))[1]
+FROM logs
+GROUP BY user_id, (created_at AT TIME ZONE 'UTC' AT TIME ZONE 'Asia/Dhaka')::date, type;
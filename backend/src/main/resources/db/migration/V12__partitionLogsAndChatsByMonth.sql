@@ -0,0 +1,138 @@
+-- Creates the partition of a table holding the month of the given day, named <table>_pYYYYMM
+CREATE OR REPLACE FUNCTION create_monthly_partition(parent_table TEXT, in_month DATE) RETURNS TEXT AS
+$$
+DECLARE
+    month_start    DATE := date_trunc('month', in_month)::date;
+    partition_name TEXT := parent_table || '_p' || to_char(month_start, 'YYYYMM');
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, parent_table, month_start, (month_start + INTERVAL '1 month')::date);
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Creates monthly partitions from the month of the oldest row up to three months ahead
+CREATE OR REPLACE FUNCTION create_initial_partitions(parent_table TEXT, oldest TIMESTAMP) RETURNS VOID AS
+$$
+DECLARE
+    month_start DATE := date_trunc('month', COALESCE(oldest, now()))::date;
+BEGIN
+    WHILE month_start <= (now() + INTERVAL '3 months')::date
+        LOOP
+            PERFORM create_monthly_partition(parent_table, month_start);
+            month_start := (month_start + INTERVAL '1 month')::date;
+        END LOOP;
+    -- Rows outside every monthly partition, such as imports of very old logs, land here
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I DEFAULT', parent_table || '_default', parent_table);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Logs: the primary key has to contain the partition key
+CREATE TABLE logs_partitioned
+(
+    id              UUID                        NOT NULL,
+    user_id         VARCHAR(255)                NOT NULL,
+    type            VARCHAR(20)                 NOT NULL,
+    description     TEXT                        NOT NULL,
+    created_at      TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    indexed_hash    VARCHAR(64),
+    updated_at      TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    description_tsv TSVECTOR GENERATED ALWAYS AS (to_tsvector('english', description)) STORED
+) PARTITION BY RANGE (created_at);
+
+SELECT create_initial_partitions('logs_partitioned', (SELECT min(created_at) FROM logs));
+
+INSERT INTO logs_partitioned (id, user_id, type, description, created_at, indexed_hash, updated_at)
+SELECT id, user_id, type, description, created_at, indexed_hash, updated_at
+FROM logs;
+
+DROP TABLE logs;
+ALTER TABLE logs_partitioned
+    RENAME TO logs;
+ALTER TABLE logs_partitioned_default
+    RENAME TO logs_default;
+DO
+$$
+    DECLARE
+        partition_name TEXT;
+    BEGIN
+        FOR partition_name IN SELECT c.relname
+                         FROM pg_inherits i
+                                  JOIN pg_class c ON c.oid = i.inhrelid
+                         WHERE i.inhparent = 'logs'::regclass
+                           AND c.relname LIKE 'logs_partitioned_p%'
+            LOOP
+                EXECUTE format('ALTER TABLE %I RENAME TO %I', partition_name, replace(partition_name, 'logs_partitioned_', 'logs_'));
+            END LOOP;
+    END
+$$;
+
+ALTER TABLE logs
+    ADD CONSTRAINT pk_logs PRIMARY KEY (id, created_at);
+
+ALTER TABLE logs
+    ADD CONSTRAINT FK_LOGS_ON_USER FOREIGN KEY (user_id) REFERENCES users (id);
+
+CREATE INDEX idx_logs_user_id_created_at_id
+    ON logs (user_id, created_at DESC, id DESC);
+
+CREATE INDEX idx_logs_updated_at_id
+    ON logs (updated_at, id);
+
+CREATE INDEX idx_logs_description_tsv
+    ON logs USING GIN (description_tsv);
+
+-- Rows are appended in time order, so a block range index answers time scans at a fraction of a btree's size
+CREATE INDEX idx_logs_created_at_brin
+    ON logs USING BRIN (created_at);
+
+-- Chats
+CREATE TABLE chats_partitioned
+(
+    id         UUID                        NOT NULL,
+    user_id    VARCHAR(255)                NOT NULL,
+    type       VARCHAR(20)                 NOT NULL,
+    message    TEXT                        NOT NULL,
+    created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL
+) PARTITION BY RANGE (created_at);
+
+SELECT create_initial_partitions('chats_partitioned', (SELECT min(created_at) FROM chats));
+
+INSERT INTO chats_partitioned (id, user_id, type, message, created_at)
+SELECT id, user_id, type, message, created_at
+FROM chats;
+
+DROP TABLE chats;
+ALTER TABLE chats_partitioned
+    RENAME TO chats;
+ALTER TABLE chats_partitioned_default
+    RENAME TO chats_default;
+DO
+$$
+    DECLARE
+        partition_name TEXT;
+    BEGIN
+        FOR partition_name IN SELECT c.relname
+                         FROM pg_inherits i
+                                  JOIN pg_class c ON c.oid = i.inhrelid
+                         WHERE i.inhparent = 'chats'::regclass
+                           AND c.relname LIKE 'chats_partitioned_p%'
+            LOOP
+                EXECUTE format('ALTER TABLE %I RENAME TO %I', partition_name, replace(partition_name, 'chats_partitioned_', 'chats_'));
+            END LOOP;
+    END
+$$;
+
+ALTER TABLE chats
+    ADD CONSTRAINT pk_chats PRIMARY KEY (id, created_at);
+
+ALTER TABLE chats
+    ADD CONSTRAINT FK_CHATS_ON_USER FOREIGN KEY (user_id) REFERENCES users (id);
+
+CREATE INDEX idx_chats_user_id_created_at_id
+    ON chats (user_id, created_at DESC, id DESC);
+
+CREATE INDEX idx_chats_created_at_brin
+    ON chats USING BRIN (created_at);
+
+DROP FUNCTION create_initial_partitions(TEXT, TIMESTAMP);
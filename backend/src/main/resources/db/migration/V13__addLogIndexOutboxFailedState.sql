@@ -0,0 +1,9 @@
+-- Tasks that used up their attempts stay in the outbox for inspection but are no longer claimed
+ALTER TABLE log_index_outbox
+    ADD COLUMN failed_at TIMESTAMP WITHOUT TIME ZONE;
+
+DROP INDEX idx_log_index_outbox_next_attempt_at;
+
+CREATE INDEX idx_log_index_outbox_next_attempt_at
+    ON log_index_outbox (next_attempt_at, id)
+    WHERE failed_at IS NULL;
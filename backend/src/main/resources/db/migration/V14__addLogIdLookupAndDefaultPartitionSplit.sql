@@ -0,0 +1,98 @@
+-- The primary keys of the partitioned tables are (id, created_at), so Postgres alone no longer keeps ids unique.
+-- Every log id is also kept in this unpartitioned table, which enforces the uniqueness across partitions and tells
+-- an id lookup the created_at, and so the partition, of the log it wants. Chats are never read by id and only get
+-- ids from Hibernate's random (version 4) UUIDs, so they rely on those not colliding instead.
+CREATE TABLE log_ids
+(
+    id         UUID                        NOT NULL,
+    created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_log_ids PRIMARY KEY (id)
+);
+
+INSERT INTO log_ids (id, created_at)
+SELECT id, created_at
+FROM logs;
+
+CREATE OR REPLACE FUNCTION track_log_id() RETURNS TRIGGER AS
+$$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO log_ids (id, created_at) VALUES (NEW.id, NEW.created_at);
+        RETURN NEW;
+    ELSIF TG_OP = 'UPDATE' THEN
+        UPDATE log_ids SET id = NEW.id, created_at = NEW.created_at WHERE id = OLD.id;
+        RETURN NEW;
+    END IF;
+    DELETE FROM log_ids WHERE id = OLD.id;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+-- A row moved to another partition fires the DELETE and the INSERT trigger, the UPDATE one only fires within a partition
+CREATE TRIGGER trg_logs_track_id
+    AFTER INSERT OR DELETE OR UPDATE OF id, created_at
+    ON logs
+    FOR EACH ROW
+EXECUTE FUNCTION track_log_id();
+
+-- Creates the partition of a table holding the month of the given day, named <table>_pYYYYMM. Rows of that month
+-- in the default partition would make that fail, so they are moved into the new partition in the same transaction.
+CREATE OR REPLACE FUNCTION create_monthly_partition(parent_table TEXT, in_month DATE) RETURNS TEXT AS
+$$
+DECLARE
+    month_start    DATE := date_trunc('month', in_month)::date;
+    month_end      DATE := (date_trunc('month', in_month) + INTERVAL '1 month')::date;
+    partition_name TEXT := parent_table || '_p' || to_char(month_start, 'YYYYMM');
+    default_name   TEXT := parent_table || '_default';
+    columns        TEXT;
+BEGIN
+    -- Replicas creating the same partition at once would otherwise race on the catalog
+    PERFORM pg_advisory_xact_lock(hashtext(partition_name));
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+
+    IF to_regclass(default_name) IS NOT NULL THEN
+        -- Generated columns are computed again on insert and cannot be copied
+        SELECT string_agg(quote_ident(column_name), ', ' ORDER BY ordinal_position)
+        INTO columns
+        FROM information_schema.columns
+        WHERE table_schema = current_schema()
+          AND table_name = parent_table
+          AND is_generated = 'NEVER';
+        EXECUTE format('CREATE TEMP TABLE moved_rows AS SELECT %s FROM %I WITH NO DATA', columns, parent_table);
+        EXECUTE format('WITH moved AS (DELETE FROM %I WHERE created_at >= %L AND created_at < %L RETURNING %s) '
+                           || 'INSERT INTO moved_rows SELECT * FROM moved',
+                       default_name, month_start, month_end, columns);
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, parent_table, month_start, month_end);
+
+    IF to_regclass(default_name) IS NOT NULL THEN
+        EXECUTE format('INSERT INTO %I (%s) SELECT %s FROM moved_rows', parent_table, columns, columns);
+        DROP TABLE moved_rows;
+    END IF;
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Gives every month that has rows in the default partition, such as imports of old logs, a partition of its own
+CREATE OR REPLACE FUNCTION split_default_partition(parent_table TEXT) RETURNS INTEGER AS
+$$
+DECLARE
+    month_start DATE;
+    months      INTEGER := 0;
+BEGIN
+    IF to_regclass(parent_table || '_default') IS NULL THEN
+        RETURN 0;
+    END IF;
+    FOR month_start IN EXECUTE format('SELECT DISTINCT date_trunc(''month'', created_at)::date FROM %I',
+                                      parent_table || '_default')
+        LOOP
+            PERFORM create_monthly_partition(parent_table, month_start);
+            months := months + 1;
+        END LOOP;
+    RETURN months;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,33 @@
+-- The zone the days of log_daily_rollups are cut in. V11 built them in Asia/Dhaka whatever logs.rollups.zone said,
+-- so that is recorded here, and the application refuses to start while the two differ.
+CREATE TABLE log_rollup_settings
+(
+    id   BOOLEAN     NOT NULL DEFAULT TRUE,
+    zone VARCHAR(64) NOT NULL,
+    CONSTRAINT pk_log_rollup_settings PRIMARY KEY (id),
+    CONSTRAINT ck_log_rollup_settings_single_row CHECK (id)
+);
+
+INSERT INTO log_rollup_settings (zone)
+VALUES ('Asia/Dhaka');
+
+-- Recomputes every rollup with days cut in the given zone and records that zone. Writers wait for it on the table lock,
+-- so no log is counted twice or missed, but all replicas have to be configured with the new zone before it runs.
+CREATE OR REPLACE FUNCTION rebuild_log_daily_rollups(in_zone TEXT) RETURNS VOID AS
+$$
+BEGIN
+    LOCK TABLE log_daily_rollups IN EXCLUSIVE MODE;
+    DELETE FROM log_daily_rollups;
+    INSERT INTO log_daily_rollups (user_id, day, type, log_count, first_at, last_at, latest_description)
+    SELECT user_id,
+           (created_at AT TIME ZONE 'UTC' AT TIME ZONE in_zone)::date,
+           type,
+           count(*),
+           min(created_at),
+           max(created_at),
+           (array_agg(description ORDER BY created_at DESC, id DESC))[1]
+    FROM logs
+    GROUP BY user_id, (created_at AT TIME ZONE 'UTC' AT TIME ZONE in_zone)::date, type;
+    UPDATE log_rollup_settings SET zone = in_zone;
+END;
+$$ LANGUAGE plpgsql;
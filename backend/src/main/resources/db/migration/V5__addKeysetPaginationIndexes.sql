@@ -0,0 +1,8 @@
+CREATE INDEX idx_logs_user_id_created_at_id
+    ON logs (user_id, created_at DESC, id DESC);
+
+CREATE INDEX idx_chats_user_id_created_at_id
+    ON chats (user_id, created_at DESC, id DESC);
+
+CREATE INDEX idx_reminders_user_id_next_execution_id
+    ON reminders (user_id, next_execution DESC, id DESC);
@@ -0,0 +1,18 @@
+ALTER TABLE logs
+    ADD COLUMN indexed_hash VARCHAR(64);
+
+CREATE TABLE log_index_outbox
+(
+    id              BIGSERIAL                   NOT NULL,
+    log_id          UUID                        NOT NULL,
+    user_id         VARCHAR(255)                NOT NULL,
+    operation       VARCHAR(10)                 NOT NULL,
+    attempts        INTEGER                     NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    created_at      TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    last_error      TEXT,
+    CONSTRAINT pk_log_index_outbox PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_log_index_outbox_next_attempt_at
+    ON log_index_outbox (next_attempt_at, id);
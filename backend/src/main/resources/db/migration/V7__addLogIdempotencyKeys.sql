@@ -0,0 +1,8 @@
+CREATE TABLE log_idempotency_keys
+(
+    user_id         VARCHAR(255)                NOT NULL,
+    idempotency_key VARCHAR(100)                NOT NULL,
+    log_id          UUID                        NOT NULL,
+    created_at      TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_log_idempotency_keys PRIMARY KEY (user_id, idempotency_key)
+);
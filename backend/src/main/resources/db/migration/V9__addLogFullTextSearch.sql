@@ -0,0 +1,5 @@
+ALTER TABLE logs
+    ADD COLUMN description_tsv TSVECTOR GENERATED ALWAYS AS (to_tsvector('english', description)) STORED;
+
+CREATE INDEX idx_logs_description_tsv
+    ON logs USING GIN (description_tsv);
@@ -0,0 +1,35 @@
+-- Takes one token from the bucket at KEYS[1], refilling it for the time passed since the last call.
+-- ARGV: capacity, tokens refilled per period, period in milliseconds.
+-- Returns {allowed (1 or 0), milliseconds until a token is available, whole tokens left}.
+local capacity = tonumber(ARGV[1])
+local refill_tokens = tonumber(ARGV[2])
+local period_ms = tonumber(ARGV[3])
+
+-- The server clock is shared by every replica, theirs may drift apart
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local state = redis.call('HMGET', KEYS[1], 'tokens', 'updated_at')
+local tokens = tonumber(state[1])
+local updated_at = tonumber(state[2])
+if tokens == nil or updated_at == nil then
+    tokens = capacity
+    updated_at = now
+end
+
+tokens = math.min(capacity, tokens + math.max(0, now - updated_at) * refill_tokens / period_ms)
+
+local allowed = 0
+local retry_after_ms = 0
+if tokens >= 1 then
+    tokens = tokens - 1
+    allowed = 1
+else
+    retry_after_ms = math.ceil((1 - tokens) * period_ms / refill_tokens)
+end
+
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'updated_at', tostring(now))
+-- A bucket that would be full again carries no state worth keeping
+redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * period_ms / refill_tokens))
+
+return {allowed, retry_after_ms, math.floor(tokens)}
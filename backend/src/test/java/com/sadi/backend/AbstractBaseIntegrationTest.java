@@ -11,6 +11,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.utility.DockerImageName;
@@ -19,6 +20,7 @@ import org.testcontainers.utility.DockerImageName;
 @ActiveProfiles("test")
 @AutoConfigureMockMvc
 @ContextConfiguration(initializers = AbstractBaseIntegrationTest.TestContextInitializer.class)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.sadi.backend.QueryPlans")
 public abstract class AbstractBaseIntegrationTest {
 
     protected static final PostgreSQLContainer<?> POSTGRE_SQL_CONTAINER;
@@ -0,0 +1,176 @@
+package com.sadi.backend;
+
+import com.sadi.backend.dtos.responses.ChatResponse;
+import com.sadi.backend.entities.Chat;
+import com.sadi.backend.entities.Log;
+import com.sadi.backend.entities.Reminder;
+import com.sadi.backend.entities.User;
+import com.sadi.backend.enums.ChatType;
+import com.sadi.backend.enums.LogType;
+import com.sadi.backend.enums.ReminderType;
+import com.sadi.backend.repositories.ChatRepository;
+import com.sadi.backend.repositories.LogRepository;
+import com.sadi.backend.repositories.ReminderRepository;
+import com.sadi.backend.specifications.LogSpecification;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sadi.backend.specifications.ReminderSpecification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pages of two across five rows sharing one sort key, so every page boundary falls between rows only the id orders.
+ */
+class KeysetPaginationTests extends AbstractBaseIntegrationTest {
+	private static final int ROWS = 5;
+	private static final int PAGE_SIZE = 2;
+
+	@Autowired
+	private LogRepository logRepository;
+	@Autowired
+	private ReminderRepository reminderRepository;
+	@Autowired
+	private ChatRepository chatRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final Instant createdAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+	private final List<UUID> createdLogIds = new ArrayList<>();
+	private final List<UUID> createdReminderIds = new ArrayList<>();
+	private final List<UUID> createdChatIds = new ArrayList<>();
+
+	@AfterEach
+	void cleanup() {
+		logRepository.deleteAllById(createdLogIds);
+		reminderRepository.deleteAllById(createdReminderIds);
+		chatRepository.deleteAllById(createdChatIds);
+		createdLogIds.clear();
+		createdReminderIds.clear();
+		createdChatIds.clear();
+	}
+
+	private static List<UUID> sorted(List<UUID> ids, Sort.Direction direction) {
+		// Postgres orders uuids by their bytes, which is the order of their string form
+		Comparator<UUID> byBytes = Comparator.comparing(UUID::toString);
+		return ids.stream().sorted(direction == Sort.Direction.ASC ? byBytes : byBytes.reversed()).toList();
+	}
+
+	@Test
+	void logKeyset_pagesThroughEqualTimestampsInBothDirections() {
+		for (int i = 0; i < ROWS; i++) {
+			createdLogIds.add(logRepository.save(new Log(new User("user-1"), LogType.EATING, "meal " + i, createdAt)).getId());
+		}
+
+		for (Sort.Direction direction : Sort.Direction.values()) {
+			List<UUID> seen = new ArrayList<>();
+			UUID lastId = null;
+			while (true) {
+				Specification<Log> spec = LogSpecification.getSpecification("user-1", null, createdAt, createdAt)
+						.and(LogSpecification.withKeysetAfter(lastId == null ? null : createdAt, lastId, direction));
+				List<Log> page = logRepository.findAll(spec,
+						PageRequest.of(0, PAGE_SIZE, Sort.by(direction, "createdAt", "id"))).getContent();
+				if (page.isEmpty()) break;
+				page.forEach(lg -> seen.add(lg.getId()));
+				lastId = page.getLast().getId();
+			}
+			assertEquals(sorted(createdLogIds, direction), seen, "direction " + direction);
+		}
+	}
+
+	@Test
+	void reminderKeyset_pagesThroughEqualExecutionTimesInBothDirections() {
+		for (int i = 0; i < ROWS; i++) {
+			createdReminderIds.add(reminderRepository.save(new Reminder(new User("user-1"), ReminderType.BASE, "pills " + i,
+					"take pills", "0 0 9 * * *", true, createdAt.toEpochMilli(), "UTC", false)).getId());
+		}
+
+		for (Sort.Direction direction : Sort.Direction.values()) {
+			List<UUID> seen = new ArrayList<>();
+			UUID lastId = null;
+			while (true) {
+				Specification<Reminder> spec = ReminderSpecification.getSpecification("user-1", null, createdAt, createdAt)
+						.and(ReminderSpecification.withKeysetAfter(lastId == null ? null : createdAt.toEpochMilli(), lastId, direction));
+				List<Reminder> page = reminderRepository.findAll(spec,
+						PageRequest.of(0, PAGE_SIZE, Sort.by(direction, "nextExecution", "id"))).getContent();
+				if (page.isEmpty()) break;
+				page.forEach(reminder -> seen.add(reminder.getId()));
+				lastId = page.getLast().getId();
+			}
+			assertEquals(sorted(createdReminderIds, direction), seen, "direction " + direction);
+		}
+	}
+
+	@Test
+	void chatKeyset_pagesBackwardsThroughEqualTimestamps() {
+		for (int i = 0; i < ROWS; i++) {
+			Chat chat = new Chat(new User("user-1"), ChatType.USER, "hello " + i);
+			chat.setCreatedAt(createdAt);
+			createdChatIds.add(chatRepository.save(chat).getId());
+		}
+
+		List<UUID> seen = new ArrayList<>();
+		// Starts after the largest possible id, so the first page includes every row at the timestamp
+		UUID lastId = new UUID(-1L, -1L);
+		while (true) {
+			List<ChatResponse> page = chatRepository.findByUserIdBefore("user-1", createdAt, lastId, Limit.of(PAGE_SIZE)).stream()
+					.filter(chat -> chat.getCreatedAt().equals(createdAt))
+					.toList();
+			if (page.isEmpty()) break;
+			page.forEach(chat -> seen.add(chat.getId()));
+			lastId = page.getLast().getId();
+		}
+		assertEquals(sorted(createdChatIds, Sort.Direction.DESC), seen);
+	}
+
+	/**
+	 * A later page has to start its index scan at the cursor; a cursor that only filters makes page n read every
+	 * row of the pages before it.
+	 */
+	private void assertScanStartsAtCursor(String sortColumn) {
+		JsonNode plan = QueryPlans.explain(jdbcTemplate, QueryPlans.last());
+		List<String> conditions = QueryPlans.indexConditions(plan);
+		assertFalse(conditions.isEmpty(), plan.toPrettyString());
+		conditions.forEach(condition -> assertTrue(condition.contains(sortColumn), plan.toPrettyString()));
+		assertFalse(QueryPlans.sorts(plan), plan.toPrettyString());
+	}
+
+	@Test
+	void logKeyset_laterPagesStartTheIndexScanAtTheCursor() {
+		for (Sort.Direction direction : Sort.Direction.values()) {
+			QueryPlans.clear();
+			Specification<Log> spec = LogSpecification.getSpecification("user-1", null, null, null)
+					.and(LogSpecification.withKeysetAfter(createdAt, UUID.randomUUID(), direction));
+			logRepository.findBy(spec, q -> q.sortBy(Sort.by(direction, "createdAt", "id")).limit(PAGE_SIZE).all());
+			assertScanStartsAtCursor("created_at");
+		}
+	}
+
+	@Test
+	void reminderKeyset_laterPagesStartTheIndexScanAtTheCursor() {
+		for (Sort.Direction direction : Sort.Direction.values()) {
+			QueryPlans.clear();
+			Specification<Reminder> spec = ReminderSpecification.getSpecification("user-1", null, null, null)
+					.and(ReminderSpecification.withKeysetAfter(createdAt.toEpochMilli(), UUID.randomUUID(), direction));
+			reminderRepository.findBy(spec, q -> q.sortBy(Sort.by(direction, "nextExecution", "id")).limit(PAGE_SIZE).all());
+			assertScanStartsAtCursor("next_execution");
+		}
+	}
+
+	@Test
+	void chatKeyset_laterPagesStartTheIndexScanAtTheCursor() {
+		QueryPlans.clear();
+		chatRepository.findByUserIdBefore("user-1", createdAt, UUID.randomUUID(), Limit.of(PAGE_SIZE));
+		assertScanStartsAtCursor("created_at");
+	}
+}
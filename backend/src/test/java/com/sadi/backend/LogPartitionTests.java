@@ -0,0 +1,79 @@
+package com.sadi.backend;
+
+import com.sadi.backend.entities.Log;
+import com.sadi.backend.repositories.LogRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogPartitionTests extends AbstractBaseIntegrationTest {
+
+	// Far before the oldest monthly partition, so its rows land in the default partition
+	private static final LocalDateTime IMPORTED_AT = LocalDateTime.of(2001, 1, 15, 8, 0);
+
+	@Autowired
+	private LogRepository logRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final UUID id = UUID.randomUUID();
+
+	@AfterEach
+	void cleanup() {
+		jdbcTemplate.update("DELETE FROM logs WHERE id = ?", id);
+		jdbcTemplate.execute("DROP TABLE IF EXISTS logs_p200101");
+	}
+
+	private void insert(LocalDateTime createdAt) {
+		jdbcTemplate.update("""
+				INSERT INTO logs (id, user_id, type, description, created_at, updated_at)
+				VALUES (?, 'user-1', 'EATING', 'imported', ?, now())
+				""", id, createdAt);
+	}
+
+	private String partitionOf(UUID logId) {
+		return jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM logs WHERE id = ?", String.class, logId);
+	}
+
+	@Test
+	void ids_areUniqueAcrossPartitions() {
+		insert(LocalDateTime.now());
+
+		assertThrows(DataIntegrityViolationException.class, () -> insert(IMPORTED_AT));
+	}
+
+	@Test
+	void findRoutedById_findsTheLogAndDeletingItFreesTheId() {
+		insert(LocalDateTime.now());
+
+		Log found = logRepository.findRoutedById(id).orElseThrow();
+		assertEquals("imported", found.getDescription());
+
+		jdbcTemplate.update("DELETE FROM logs WHERE id = ?", id);
+		assertTrue(logRepository.findRoutedById(id).isEmpty());
+		assertDoesNotThrow(() -> insert(IMPORTED_AT));
+	}
+
+	@Test
+	void splitDefaultPartition_movesOldRowsIntoAPartitionOfTheirMonth() {
+		insert(IMPORTED_AT);
+		assertEquals("logs_default", partitionOf(id));
+
+		Integer months = jdbcTemplate.queryForObject("SELECT split_default_partition('logs')", Integer.class);
+
+		assertEquals(1, months);
+		assertEquals("logs_p200101", partitionOf(id));
+		assertEquals(List.of(id), logRepository.findAllRoutedById(List.of(id)).stream().map(Log::getId).toList());
+		assertEquals("imported", jdbcTemplate.queryForObject(
+				"SELECT description FROM logs WHERE id = ? AND description_tsv @@ to_tsquery('english', 'imported')",
+				String.class, id));
+	}
+}
@@ -0,0 +1,136 @@
+package com.sadi.backend;
+
+import com.sadi.backend.dtos.LogTimelineRow;
+import com.sadi.backend.entities.Log;
+import com.sadi.backend.entities.User;
+import com.sadi.backend.enums.LogType;
+import com.sadi.backend.repositories.LogRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogRepositoryTests extends AbstractBaseIntegrationTest {
+
+	@Autowired
+	private LogRepository logRepository;
+
+	private final Instant start = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+	private final List<Log> createdLogs = new ArrayList<>();
+
+	@AfterEach
+	void cleanup() {
+		logRepository.deleteAllById(createdLogs.stream().map(Log::getId).toList());
+		createdLogs.clear();
+	}
+
+	private Log save(String userId, String description, Instant createdAt) {
+		return save(userId, LogType.EATING, description, createdAt);
+	}
+
+	private Log save(String userId, LogType type, String description, Instant createdAt) {
+		Log saved = logRepository.save(new Log(new User(userId), type, description, createdAt));
+		createdLogs.add(saved);
+		return saved;
+	}
+
+	private List<UUID> searchMedicine(String userId, String query) {
+		return logRepository.searchByText(userId, LogType.MEDICINE.name(), query, start, start.plusSeconds(3600), 10);
+	}
+
+	@Test
+	void findTimeline_returnsLogsOfTheUserInTimeOrderWithinInclusiveBounds() {
+		save("user-1", "before", start.minusMillis(1));
+		save("user-1", "at start", start);
+		save("user-1", "in between", start.plusSeconds(30));
+		save("user-1", "at end", start.plusSeconds(60));
+		save("user-1", "after", start.plusSeconds(60).plusMillis(1));
+		save("user-2", "other user", start.plusSeconds(30));
+
+		List<LogTimelineRow> rows = logRepository.findTimeline("user-1", start, start.plusSeconds(60), Limit.of(10));
+
+		assertEquals(List.of("at start", "in between", "at end"), rows.stream().map(LogTimelineRow::getDescription).toList());
+		assertEquals(List.of(start, start.plusSeconds(30), start.plusSeconds(60)),
+				rows.stream().map(LogTimelineRow::getCreatedAt).toList());
+	}
+
+	@Test
+	void findTimeline_ordersEqualTimestampsByIdAndStopsAtTheLimit() {
+		for (int i = 0; i < 4; i++) {
+			save("user-1", "meal " + i, start);
+		}
+		// Postgres orders uuids by their bytes, which is the order of their string form
+		List<String> expected = createdLogs.stream()
+				.sorted(Comparator.comparing(lg -> lg.getId().toString()))
+				.map(Log::getDescription)
+				.limit(3)
+				.toList();
+
+		List<LogTimelineRow> rows = logRepository.findTimeline("user-1", start, start, Limit.of(3));
+
+		assertEquals(expected, rows.stream().map(LogTimelineRow::getDescription).toList());
+	}
+
+	@Test
+	void findTimelineAfter_continuesWithinEqualTimestampsWithoutSkippingOrRepeating() {
+		for (int i = 0; i < 5; i++) {
+			save("user-1", "meal " + i, start);
+		}
+		save("user-1", "later", start.plusSeconds(1));
+		List<String> expected = new ArrayList<>(createdLogs.stream()
+				.filter(lg -> lg.getCreatedAt().equals(start))
+				.sorted(Comparator.comparing(lg -> lg.getId().toString()))
+				.map(Log::getDescription)
+				.toList());
+		expected.add("later");
+
+		List<String> descriptions = new ArrayList<>();
+		List<LogTimelineRow> page = logRepository.findTimeline("user-1", start, start.plusSeconds(60), Limit.of(2));
+		while (!page.isEmpty()) {
+			page.forEach(row -> descriptions.add(row.getDescription()));
+			LogTimelineRow last = page.getLast();
+			page = logRepository.findTimelineAfter("user-1", start, start.plusSeconds(60), last.getCreatedAt(), last.getId(),
+					Limit.of(2));
+		}
+
+		assertEquals(expected, descriptions);
+	}
+
+	@Test
+	void searchByText_findsExactMedicineNamesAndRanksLogsMatchingMoreTermsFirst() {
+		Log both = save("user-1", LogType.MEDICINE, "Took Donepezil 5mg after breakfast", start.plusSeconds(60));
+		Log nameOnly = save("user-1", LogType.MEDICINE, "Donepezil was skipped", start.plusSeconds(120));
+		save("user-1", LogType.MEDICINE, "Took vitamin D", start.plusSeconds(180));
+
+		assertEquals(List.of(both.getId(), nameOnly.getId()), searchMedicine("user-1", "Donepezil 5mg"));
+	}
+
+	@Test
+	void searchByText_orsTheTermsOfTheQuery() {
+		Log donepezil = save("user-1", LogType.MEDICINE, "Took Donepezil in the morning", start.plusSeconds(60));
+		Log aspirin = save("user-1", LogType.MEDICINE, "Took aspirin at night", start.plusSeconds(120));
+
+		assertEquals(Set.of(donepezil.getId(), aspirin.getId()), Set.copyOf(searchMedicine("user-1", "donepezil aspirin")));
+	}
+
+	@Test
+	void searchByText_onlyReturnsLogsOfTheUserTypeAndTimeRange() {
+		Log match = save("user-1", LogType.MEDICINE, "Took Donepezil 5mg", start.plusSeconds(60));
+		save("user-2", LogType.MEDICINE, "Took Donepezil 5mg", start.plusSeconds(60));
+		save("user-1", LogType.EATING, "Ate before Donepezil 5mg", start.plusSeconds(60));
+		save("user-1", LogType.MEDICINE, "Took Donepezil 5mg", start.minusSeconds(1));
+		save("user-1", LogType.MEDICINE, "Took Donepezil 5mg", start.plusSeconds(3601));
+
+		assertEquals(List.of(match.getId()), searchMedicine("user-1", "Donepezil 5mg"));
+	}
+}
@@ -0,0 +1,91 @@
+package com.sadi.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the SQL Hibernate sends, so integration tests can check the plan Postgres picks for a repository query.
+ * Registered as the statement inspector of the integration test context.
+ */
+public class QueryPlans implements StatementInspector {
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    public static String last() {
+        return STATEMENTS.getLast();
+    }
+
+    /**
+     * The generic plan of a recorded statement, with sequential and bitmap scans switched off so the tiny test tables
+     * show whether an index can serve the query in order.
+     */
+    public static JsonNode explain(JdbcTemplate jdbcTemplate, String sql) {
+        StringBuilder numbered = new StringBuilder();
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') numbered.append('$').append(++parameter);
+            else numbered.append(c);
+        }
+        return jdbcTemplate.execute((ConnectionCallback<JsonNode>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET enable_seqscan = off");
+                statement.execute("SET enable_bitmapscan = off");
+                try (ResultSet rs = statement.executeQuery("EXPLAIN (GENERIC_PLAN, FORMAT JSON) " + numbered)) {
+                    rs.next();
+                    return MAPPER.readTree(rs.getString(1)).get(0).get("Plan");
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    statement.execute("RESET enable_seqscan");
+                    statement.execute("RESET enable_bitmapscan");
+                }
+            }
+        });
+    }
+
+    /**
+     * All nodes of the plan, depth first.
+     */
+    public static List<JsonNode> nodes(JsonNode plan) {
+        List<JsonNode> nodes = new ArrayList<>();
+        nodes.add(plan);
+        if (plan.has("Plans")) {
+            plan.get("Plans").forEach(child -> nodes.addAll(nodes(child)));
+        }
+        return nodes;
+    }
+
+    /**
+     * The index conditions of the plan's index scans.
+     */
+    public static List<String> indexConditions(JsonNode plan) {
+        return nodes(plan).stream()
+                .filter(node -> node.has("Index Name"))
+                .map(node -> node.path("Index Cond").asText(""))
+                .toList();
+    }
+
+    public static boolean sorts(JsonNode plan) {
+        return nodes(plan).stream().anyMatch(node -> node.path("Node Type").asText().equals("Sort"));
+    }
+}
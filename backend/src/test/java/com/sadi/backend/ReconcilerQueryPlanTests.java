@@ -0,0 +1,53 @@
+package com.sadi.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sadi.backend.repositories.LogRepository;
+import com.sadi.backend.repositories.LogTombstoneRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The reconciler reads from a checkpoint on every run, so its scans have to start there instead of at the start of
+ * the index.
+ */
+class ReconcilerQueryPlanTests extends AbstractBaseIntegrationTest {
+
+	@Autowired
+	private LogRepository logRepository;
+	@Autowired
+	private LogTombstoneRepository logTombstoneRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private void assertScanStartsAtCheckpoint(String sortColumn) {
+		JsonNode plan = QueryPlans.explain(jdbcTemplate, QueryPlans.last());
+		List<String> conditions = QueryPlans.indexConditions(plan);
+		assertFalse(conditions.isEmpty(), plan.toPrettyString());
+		// The upper bound alone would also name the column, the scan needs the lower one
+		conditions.forEach(condition -> assertTrue(condition.contains(sortColumn) && condition.contains(">"),
+				plan.toPrettyString()));
+		assertFalse(QueryPlans.sorts(plan), plan.toPrettyString());
+	}
+
+	@Test
+	void findChangedSince_startsTheIndexScanAtTheCheckpoint() {
+		QueryPlans.clear();
+		logRepository.findChangedSince(Instant.now().minusSeconds(3600), UUID.randomUUID(), Instant.now(), Limit.of(500));
+		assertScanStartsAtCheckpoint("updated_at");
+	}
+
+	@Test
+	void findDeletedSince_startsTheIndexScanAtTheCheckpoint() {
+		QueryPlans.clear();
+		logTombstoneRepository.findDeletedSince(Instant.now().minusSeconds(3600), UUID.randomUUID(), Instant.now(), Limit.of(500));
+		assertScanStartsAtCheckpoint("deleted_at");
+	}
+}
@@ -0,0 +1,93 @@
+package com.sadi.backend.unittests;
+
+import com.sadi.backend.configs.RedisConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CacheErrorHandlingTest {
+
+    private AnnotationConfigApplicationContext context;
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigApplicationContext(CachingTestConfig.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void testCacheable_fallsThroughToMethodWhenCacheFails() {
+        Users users = context.getBean(Users.class);
+
+        assertEquals("user-1", users.get("user-1"));
+        assertEquals("user-1", users.get("user-1"));
+        assertDoesNotThrow(() -> users.update("user-1"));
+
+        assertEquals(2, users.getLoads());
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingTestConfig implements CachingConfigurer {
+        @Override
+        public CacheErrorHandler errorHandler() {
+            return new RedisConfig().errorHandler();
+        }
+
+        @Bean
+        public CacheManager cacheManager() {
+            Cache failing = mock(Cache.class);
+            when(failing.getName()).thenReturn("users");
+            when(failing.get(any())).thenThrow(new IllegalStateException("Redis is down"));
+            doThrow(new IllegalStateException("Redis is down")).when(failing).put(any(), any());
+            doThrow(new IllegalStateException("Redis is down")).when(failing).evict(any());
+            SimpleCacheManager cacheManager = new SimpleCacheManager();
+            cacheManager.setCaches(List.of(failing));
+            return cacheManager;
+        }
+
+        @Bean
+        Users users() {
+            return new Users();
+        }
+    }
+
+    static class Users {
+        private final AtomicInteger loads = new AtomicInteger();
+
+        @Cacheable(cacheNames = "users", key = "#id")
+        public String get(String id) {
+            loads.incrementAndGet();
+            return id;
+        }
+
+        public int getLoads() {
+            return loads.get();
+        }
+
+        @CacheEvict(cacheNames = "users", key = "#id")
+        public void update(String id) {
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.sadi.backend.unittests;
+
+import com.sadi.backend.caches.CachingEmbeddingModel;
+import com.sadi.backend.configs.EmbeddingCacheConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingEmbeddingModelTest {
+
+    @Mock
+    private EmbeddingModel delegate;
+
+    @Mock
+    private RedisTemplate<String, byte[]> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, byte[]> valueOperations;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CachingEmbeddingModel model;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        model = new CachingEmbeddingModel(delegate, "text-embedding-3-small", redisTemplate, new EmbeddingCacheConfig(), meterRegistry);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("embedding.cache.lookups").tag("result", result).counter().count();
+    }
+
+    @Test
+    void testEmbed_missStoresCompactVectorAndServesRepeatsLocally() {
+        float[] vector = {0.25f, -1.5f, 3.0f};
+        when(delegate.embed("Medicine  taken")).thenReturn(vector);
+
+        assertArrayEquals(vector, model.embed("Medicine  taken"));
+        assertArrayEquals(vector, model.embed(" Medicine taken\n"));
+
+        verify(delegate, times(1)).embed(anyString());
+        ArgumentCaptor<byte[]> stored = ArgumentCaptor.forClass(byte[].class);
+        verify(valueOperations).set(startsWith("embedding:v2:text-embedding-3-small:"), stored.capture(), any(Duration.class));
+        assertEquals(vector.length * Float.BYTES, stored.getValue().length);
+        assertEquals(1.0, lookups("miss"));
+        assertEquals(1.0, lookups("local"));
+    }
+
+    @Test
+    void testEmbed_redisHitSkipsRemoteCall() {
+        float[] vector = {1.0f, 2.0f};
+        when(delegate.embed("lunch")).thenReturn(vector);
+        ArgumentCaptor<byte[]> stored = ArgumentCaptor.forClass(byte[].class);
+        model.embed("lunch");
+        verify(valueOperations).set(anyString(), stored.capture(), any(Duration.class));
+
+        // a second replica only has the Redis tier
+        CachingEmbeddingModel other = new CachingEmbeddingModel(delegate, "text-embedding-3-small", redisTemplate,
+                new EmbeddingCacheConfig(), new SimpleMeterRegistry());
+        when(valueOperations.get(anyString())).thenReturn(stored.getValue());
+
+        assertArrayEquals(vector, other.embed(" lunch "));
+        verify(delegate, times(1)).embed(anyString());
+    }
+
+    @Test
+    void testEmbed_redisFailureFallsBackToModel() {
+        float[] vector = {1.0f};
+        when(valueOperations.get(anyString())).thenThrow(new IllegalStateException("redis down"));
+        when(delegate.embed("met daughter")).thenReturn(vector);
+
+        assertArrayEquals(vector, model.embed("met daughter"));
+    }
+
+    @Test
+    void testEmbed_differentlyCasedTextIsEmbeddedSeparately() {
+        when(delegate.embed("Aspirin")).thenReturn(new float[]{1.0f});
+        when(delegate.embed("aspirin")).thenReturn(new float[]{2.0f});
+
+        assertArrayEquals(new float[]{1.0f}, model.embed("Aspirin"));
+        assertArrayEquals(new float[]{2.0f}, model.embed("aspirin"));
+
+        verify(delegate, times(2)).embed(anyString());
+    }
+}
@@ -0,0 +1,124 @@
+package com.sadi.backend.unittests;
+
+import com.sadi.backend.caches.CaregiverAccessCache;
+import com.sadi.backend.configs.CaregiverAccessCacheConfig;
+import com.sadi.backend.repositories.PatientCaregiverRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CaregiverAccessCacheTest {
+
+    @Mock
+    private PatientCaregiverRepository patientCaregiverRepository;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private CaregiverAccessCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CaregiverAccessCache(patientCaregiverRepository, redisTemplate, redisMessageListenerContainer,
+                new CaregiverAccessCacheConfig(), new SimpleMeterRegistry());
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void testIsActiveCaregiver_loadsOnceThenAnswersLocally() {
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(null, null));
+        when(patientCaregiverRepository.findActivePatientIds("caregiver-1")).thenReturn(List.of("patient-1"));
+
+        assertTrue(cache.isActiveCaregiver("patient-1", "caregiver-1"));
+        assertFalse(cache.isActiveCaregiver("patient-2", "caregiver-1"));
+
+        verify(patientCaregiverRepository, times(1)).findActivePatientIds("caregiver-1");
+        verify(valueOperations).set(eq("auth:caregivers:patients:caregiver-1"),
+                eq(Map.of("version", 0L, "patientIds", List.of("patient-1"))), any());
+    }
+
+    @Test
+    void testIsActiveCaregiver_ignoresRedisEntryOfAnOlderVersion() {
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(3,
+                Map.of("version", 2, "patientIds", List.of("patient-1"))));
+        when(patientCaregiverRepository.findActivePatientIds("caregiver-1")).thenReturn(List.of());
+
+        assertFalse(cache.isActiveCaregiver("patient-1", "caregiver-1"));
+    }
+
+    @Test
+    void testOnMessage_forcesReloadAfterAnotherReplicaChangedTheCaregiver() {
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(null, null), Arrays.asList(1, null));
+        when(patientCaregiverRepository.findActivePatientIds("caregiver-1"))
+                .thenReturn(List.of("patient-1"), List.of());
+        assertTrue(cache.isActiveCaregiver("patient-1", "caregiver-1"));
+
+        cache.onMessage(new DefaultMessage("auth:caregivers:evictions".getBytes(StandardCharsets.UTF_8),
+                "caregiver-1:1".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertFalse(cache.isActiveCaregiver("patient-1", "caregiver-1"));
+    }
+
+    @Test
+    void testIsActiveCaregiver_readsTheDatabaseWhenRedisFails() {
+        when(valueOperations.multiGet(anyList()))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenReturn(Arrays.asList(null, null));
+        doThrow(new RedisConnectionFailureException("down")).when(valueOperations).set(anyString(), any(), any());
+        when(patientCaregiverRepository.findActivePatientIds("caregiver-1")).thenReturn(List.of("patient-1"));
+
+        assertTrue(cache.isActiveCaregiver("patient-1", "caregiver-1"));
+        assertTrue(cache.isActiveCaregiver("patient-1", "caregiver-1"));
+        assertTrue(cache.isActiveCaregiver("patient-1", "caregiver-1"));
+
+        // The lookup that failed is not cached, the one whose write to Redis failed is kept locally
+        verify(patientCaregiverRepository, times(2)).findActivePatientIds("caregiver-1");
+    }
+
+    @Test
+    void testEvict_revocationHoldsWhileRedisIsDownAndIsRetried() {
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(null, null));
+        when(patientCaregiverRepository.findActivePatientIds("caregiver-1")).thenReturn(List.of("patient-1"), List.of());
+        assertTrue(cache.isActiveCaregiver("patient-1", "caregiver-1"));
+        when(valueOperations.increment("auth:caregivers:version:caregiver-1"))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenReturn(1L);
+
+        assertDoesNotThrow(() -> cache.evict("caregiver-1"));
+
+        // The local entry still lists the patient, but the pending eviction sends the lookup to the database
+        assertFalse(cache.isActiveCaregiver("patient-1", "caregiver-1"));
+        verify(redisTemplate, never()).convertAndSend(anyString(), any());
+
+        cache.retryPendingEvictions();
+
+        verify(redisTemplate).delete("auth:caregivers:patients:caregiver-1");
+        verify(redisTemplate).convertAndSend("auth:caregivers:evictions", "caregiver-1:1");
+        cache.retryPendingEvictions();
+        verify(valueOperations, times(2)).increment(anyString());
+    }
+}
@@ -0,0 +1,77 @@
+package com.sadi.backend.unittests;
+
+import com.sadi.backend.configs.ChatBulkheadConfig;
+import com.sadi.backend.services.ChatBulkhead;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatBulkheadTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ChatBulkhead bulkhead;
+
+    @BeforeEach
+    void setUp() {
+        ChatBulkheadConfig config = new ChatBulkheadConfig();
+        config.setMaxConcurrent(1);
+        config.setMaxQueued(1);
+        config.setMaxWait(Duration.ofMillis(50));
+        meterRegistry = new SimpleMeterRegistry();
+        bulkhead = new ChatBulkhead(config, meterRegistry);
+    }
+
+    @Test
+    void testAcquire_rejectsSecondTurnOfSameUser() {
+        bulkhead.acquire("user-1");
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> bulkhead.acquire("user-1"));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, ex.getStatusCode());
+        assertEquals(1.0, meterRegistry.get("chat.bulkhead.rejected").tag("reason", "user_busy").counter().count());
+    }
+
+    @Test
+    void testAcquire_timesOutWhenNoPermitIsReleased() {
+        bulkhead.acquire("user-1");
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> bulkhead.acquire("user-2"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatusCode());
+        assertEquals(1.0, meterRegistry.get("chat.bulkhead.rejected").tag("reason", "timeout").counter().count());
+        assertEquals(1.0, meterRegistry.get("chat.bulkhead.in_flight").gauge().value());
+    }
+
+    @Test
+    void testRelease_freesPermitAndUserSlot() {
+        ChatBulkhead.Permit permit = bulkhead.acquire("user-1");
+        permit.release();
+        permit.release();
+
+        assertDoesNotThrow(() -> bulkhead.acquire("user-1"));
+        assertEquals(1.0, meterRegistry.get("chat.bulkhead.in_flight").gauge().value());
+    }
+
+    @Test
+    void testAcquire_waitsForReleasedPermit() throws InterruptedException {
+        ChatBulkhead.Permit permit = bulkhead.acquire("user-1");
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException ignored) {
+            }
+            permit.release();
+        });
+        releaser.start();
+
+        assertDoesNotThrow(() -> bulkhead.acquire("user-2"));
+        releaser.join();
+        assertEquals(1, meterRegistry.get("chat.bulkhead.wait").timer().count());
+    }
+}
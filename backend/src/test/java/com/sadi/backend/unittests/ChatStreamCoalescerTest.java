@@ -0,0 +1,116 @@
+package com.sadi.backend.unittests;
+
+import com.sadi.backend.configs.ChatCoalescingConfig;
+import com.sadi.backend.services.ChatStreamCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatStreamCoalescerTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private ListOperations<String, Object> listOperations;
+
+    private ChatStreamCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        ChatCoalescingConfig config = new ChatCoalescingConfig();
+        config.setPollInterval(Duration.ofMillis(5));
+        coalescer = new ChatStreamCoalescer(redisTemplate, config, new SimpleMeterRegistry());
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void testCoalesce_ownerGeneratesAndPublishesChunks() {
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(valueOperations.setIfAbsent(startsWith("chat:inflight:user-1:"), any(), any(Duration.class))).thenReturn(true);
+
+        List<String> chunks = coalescer.coalesce("user-1", "hello", "req-1", () -> Flux.just("Hi", " there"))
+                .collectList().block();
+
+        assertEquals(List.of("Hi", " there"), chunks);
+        // Chunks are appended in batches by a subscriber of their own
+        verify(listOperations, timeout(1000)).rightPushAll(anyString(), eq(List.of("dHi", "d there")));
+        verify(listOperations, timeout(1000)).rightPushAll(anyString(), eq(List.of("e")));
+    }
+
+    @Test
+    void testCoalesce_duplicateReplaysChunksWithoutGenerating() {
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(valueOperations.setIfAbsent(anyString(), any(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(startsWith("chat:inflight:user-1:"))).thenReturn("owner-token");
+        when(listOperations.range(endsWith(":owner-token"), eq(0L), eq(-1L))).thenReturn(List.of("dHi"));
+        when(listOperations.range(endsWith(":owner-token"), eq(1L), eq(-1L))).thenReturn(List.of(), List.of("d there", "e"));
+        AtomicInteger generations = new AtomicInteger();
+
+        List<String> chunks = coalescer.coalesce("user-1", "hello", "req-1", () -> {
+            generations.incrementAndGet();
+            return Flux.just("unexpected");
+        }).collectList().block(Duration.ofSeconds(5));
+
+        assertEquals(List.of("Hi", " there"), chunks);
+        assertEquals(0, generations.get());
+    }
+
+    @Test
+    void testCoalesce_releasesOwnershipWhenGenerationCannotStart() {
+        when(valueOperations.setIfAbsent(anyString(), any(), any(Duration.class))).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> coalescer.coalesce("user-1", "hello", "req-1", () -> {
+            throw new IllegalStateException("busy");
+        }));
+
+        verify(redisTemplate).delete(startsWith("chat:inflight:user-1:"));
+    }
+
+    @Test
+    void testCoalesce_followerFailsWhenTheOwnerStopsRefreshingItsKey() {
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(valueOperations.setIfAbsent(anyString(), any(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.get(startsWith("chat:inflight:user-1:"))).thenReturn("owner-token", "owner-token", null);
+        when(listOperations.range(endsWith(":owner-token"), eq(0L), eq(-1L))).thenReturn(List.of("dHi"));
+        when(listOperations.range(endsWith(":owner-token"), eq(1L), eq(-1L))).thenReturn(List.of());
+
+        Flux<String> chunks = coalescer.coalesce("user-1", "hello", "req-1", () -> Flux.just("unexpected"));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> chunks.collectList().block(Duration.ofSeconds(5)));
+        assertEquals(HttpStatus.BAD_GATEWAY, e.getStatusCode());
+    }
+
+    @Test
+    void testCoalesce_requestWithoutIdIsNotCoalesced() {
+        reset(redisTemplate);
+
+        List<String> chunks = coalescer.coalesce("user-1", "hello", null, () -> Flux.just("Hi")).collectList().block();
+
+        assertEquals(List.of("Hi"), chunks);
+        verifyNoInteractions(redisTemplate);
+    }
+}
@@ -0,0 +1,167 @@
+package com.sadi.backend.unittests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sadi.backend.configs.EmbeddedVectorStoreConfig;
+import com.sadi.backend.vectorstores.EmbeddedHnswVectorStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmbeddedHnswVectorStoreTest {
+
+    private static final int DIMENSIONS = 16;
+
+    @TempDir
+    private Path directory;
+
+    private EmbeddingModel embeddingModel;
+    private EmbeddedVectorStoreConfig config;
+    private final FilterExpressionBuilder b = new FilterExpressionBuilder();
+
+    @BeforeEach
+    void setUp() {
+        embeddingModel = mock(EmbeddingModel.class);
+        when(embeddingModel.dimensions()).thenReturn(DIMENSIONS);
+        // Texts are embedded deterministically from their hash, the same text always gets the same vector
+        when(embeddingModel.embed(anyString())).thenAnswer(inv -> vector(inv.getArgument(0)));
+        when(embeddingModel.embed(anyList())).thenAnswer(inv -> inv.<List<String>>getArgument(0).stream()
+                .map(EmbeddedHnswVectorStoreTest::vector)
+                .toList());
+
+        config = new EmbeddedVectorStoreConfig();
+        config.setDirectory(directory.toString());
+        config.setInitialCapacity(4);
+    }
+
+    private static float[] vector(String text) {
+        Random random = new Random(text.hashCode());
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static Document document(String id, String text, String userId, String createdAt) {
+        return new Document(id, text, Map.of("userId", userId, "type", "EATING", "createdAt", createdAt));
+    }
+
+    private List<String> search(EmbeddedHnswVectorStore store, String query, String userId, int topK) {
+        return store.similaritySearch(SearchRequest.builder()
+                        .query(query)
+                        .topK(topK)
+                        .similarityThresholdAll()
+                        .filterExpression(b.eq("userId", userId).build())
+                        .build())
+                .stream()
+                .map(Document::getText)
+                .toList();
+    }
+
+    @Test
+    void testSimilaritySearch_filtersAndHandlesReplaceAndDelete() throws Exception {
+        try (EmbeddedHnswVectorStore store = new EmbeddedHnswVectorStore(embeddingModel, new ObjectMapper(), config, "userId")) {
+            store.add(List.of(
+                    document("1", "had lunch", "user-1", "2025-06-15T12:00:00Z"),
+                    document("2", "took donepezil", "user-1", "2025-06-15T08:00:00.5Z"),
+                    document("3", "had lunch", "user-2", "2025-06-15T12:00:00Z")
+            ));
+
+            assertEquals("had lunch", search(store, "had lunch", "user-1", 1).getFirst());
+            assertEquals(List.of("took donepezil"), store.similaritySearch(SearchRequest.builder()
+                            .query("had lunch")
+                            .similarityThresholdAll()
+                            .filterExpression(b.and(b.eq("userId", "user-1"), b.lt("createdAt", "2025-06-15T08:00:01Z")).build())
+                            .build())
+                    .stream().map(Document::getText).toList());
+
+            store.add(List.of(document("1", "went for a walk", "user-1", "2025-06-15T12:00:00Z")));
+            assertEquals(List.of("took donepezil", "went for a walk"), search(store, "took donepezil", "user-1", 10));
+
+            store.delete(List.of("2"));
+            assertEquals(List.of("went for a walk"), search(store, "took donepezil", "user-1", 10));
+            assertEquals(List.of("had lunch"), search(store, "had lunch", "user-2", 10));
+        }
+    }
+
+    @Test
+    void testReload_restoresDocumentsAndGraph() throws Exception {
+        try (EmbeddedHnswVectorStore store = new EmbeddedHnswVectorStore(embeddingModel, new ObjectMapper(), config, "userId")) {
+            store.add(List.of(
+                    document("1", "had lunch", "user-1", "2025-06-15T12:00:00Z"),
+                    document("2", "took donepezil", "user-1", "2025-06-15T08:00:00Z")
+            ));
+            store.delete(List.of("1"));
+        }
+
+        try (EmbeddedHnswVectorStore store = new EmbeddedHnswVectorStore(embeddingModel, new ObjectMapper(), config, "userId")) {
+            assertEquals(List.of("took donepezil"), search(store, "had lunch", "user-1", 10));
+            store.add(List.of(document("3", "had dinner", "user-1", "2025-06-15T20:00:00Z")));
+            assertEquals("had dinner", search(store, "had dinner", "user-1", 10).getFirst());
+        }
+    }
+
+    @Test
+    void testReload_compactsDeadSlots() throws Exception {
+        try (EmbeddedHnswVectorStore store = new EmbeddedHnswVectorStore(embeddingModel, new ObjectMapper(), config, "userId")) {
+            List<Document> documents = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                documents.add(document(String.valueOf(i), "log " + i, "user-1", "2025-06-15T12:00:00Z"));
+            }
+            store.add(documents);
+            store.delete(documents.stream().map(Document::getId).filter(id -> !id.equals("3") && !id.equals("7")).toList());
+        }
+
+        try (EmbeddedHnswVectorStore store = new EmbeddedHnswVectorStore(embeddingModel, new ObjectMapper(), config, "userId")) {
+            // Header and the initial capacity, the 18 dead slots are gone
+            assertEquals(16 + 4 * DIMENSIONS * Float.BYTES, Files.size(directory.resolve("vectors.bin")));
+            assertEquals(List.of("log 3", "log 7"), search(store, "log 3", "user-1", 10));
+            store.add(List.of(document("20", "had dinner", "user-1", "2025-06-15T20:00:00Z")));
+        }
+
+        try (EmbeddedHnswVectorStore store = new EmbeddedHnswVectorStore(embeddingModel, new ObjectMapper(), config, "userId")) {
+            assertEquals("log 7", search(store, "log 7", "user-1", 10).getFirst());
+            assertEquals("had dinner", search(store, "had dinner", "user-1", 10).getFirst());
+            assertEquals(3, search(store, "log 3", "user-1", 10).size());
+        }
+    }
+
+    @Test
+    void testGraphSearch_recallAgainstExactSearch() throws Exception {
+        config.setExactSearchThreshold(0);
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            documents.add(document(String.valueOf(i), "log " + i, "user-1", "2025-06-15T12:00:00Z"));
+        }
+
+        EmbeddedVectorStoreConfig exactConfig = new EmbeddedVectorStoreConfig();
+        exactConfig.setDirectory(directory.resolve("exact").toString());
+        try (EmbeddedHnswVectorStore graph = new EmbeddedHnswVectorStore(embeddingModel, new ObjectMapper(), config, "userId");
+             EmbeddedHnswVectorStore exact = new EmbeddedHnswVectorStore(embeddingModel, new ObjectMapper(), exactConfig, "userId")) {
+            graph.add(documents);
+            exact.add(documents);
+
+            int found = 0;
+            for (int q = 0; q < 50; q++) {
+                Set<String> expected = new HashSet<>(search(exact, "query " + q, "user-1", 10));
+                found += (int) search(graph, "query " + q, "user-1", 10).stream().filter(expected::contains).count();
+            }
+            assertTrue(found / 500.0 >= 0.9, "recall@10 was " + found / 500.0);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.sadi.backend.unittests;
+
+import com.sadi.backend.caches.FirebaseTokenCache;
+import com.sadi.backend.configs.FirebaseTokenCacheConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FirebaseTokenCacheTest {
+    private static final Instant NOW = Instant.parse("2025-06-15T12:00:00Z");
+
+    private FirebaseTokenCache tokenCache;
+
+    @BeforeEach
+    void setUp() {
+        tokenCache = new FirebaseTokenCache(new FirebaseTokenCacheConfig(), new SimpleMeterRegistry(),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private Jwt jwt(String token, String userId, Instant expiresAt) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .subject(userId)
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    @Test
+    void testGet_returnsVerifiedTokenUntilItExpires() {
+        Jwt valid = jwt("token-1", "user-1", NOW.plusSeconds(600));
+        Jwt expired = jwt("token-2", "user-1", NOW.minusSeconds(1));
+
+        tokenCache.put("token-1", valid);
+        tokenCache.put("token-2", expired);
+
+        assertSame(valid, tokenCache.get("token-1"));
+        assertNull(tokenCache.get("token-2"));
+        assertNull(tokenCache.get("token-3"));
+    }
+
+    @Test
+    void testEvictUser_dropsOnlyTokensOfThatUser() {
+        tokenCache.put("token-1", jwt("token-1", "user-1", NOW.plusSeconds(600)));
+        tokenCache.put("token-2", jwt("token-2", "user-1", NOW.plusSeconds(600)));
+        tokenCache.put("token-3", jwt("token-3", "user-2", NOW.plusSeconds(600)));
+
+        tokenCache.evictUser("user-1");
+
+        assertNull(tokenCache.get("token-1"));
+        assertNull(tokenCache.get("token-2"));
+        assertNotNull(tokenCache.get("token-3"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.sadi.backend.unittests;
+
+import com.sadi.backend.utils.KeysetCursor;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    private static void assertBadRequest(Runnable action) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, action::run);
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    private static String base64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testEncodeDecode_roundTripsInstantAndLongSortKeys() {
+        UUID id = UUID.randomUUID();
+        Instant createdAt = Instant.parse("2025-06-15T12:00:00.123456Z");
+
+        KeysetCursor byInstant = KeysetCursor.decode(KeysetCursor.encode(createdAt, id));
+        KeysetCursor byLong = KeysetCursor.decode(KeysetCursor.encode(1750000000000L, id));
+
+        assertEquals(createdAt, byInstant.sortKeyAsInstant());
+        assertEquals(id, byInstant.id());
+        assertEquals(1750000000000L, byLong.sortKeyAsLong());
+        assertEquals(id, byLong.id());
+    }
+
+    @Test
+    void testDecode_noCursorMeansFirstPage() {
+        assertNull(KeysetCursor.decode(null));
+        assertNull(KeysetCursor.decode(" "));
+    }
+
+    @Test
+    void testDecode_rejectsMalformedCursors() {
+        assertBadRequest(() -> KeysetCursor.decode("not base64!"));
+        assertBadRequest(() -> KeysetCursor.decode(base64("no separator")));
+        assertBadRequest(() -> KeysetCursor.decode(base64("2025-06-15T12:00:00Z|not-a-uuid")));
+    }
+
+    @Test
+    void testSortKey_rejectsKeysOfTheWrongType() {
+        KeysetCursor cursor = KeysetCursor.decode(base64("yesterday|" + UUID.randomUUID()));
+
+        assertBadRequest(cursor::sortKeyAsInstant);
+        assertBadRequest(cursor::sortKeyAsLong);
+    }
+}
@@ -0,0 +1,137 @@
+package com.sadi.backend.unittests;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sadi.backend.caches.LogQueryCache;
+import com.sadi.backend.configs.LogBulkIngestConfig;
+import com.sadi.backend.dtos.requests.BulkLogItem;
+import com.sadi.backend.dtos.responses.BulkLogResponse;
+import com.sadi.backend.services.UserService;
+import com.sadi.backend.services.abstractions.LogRollupService;
+import com.sadi.backend.services.impls.LogBulkIngestServiceJdbcImpl;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogBulkIngestServiceJdbcImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private LogQueryCache logQueryCache;
+
+    @Mock
+    private LogRollupService logRollupService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private LogBulkIngestServiceJdbcImpl service;
+
+    @BeforeEach
+    void setUp() {
+        LogBulkIngestConfig config = new LogBulkIngestConfig();
+        config.setChunkSize(2);
+        service = new LogBulkIngestServiceJdbcImpl(jdbcTemplate, new TransactionTemplate(transactionManager),
+                Validation.buildDefaultValidatorFactory().getValidator(), userService, logQueryCache, logRollupService, config);
+    }
+
+    private MappingIterator<BulkLogItem> read(String body) throws IOException {
+        return objectMapper.readerFor(BulkLogItem.class).readValues(body);
+    }
+
+    @Test
+    void testIngest_ndjsonReportsInvalidItemsAndInsertsInBatches() throws IOException {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> new int[((List<?>) invocation.getArgument(1)).size()]);
+        String body = """
+                {"type": "EATING", "description": "lunch", "createdAt": "2025-06-14T07:30:00Z"}
+                {"type": "DANCING", "description": "party", "createdAt": "2025-06-14T08:30:00Z"}
+                {"type": "MEDICINE", "description": "", "createdAt": "2025-06-14T09:30:00Z"}
+                {"type": "SOCIAL", "description": "met daughter", "createdAt": "2025-06-14T10:30:00Z"}
+                {"type": "BATHING", "description": "bath", "createdAt": "2025-06-14T11:30:00Z"}
+                """;
+
+        BulkLogResponse response = service.ingest("user-1", read(body));
+
+        assertEquals(3, response.created());
+        assertEquals(2, response.invalid());
+        assertFalse(response.truncated());
+        assertEquals(List.of(0, 1, 2, 3, 4), response.results().stream().map(BulkLogResponse.ItemResult::index).toList());
+        assertEquals(BulkLogResponse.Status.INVALID, response.results().get(1).status());
+        assertEquals(BulkLogResponse.Status.INVALID, response.results().get(2).status());
+
+        ArgumentCaptor<List<Object[]>> logRows = ArgumentCaptor.captor();
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("INSERT INTO logs"), logRows.capture());
+        assertEquals(List.of(2, 1), logRows.getAllValues().stream().map(List::size).toList());
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("INSERT INTO log_index_outbox"), anyList());
+        verify(logQueryCache).bumpVersion("user-1");
+    }
+
+    @Test
+    void testIngest_arrayWithKnownIdempotencyKeyIsReportedAsDuplicate() throws IOException {
+        UUID existing = UUID.randomUUID();
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO log_idempotency_keys"), anyList())).thenReturn(new int[]{0, 1});
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO logs"), anyList())).thenReturn(new int[]{1});
+        doAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getString("idempotency_key")).thenReturn("k1");
+            when(rs.getObject("log_id", UUID.class)).thenReturn(existing);
+            ((RowCallbackHandler) invocation.getArgument(1)).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT idempotency_key"), any(RowCallbackHandler.class), any(Object[].class));
+        String body = """
+                [
+                  {"idempotencyKey": "k1", "type": "EATING", "description": "lunch", "createdAt": "2025-06-14T07:30:00Z"},
+                  {"idempotencyKey": "k2", "type": "EATING", "description": "dinner", "createdAt": "2025-06-14T19:30:00Z"}
+                ]
+                """;
+
+        BulkLogResponse response = service.ingest("user-1", read(body));
+
+        assertEquals(1, response.created());
+        assertEquals(1, response.duplicates());
+        assertEquals(existing, response.results().get(0).id());
+        assertEquals(BulkLogResponse.Status.CREATED, response.results().get(1).status());
+    }
+
+    @Test
+    void testIngest_stopsReadingAfterMaxItems() throws IOException {
+        LogBulkIngestConfig config = new LogBulkIngestConfig();
+        config.setMaxItems(1);
+        service = new LogBulkIngestServiceJdbcImpl(jdbcTemplate, new TransactionTemplate(transactionManager),
+                Validation.buildDefaultValidatorFactory().getValidator(), userService, logQueryCache, logRollupService, config);
+        String body = """
+                {"type": "EATING", "description": "lunch", "createdAt": "2025-06-14T07:30:00Z"}
+                {"type": "EATING", "description": "dinner", "createdAt": "2025-06-14T19:30:00Z"}
+                """;
+
+        BulkLogResponse response = service.ingest("user-1", read(body));
+
+        assertTrue(response.truncated());
+        assertEquals(1, response.results().size());
+    }
+}
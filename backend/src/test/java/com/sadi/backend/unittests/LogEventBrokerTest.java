@@ -0,0 +1,157 @@
+package com.sadi.backend.unittests;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sadi.backend.configs.LogEventStreamConfig;
+import com.sadi.backend.configs.TaskExecutors;
+import com.sadi.backend.dtos.LogEvent;
+import com.sadi.backend.enums.LogEventType;
+import com.sadi.backend.enums.LogType;
+import com.sadi.backend.services.LogEventBroker;
+import com.sadi.backend.services.LogEventConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockedConstruction;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogEventBrokerTest {
+    private static final ChannelTopic CHANNEL = new ChannelTopic("logs:events:channel:user-1");
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Mock
+    private TaskExecutors taskExecutors;
+
+    private final LogEventStreamConfig config = new LogEventStreamConfig();
+
+    private LogEventBroker broker;
+
+    @BeforeEach
+    void setUp() {
+        config.setSubscribeTimeout(Duration.ofMillis(100));
+        when(taskExecutors.newFixed(any(), anyInt())).thenReturn(Executors.newSingleThreadExecutor());
+        broker = new LogEventBroker(stringRedisTemplate, redisMessageListenerContainer, new ObjectMapper(), config, taskExecutors);
+    }
+
+    @AfterEach
+    void tearDown() {
+        broker.shutdown();
+    }
+
+    @Test
+    void testSubscribe_returnsOnceRedisConfirmsTheSubscription() {
+        doAnswer(invocation -> {
+            // The container confirms the SUBSCRIBE on its own thread
+            new Thread(() -> broker.onChannelSubscribed(CHANNEL.getTopic().getBytes(StandardCharsets.UTF_8), 1)).start();
+            return null;
+        }).when(redisMessageListenerContainer).addMessageListener(broker, CHANNEL);
+
+        assertNotNull(broker.subscribe("user-1", null));
+        verify(redisMessageListenerContainer, never()).removeMessageListener(any(), any(ChannelTopic.class));
+    }
+
+    @Test
+    void testSubscribe_failsAndUnsubscribesWhenTheSubscriptionIsNotConfirmed() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> broker.subscribe("user-1", null));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        verify(redisMessageListenerContainer).removeMessageListener(eq(broker), eq(CHANNEL));
+    }
+
+    @Test
+    void testSubscribe_replaysExactlyReplayLimitMissedEventsWithoutReset() {
+        config.setReplayLimit(2);
+        doAnswer(invocation -> {
+            new Thread(() -> broker.onChannelSubscribed(CHANNEL.getTopic().getBytes(StandardCharsets.UTF_8), 1)).start();
+            return null;
+        }).when(redisMessageListenerContainer).addMessageListener(broker, CHANNEL);
+        StreamOperations<String, Object, Object> streams = mock();
+        when(stringRedisTemplate.opsForStream()).thenReturn(streams);
+        when(streams.range(eq("logs:events:stream:user-1"), any(), any())).thenReturn(List.of(
+                record("1-0"), record("2-0"), record("3-0")));
+
+        try (MockedConstruction<LogEventConnection> created = mockConstruction(LogEventConnection.class)) {
+            broker.subscribe("user-1", "1-0");
+
+            ArgumentCaptor<List<LogEvent>> missed = ArgumentCaptor.captor();
+            verify(created.constructed().getFirst()).replay(missed.capture(), eq(false));
+            assertEquals(List.of("2-0", "3-0"), missed.getValue().stream().map(LogEvent::id).toList());
+        }
+        ArgumentCaptor<Limit> limit = ArgumentCaptor.forClass(Limit.class);
+        verify(streams).range(any(), any(), limit.capture());
+        assertEquals(4, limit.getValue().getCount());
+    }
+
+    @Test
+    void testHeartbeat_closesStalledConnectionsAndGivesThePoolAThreadForEach() {
+        ThreadPoolExecutor senders = (ThreadPoolExecutor) Executors.newFixedThreadPool(config.getSenderThreads());
+        when(taskExecutors.newFixed(any(), anyInt())).thenReturn(senders);
+        LogEventBroker stalledBroker = new LogEventBroker(stringRedisTemplate, redisMessageListenerContainer, new ObjectMapper(),
+                config, taskExecutors);
+        doAnswer(invocation -> {
+            new Thread(() -> stalledBroker.onChannelSubscribed(CHANNEL.getTopic().getBytes(StandardCharsets.UTF_8), 1)).start();
+            return null;
+        }).when(redisMessageListenerContainer).addMessageListener(stalledBroker, CHANNEL);
+
+        try (MockedConstruction<LogEventConnection> created = mockConstruction(LogEventConnection.class,
+                (connection, context) -> when(connection.isSendStalled(any())).thenReturn(true))) {
+            stalledBroker.subscribe("user-1", null);
+            stalledBroker.heartbeat();
+
+            LogEventConnection connection = created.constructed().getFirst();
+            verify(connection).close();
+            verify(connection, never()).heartbeat();
+            assertEquals(config.getSenderThreads() + 1, senders.getMaximumPoolSize());
+
+            when(connection.isSendStalled(any())).thenReturn(false);
+            stalledBroker.heartbeat();
+            assertEquals(config.getSenderThreads(), senders.getMaximumPoolSize());
+        } finally {
+            stalledBroker.shutdown();
+        }
+    }
+
+    private MapRecord<String, Object, Object> record(String id) {
+        try {
+            String event = new ObjectMapper().writeValueAsString(new LogEvent(null, "user-1",
+                    LogEventType.CREATED, UUID.randomUUID(), LogType.MEDICINE, "pills", null));
+            return StreamRecords.<String, Object, Object>mapBacked(Map.of("event", event))
+                    .withStreamKey("logs:events:stream:user-1")
+                    .withId(RecordId.of(id));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
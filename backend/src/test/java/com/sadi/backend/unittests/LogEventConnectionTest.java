@@ -0,0 +1,114 @@
+package com.sadi.backend.unittests;
+
+import com.sadi.backend.dtos.LogEvent;
+import com.sadi.backend.enums.LogEventType;
+import com.sadi.backend.enums.LogType;
+import com.sadi.backend.services.LogEventConnection;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogEventConnectionTest {
+    private static final Pattern EVENT_ID = Pattern.compile("id:(\\S+)");
+
+    @Mock
+    private SseEmitter emitter;
+
+    private LogEvent event(String id) {
+        return new LogEvent(id, "user-1", LogEventType.CREATED, UUID.randomUUID(), LogType.MEDICINE, "pills", Instant.now());
+    }
+
+    private List<String> sentIds() throws IOException {
+        ArgumentCaptor<SseEmitter.SseEventBuilder> sent = ArgumentCaptor.captor();
+        verify(emitter, atLeast(0)).send(sent.capture());
+        List<String> ids = new ArrayList<>();
+        for (SseEmitter.SseEventBuilder builder : sent.getAllValues()) {
+            for (var data : builder.build()) {
+                Matcher matcher = EVENT_ID.matcher(String.valueOf(data.getData()));
+                if (matcher.find()) ids.add(matcher.group(1));
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    void testReplay_sendsMissedEventsBeforeHeldBackLiveEventsWithoutDuplicates() throws IOException {
+        LogEventConnection connection = new LogEventConnection(emitter, Runnable::run, 10);
+
+        connection.offer(event("1700000000000-1"));
+        connection.offer(event("1700000000001-0"));
+        connection.replay(List.of(event("1700000000000-0"), event("1700000000000-1")), false);
+        connection.offer(event("1700000000002-0"));
+
+        assertEquals(List.of("1700000000000-0", "1700000000000-1", "1700000000001-0", "1700000000002-0"), sentIds());
+    }
+
+    @Test
+    void testOffer_disconnectsClientThatFallsBehindTheBuffer() throws IOException {
+        List<Runnable> stalledSends = new ArrayList<>();
+        LogEventConnection connection = new LogEventConnection(emitter, stalledSends::add, 2);
+        connection.replay(List.of(), false);
+
+        connection.offer(event("1-0"));
+        connection.offer(event("2-0"));
+        connection.offer(event("3-0"));
+
+        verify(emitter).complete();
+        stalledSends.forEach(Runnable::run);
+        verify(emitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void testClose_leavesCompletingToTheSenderBlockedInAWrite() throws Exception {
+        CountDownLatch sendStarted = new CountDownLatch(1);
+        CountDownLatch clientReads = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sendStarted.countDown();
+            clientReads.await();
+            return null;
+        }).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+        CountDownLatch completed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            completed.countDown();
+            return null;
+        }).when(emitter).complete();
+        ExecutorService sender = Executors.newSingleThreadExecutor();
+        try {
+            LogEventConnection connection = new LogEventConnection(emitter, sender, 10);
+            connection.replay(List.of(event("1-0")), false);
+            assertTrue(sendStarted.await(5, TimeUnit.SECONDS));
+
+            assertTrue(connection.isSendStalled(Duration.ZERO));
+            connection.close();
+            verify(emitter, never()).complete();
+
+            clientReads.countDown();
+            // complete() is synchronized, so waiting for it with a timeout verification would hold the emitter's lock
+            assertTrue(completed.await(5, TimeUnit.SECONDS));
+            verify(emitter).complete();
+            assertFalse(connection.isSendStalled(Duration.ZERO));
+        } finally {
+            sender.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.sadi.backend.unittests;
+
+import com.google.common.util.concurrent.Futures;
+import com.sadi.backend.caches.LogQueryCache;
+import com.sadi.backend.configs.LogIndexerConfig;
+import com.sadi.backend.entities.Log;
+import com.sadi.backend.entities.LogIndexTask;
+import com.sadi.backend.entities.User;
+import com.sadi.backend.enums.LogIndexOperation;
+import com.sadi.backend.enums.LogType;
+import com.sadi.backend.repositories.LogIndexTaskRepository;
+import com.sadi.backend.repositories.LogRepository;
+import com.sadi.backend.services.impls.LogIndexServiceImpl;
+import com.sadi.backend.utils.BasicUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.grpc.Points;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogIndexServiceImplTest {
+
+    @Mock
+    private LogIndexTaskRepository logIndexTaskRepository;
+
+    @Mock
+    private LogRepository logRepository;
+
+    @Mock
+    private VectorStore logVectorStore;
+
+    @Mock
+    private QdrantClient qdrantClient;
+
+    @Mock
+    private LogQueryCache logQueryCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LogIndexServiceImpl logIndexService;
+
+    private final LogIndexerConfig config = new LogIndexerConfig();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final String userId = "user-1";
+
+    @BeforeEach
+    void setUp() {
+        logIndexService = new LogIndexServiceImpl(logIndexTaskRepository, logRepository, logVectorStore, logQueryCache,
+                config, new TransactionTemplate(transactionManager), meterRegistry);
+    }
+
+    private LogIndexTask task(long id, UUID logId, LogIndexOperation operation) {
+        LogIndexTask task = new LogIndexTask(logId, userId, operation);
+        task.setId(id);
+        return task;
+    }
+
+    private Log log(UUID id, String description, String indexedHash) {
+        Log lg = new Log(new User(userId), LogType.EATING, description, Instant.now());
+        lg.setId(id);
+        lg.setIndexedHash(indexedHash);
+        return lg;
+    }
+
+    @Test
+    void testIndexPending_embedsChangedDescriptions() {
+        UUID logId = UUID.randomUUID();
+        when(logIndexTaskRepository.findDueForUpdate(any(), anyInt())).thenReturn(List.of(task(1, logId, LogIndexOperation.UPSERT)));
+        when(logRepository.findAllRoutedById(List.of(logId))).thenReturn(List.of(log(logId, "had lunch", null)));
+
+        assertEquals(1, logIndexService.indexPending());
+
+        ArgumentCaptor<List<Document>> documents = ArgumentCaptor.captor();
+        verify(logVectorStore).add(documents.capture());
+        assertEquals("had lunch", documents.getValue().getFirst().getText());
+        verify(logRepository).updateIndexedHash(logId, BasicUtils.sha256Hex("had lunch"));
+        verify(logIndexTaskRepository).deleteByIds(List.of(1L));
+        verify(logQueryCache).bumpVersion(userId);
+    }
+
+    @Test
+    void testIndexPending_unchangedDescriptionOnlyUpdatesPayload() {
+        UUID logId = UUID.randomUUID();
+        when(logIndexTaskRepository.findDueForUpdate(any(), anyInt())).thenReturn(List.of(task(1, logId, LogIndexOperation.UPSERT)));
+        when(logRepository.findAllRoutedById(List.of(logId))).thenReturn(List.of(log(logId, "had lunch", BasicUtils.sha256Hex("had lunch"))));
+        when(logVectorStore.<QdrantClient>getNativeClient()).thenReturn(Optional.of(qdrantClient));
+        when(qdrantClient.setPayloadAsync(anyString(), anyMap(), anyList(), any(), any(), any()))
+                .thenReturn(Futures.immediateFuture(Points.UpdateResult.getDefaultInstance()));
+
+        logIndexService.indexPending();
+
+        verify(logVectorStore, never()).add(any());
+        verify(qdrantClient).setPayloadAsync(anyString(), anyMap(), anyList(), any(), any(), any());
+        verify(logIndexTaskRepository).deleteByIds(List.of(1L));
+    }
+
+    @Test
+    void testIndexPending_latestChangeOfALogWins() {
+        UUID logId = UUID.randomUUID();
+        when(logIndexTaskRepository.findDueForUpdate(any(), anyInt())).thenReturn(List.of(
+                task(1, logId, LogIndexOperation.UPSERT),
+                task(2, logId, LogIndexOperation.DELETE)
+        ));
+
+        logIndexService.indexPending();
+
+        verify(logRepository, never()).findAllById(any());
+        verify(logVectorStore).delete(List.of(logId.toString()));
+        verify(logIndexTaskRepository).deleteByIds(List.of(1L, 2L));
+    }
+
+    @Test
+    void testIndexPending_failureIsRetriedWithBackoff() {
+        UUID logId = UUID.randomUUID();
+        LogIndexTask task = task(1, logId, LogIndexOperation.UPSERT);
+        when(logIndexTaskRepository.findDueForUpdate(any(), anyInt())).thenReturn(List.of(task));
+        when(logRepository.findAllRoutedById(List.of(logId))).thenReturn(List.of(log(logId, "had lunch", null)));
+        doThrow(new IllegalStateException("qdrant down")).when(logVectorStore).add(any());
+        when(logIndexTaskRepository.findAllById(List.of(1L))).thenReturn(List.of(task));
+
+        Instant before = Instant.now();
+        logIndexService.indexPending();
+
+        assertEquals(1, task.getAttempts());
+        assertEquals("qdrant down", task.getLastError());
+        assertFalse(task.getNextAttemptAt().isBefore(before.plus(new LogIndexerConfig().getInitialBackoff())));
+        verify(logIndexTaskRepository, never()).deleteByIds(any());
+        verify(logQueryCache, never()).bumpVersion(any());
+    }
+
+    @Test
+    void testIndexPending_taskOutOfAttemptsIsMarkedFailed() {
+        UUID logId = UUID.randomUUID();
+        LogIndexTask task = task(1, logId, LogIndexOperation.DELETE);
+        task.setAttempts(config.getMaxAttempts() - 1);
+        when(logIndexTaskRepository.findDueForUpdate(any(), anyInt())).thenReturn(List.of(task));
+        doThrow(new IllegalStateException("qdrant down")).when(logVectorStore).delete(anyList());
+        when(logIndexTaskRepository.findAllById(List.of(1L))).thenReturn(List.of(task));
+
+        logIndexService.indexPending();
+
+        assertNotNull(task.getFailedAt());
+        assertEquals(1.0, meterRegistry.counter("logs.indexer.failed").count());
+    }
+
+    @Test
+    void testIndexPending_failingLogDoesNotHoldBackTheOthers() {
+        UUID goodLog = UUID.randomUUID();
+        UUID badLog = UUID.randomUUID();
+        LogIndexTask badTask = task(2, badLog, LogIndexOperation.DELETE);
+        when(logIndexTaskRepository.findDueForUpdate(any(), anyInt())).thenReturn(List.of(
+                task(1, goodLog, LogIndexOperation.DELETE),
+                badTask
+        ));
+        doThrow(new IllegalStateException("bad point")).when(logVectorStore)
+                .delete(argThat((List<String> ids) -> ids.contains(badLog.toString())));
+        when(logIndexTaskRepository.findAllById(List.of(2L))).thenReturn(List.of(badTask));
+
+        logIndexService.indexPending();
+
+        verify(logIndexTaskRepository).deleteByIds(List.of(1L));
+        verify(logIndexTaskRepository, never()).deleteByIds(List.of(1L, 2L));
+        assertEquals(1, badTask.getAttempts());
+        verify(logQueryCache).bumpVersion(userId);
+    }
+
+    @Test
+    void testProcessPending_stopsAfterTheBatchLimitOfAPoll() {
+        config.setBatchSize(1);
+        config.setMaxBatchesPerTick(3);
+        when(logIndexTaskRepository.findDueForUpdate(any(), anyInt()))
+                .thenAnswer(invocation -> List.of(task(1, UUID.randomUUID(), LogIndexOperation.DELETE)));
+
+        logIndexService.processPending();
+
+        verify(logIndexTaskRepository, times(3)).findDueForUpdate(any(), anyInt());
+    }
+
+    @Test
+    void testIndexPending_outageRetriesTheWholeBatchWithoutSplittingIt() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        List<LogIndexTask> tasks = List.of(task(1, first, LogIndexOperation.DELETE), task(2, second, LogIndexOperation.DELETE));
+        when(logIndexTaskRepository.findDueForUpdate(any(), anyInt())).thenReturn(tasks);
+        doThrow(new StatusRuntimeException(Status.UNAVAILABLE)).when(logVectorStore).delete(anyList());
+        when(logIndexTaskRepository.findAllById(List.of(1L, 2L))).thenReturn(tasks);
+
+        assertEquals(0, logIndexService.indexPending());
+
+        verify(logVectorStore, times(1)).delete(anyList());
+        tasks.forEach(task -> assertEquals(1, task.getAttempts()));
+        verify(logIndexTaskRepository, never()).deleteByIds(any());
+    }
+
+    @Test
+    void testIndexPending_outageWhileSplittingPostponesTheRestOfTheBatch() {
+        UUID badLog = UUID.randomUUID();
+        UUID unreachable = UUID.randomUUID();
+        UUID untried = UUID.randomUUID();
+        LogIndexTask badTask = task(1, badLog, LogIndexOperation.DELETE);
+        LogIndexTask unreachableTask = task(2, unreachable, LogIndexOperation.DELETE);
+        LogIndexTask untriedTask = task(3, untried, LogIndexOperation.DELETE);
+        when(logIndexTaskRepository.findDueForUpdate(any(), anyInt())).thenReturn(List.of(badTask, unreachableTask, untriedTask));
+        doThrow(new IllegalStateException("bad point")).when(logVectorStore).delete(anyList());
+        doThrow(new ResourceAccessException("connection refused")).when(logVectorStore).delete(List.of(unreachable.toString()));
+        when(logIndexTaskRepository.findAllById(anyList())).thenAnswer(invocation -> Stream.of(badTask, unreachableTask, untriedTask)
+                .filter(task -> invocation.<List<Long>>getArgument(0).contains(task.getId()))
+                .toList());
+
+        assertEquals(0, logIndexService.indexPending());
+
+        verify(logVectorStore, never()).delete(List.of(untried.toString()));
+        assertEquals(List.of(1, 1, 1), List.of(badTask.getAttempts(), unreachableTask.getAttempts(), untriedTask.getAttempts()));
+        assertEquals("connection refused", untriedTask.getLastError());
+    }
+
+    @Test
+    void testProcessPending_stopsAtAnOutage() {
+        config.setBatchSize(1);
+        LogIndexTask task = task(1, UUID.randomUUID(), LogIndexOperation.DELETE);
+        when(logIndexTaskRepository.findDueForUpdate(any(), anyInt())).thenReturn(List.of(task));
+        doThrow(new StatusRuntimeException(Status.DEADLINE_EXCEEDED)).when(logVectorStore).delete(anyList());
+        when(logIndexTaskRepository.findAllById(List.of(1L))).thenReturn(List.of(task));
+
+        logIndexService.processPending();
+
+        verify(logIndexTaskRepository, times(1)).findDueForUpdate(any(), anyInt());
+    }
+}
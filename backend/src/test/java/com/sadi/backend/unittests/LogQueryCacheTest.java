@@ -0,0 +1,131 @@
+package com.sadi.backend.unittests;
+
+import com.sadi.backend.caches.LogQueryCache;
+import com.sadi.backend.configs.LogQueryCacheConfig;
+import com.sadi.backend.dtos.LogDTO;
+import com.sadi.backend.services.abstractions.LogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogQueryCacheTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    private LogQueryCache cache;
+
+    private final ZoneId utc = ZoneId.of("UTC");
+    private final Instant base = Instant.parse("2025-06-15T00:00:00Z");
+
+    @BeforeEach
+    void setUp() {
+        cache = new LogQueryCache(redisTemplate, new LogQueryCacheConfig());
+    }
+
+    private LogDTO logAt(Instant instant) {
+        return new LogDTO("log at " + instant, instant.atZone(utc).toLocalDate(), instant.atZone(utc).toLocalTime());
+    }
+
+    @Test
+    void testRangeQuery_answeredFromCachedSuperset() {
+        List<LogDTO> logs = List.of(logAt(base.plusSeconds(3600)), logAt(base.plusSeconds(7200)), logAt(base.plusSeconds(10800)));
+        cache.putLogsByTimeStamp("user-1", 0, "UTC", base, base.plusSeconds(86400), logs);
+
+        Optional<List<LogDTO>> result = cache.getLogsByTimeStamp("user-1", 0, "UTC",
+                base.plusSeconds(3000), base.plusSeconds(7200));
+
+        assertTrue(result.isPresent());
+        assertEquals(List.of(logs.get(0), logs.get(1)), result.get());
+    }
+
+    @Test
+    void testRangeQuery_missWhenOutsideCachedRangeOrDifferentZone() {
+        cache.putLogsByTimeStamp("user-1", 0, "UTC", base, base.plusSeconds(3600), List.of(logAt(base.plusSeconds(60))));
+
+        assertTrue(cache.getLogsByTimeStamp("user-1", 0, "UTC", base, base.plusSeconds(7200)).isEmpty());
+        assertTrue(cache.getLogsByTimeStamp("user-1", 0, "Asia/Dhaka", base, base.plusSeconds(60)).isEmpty());
+    }
+
+    @Test
+    void testRangeQuery_truncatedResultOnlyCoversUpToLastLog() {
+        List<LogDTO> logs = new ArrayList<>();
+        for (int i = 1; i <= LogService.TIME_RANGE_LIMIT; i++) {
+            logs.add(logAt(base.plusSeconds(i * 60L)));
+        }
+        cache.putLogsByTimeStamp("user-1", 0, "UTC", base, base.plusSeconds(86400), logs);
+
+        assertTrue(cache.getLogsByTimeStamp("user-1", 0, "UTC", base, base.plusSeconds(120)).isPresent());
+        assertTrue(cache.getLogsByTimeStamp("user-1", 0, "UTC", base,
+                base.plusSeconds(LogService.TIME_RANGE_LIMIT * 60L)).isEmpty());
+    }
+
+    @Test
+    void testTopicQuery_keyedByNormalizedArguments() {
+        List<LogDTO> logs = List.of(logAt(base));
+        cache.putLogsByQuery("user-1", 0, "UTC", "Took  Medicine ", "medicine", null, null, logs);
+
+        assertEquals(Optional.of(logs), cache.getLogsByQuery("user-1", 0, "UTC", "took medicine", "MEDICINE", null, null));
+        assertTrue(cache.getLogsByQuery("user-2", 0, "UTC", "took medicine", "MEDICINE", null, null).isEmpty());
+    }
+
+    @Test
+    void testNewVersion_invalidatesEntries() {
+        cache.putLogsByQuery("user-1", 0, "UTC", "lunch", "EATING", null, null, List.of(logAt(base)));
+
+        assertTrue(cache.getLogsByQuery("user-1", 1, "UTC", "lunch", "EATING", null, null).isEmpty());
+
+        // results computed against an older version must not be stored once a newer one was seen
+        cache.putLogsByQuery("user-1", 1, "UTC", "dinner", "EATING", null, null, List.of(logAt(base)));
+        cache.putLogsByQuery("user-1", 0, "UTC", "lunch", "EATING", null, null, List.of(logAt(base)));
+        assertTrue(cache.getLogsByQuery("user-1", 1, "UTC", "lunch", "EATING", null, null).isEmpty());
+    }
+
+    @Test
+    void testBumpVersion_incrementsRedisCounter() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("logs:version:user-1")).thenReturn(4);
+        cache.putLogsByQuery("user-1", 4, "UTC", "lunch", "EATING", null, null, List.of(logAt(base)));
+
+        cache.bumpVersion("user-1");
+
+        verify(valueOperations).increment("logs:version:user-1");
+        assertEquals(4, cache.getVersion("user-1"));
+        assertTrue(cache.getLogsByQuery("user-1", 4, "UTC", "lunch", "EATING", null, null).isEmpty());
+    }
+
+    @Test
+    void testBumpVersion_waitsForTheTransactionToCommit() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.bumpVersion("user-1");
+            verify(valueOperations, never()).increment(anyString());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(valueOperations).increment("logs:version:user-1");
+    }
+}
@@ -0,0 +1,175 @@
+package com.sadi.backend.unittests;
+
+import com.google.common.util.concurrent.Futures;
+import com.sadi.backend.configs.LogReconcilerConfig;
+import com.sadi.backend.entities.Log;
+import com.sadi.backend.entities.LogReconcilerCheckpoint;
+import com.sadi.backend.entities.LogTombstone;
+import com.sadi.backend.entities.User;
+import com.sadi.backend.enums.LogIndexOperation;
+import com.sadi.backend.enums.LogType;
+import com.sadi.backend.repositories.LogReconcilerCheckpointRepository;
+import com.sadi.backend.repositories.LogRepository;
+import com.sadi.backend.repositories.LogTombstoneRepository;
+import com.sadi.backend.services.abstractions.LogIndexService;
+import com.sadi.backend.services.impls.LogReconcilerServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.qdrant.client.PointIdFactory;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.ValueFactory;
+import io.qdrant.client.grpc.Points;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogReconcilerServiceImplTest {
+
+    @Mock
+    private LogRepository logRepository;
+
+    @Mock
+    private LogTombstoneRepository logTombstoneRepository;
+
+    @Mock
+    private LogReconcilerCheckpointRepository checkpointRepository;
+
+    @Mock
+    private LogIndexService logIndexService;
+
+    @Mock
+    private VectorStore logVectorStore;
+
+    @Mock
+    private QdrantClient qdrantClient;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LogReconcilerServiceImpl reconcilerService;
+
+    private final String userId = "user-1";
+    private final Instant createdAt = Instant.now().minus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.MILLIS);
+
+    @BeforeEach
+    void setUp() {
+        reconcilerService = new LogReconcilerServiceImpl(logRepository, logTombstoneRepository, checkpointRepository,
+                logIndexService, logVectorStore, new LogReconcilerConfig(), new TransactionTemplate(transactionManager),
+                new SimpleMeterRegistry());
+        when(logVectorStore.getNativeClient()).thenReturn(Optional.of(qdrantClient));
+    }
+
+    private Log log(String description) {
+        Log lg = new Log(new User(userId), LogType.EATING, description, createdAt);
+        lg.setId(UUID.randomUUID());
+        lg.setUpdatedAt(createdAt);
+        return lg;
+    }
+
+    private Points.RetrievedPoint point(Log lg, String description) {
+        return Points.RetrievedPoint.newBuilder()
+                .setId(PointIdFactory.id(lg.getId()))
+                .putAllPayload(Map.of(
+                        "doc_content", ValueFactory.value(description),
+                        "userId", ValueFactory.value(userId),
+                        "type", ValueFactory.value(lg.getType().toString()),
+                        "createdAt", ValueFactory.value(lg.getCreatedAt().toString())))
+                .build();
+    }
+
+    private LogReconcilerCheckpoint claimCheckpoint(String name) {
+        LogReconcilerCheckpoint checkpoint = new LogReconcilerCheckpoint(name, null, null, null);
+        when(checkpointRepository.claim(eq(name), any(), any())).thenReturn(1);
+        when(checkpointRepository.findById(name)).thenReturn(Optional.of(checkpoint));
+        return checkpoint;
+    }
+
+    @Test
+    void reconcileChanges_enqueuesMissingAndStaleLogsAndAdvancesCheckpoint() {
+        LogReconcilerCheckpoint checkpoint = claimCheckpoint("changes");
+        Log indexed = log("Had rice");
+        Log missing = log("Took a walk");
+        Log stale = log("Slept early");
+        when(logRepository.findChangedSince(eq(Instant.EPOCH), eq(new UUID(0, 0)), any(), any()))
+                .thenReturn(List.of(indexed, missing, stale));
+        when(qdrantClient.retrieveAsync(anyString(), anyList(), any(), any(), isNull()))
+                .thenReturn(Futures.immediateFuture(List.of(point(indexed, "Had rice"), point(stale, "Slept late"))));
+
+        int repaired = reconcilerService.reconcileChanges();
+
+        assertEquals(2, repaired);
+        verify(logIndexService).enqueue(missing.getId(), userId, LogIndexOperation.UPSERT);
+        verify(logIndexService).enqueue(stale.getId(), userId, LogIndexOperation.UPSERT);
+        verify(logIndexService, never()).enqueue(eq(indexed.getId()), any(), any());
+        verify(logRepository).updateIndexedHash(missing.getId(), null);
+        verify(logRepository).updateIndexedHash(stale.getId(), null);
+        assertEquals(stale.getId(), checkpoint.getPositionId());
+        assertNull(checkpoint.getLeasedUntil());
+        verify(checkpointRepository).save(checkpoint);
+    }
+
+    @Test
+    void reconcileDeletes_enqueuesDeleteOnlyForPointsThatStillExist() {
+        claimCheckpoint("deletes");
+        Log deleted = log("Had tea");
+        Log removed = log("Read a book");
+        when(logTombstoneRepository.findDeletedSince(any(), any(), any(), any())).thenReturn(List.of(
+                new LogTombstone(deleted.getId(), userId, createdAt),
+                new LogTombstone(removed.getId(), userId, createdAt)));
+        when(qdrantClient.retrieveAsync(anyString(), anyList(), any(), any(), isNull()))
+                .thenReturn(Futures.immediateFuture(List.of(point(deleted, "Had tea"))));
+
+        int repaired = reconcilerService.reconcileDeletes();
+
+        assertEquals(1, repaired);
+        verify(logIndexService).enqueue(deleted.getId(), userId, LogIndexOperation.DELETE);
+        verify(logIndexService, never()).enqueue(eq(removed.getId()), any(), any());
+    }
+
+    @Test
+    void reconcileChanges_skipsWhenAnotherReplicaHoldsTheCheckpoint() {
+        when(checkpointRepository.claim(eq("changes"), any(), any())).thenReturn(0);
+
+        assertEquals(0, reconcilerService.reconcileChanges());
+
+        verifyNoInteractions(logRepository, qdrantClient, logIndexService);
+        verify(checkpointRepository, never()).save(any());
+    }
+
+    @Test
+    void sweep_deletesOrphanPointsWithAndWithoutAUser() {
+        when(checkpointRepository.claim(eq("sweep-rows"), any(), any())).thenReturn(0);
+        claimCheckpoint("sweep-points");
+        UUID orphan = UUID.randomUUID();
+        UUID withoutUser = UUID.randomUUID();
+        when(qdrantClient.scrollAsync(any(Points.ScrollPoints.class))).thenReturn(Futures.immediateFuture(
+                Points.ScrollResponse.newBuilder()
+                        .addResult(Points.RetrievedPoint.newBuilder()
+                                .setId(PointIdFactory.id(orphan))
+                                .putPayload("userId", ValueFactory.value(userId)))
+                        .addResult(Points.RetrievedPoint.newBuilder().setId(PointIdFactory.id(withoutUser)))
+                        .build()));
+        when(logRepository.findExistingIds(any())).thenReturn(List.of());
+
+        assertEquals(2, reconcilerService.sweep());
+
+        verify(logIndexService).enqueue(orphan, userId, LogIndexOperation.DELETE);
+        verify(logVectorStore).delete(List.of(withoutUser.toString()));
+    }
+}
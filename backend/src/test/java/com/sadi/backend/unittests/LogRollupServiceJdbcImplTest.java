@@ -0,0 +1,112 @@
+package com.sadi.backend.unittests;
+
+import com.sadi.backend.configs.LogRollupConfig;
+import com.sadi.backend.entities.Log;
+import com.sadi.backend.entities.User;
+import com.sadi.backend.enums.LogType;
+import com.sadi.backend.services.impls.LogRollupServiceJdbcImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogRollupServiceJdbcImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private LogRollupServiceJdbcImpl rollupService;
+
+    private final User user = new User("user-1");
+
+    @BeforeEach
+    void setUp() {
+        rollupService = new LogRollupServiceJdbcImpl(jdbcTemplate, new LogRollupConfig());
+    }
+
+    private Log log(LogType type, String description, String createdAt) {
+        return new Log(user, type, description, Instant.parse(createdAt));
+    }
+
+    @Test
+    void testAddLogs_foldsLogsIntoOneRowPerLocalDayAndType() {
+        rollupService.addLogs("user-1", List.of(
+                log(LogType.EATING, "breakfast", "2025-06-15T02:00:00Z"),
+                log(LogType.EATING, "dinner", "2025-06-15T14:00:00Z"),
+                log(LogType.EATING, "lunch", "2025-06-15T06:00:00Z"),
+                // 19:00 UTC is already the next day in Dhaka
+                log(LogType.EATING, "snack", "2025-06-15T19:00:00Z"),
+                log(LogType.MEDICINE, "pills", "2025-06-15T03:00:00Z")));
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.captor();
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO log_daily_rollups"), rows.capture());
+        List<Object[]> values = rows.getValue();
+        assertEquals(3, values.size());
+
+        assertArrayEquals(new Object[]{"user-1", LocalDate.parse("2025-06-15"), "EATING", 3,
+                Instant.parse("2025-06-15T02:00:00Z").atOffset(ZoneOffset.UTC),
+                Instant.parse("2025-06-15T14:00:00Z").atOffset(ZoneOffset.UTC), "dinner"}, values.get(0));
+        assertEquals("MEDICINE", values.get(1)[2]);
+        assertEquals(LocalDate.parse("2025-06-16"), values.get(2)[1]);
+        assertEquals(1, values.get(2)[3]);
+    }
+
+    @Test
+    void testGetRollups_rejectsRangesLongerThanTheLimit() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () ->
+                rollupService.getRollups(List.of("user-1"), LocalDate.parse("2025-01-01"), LocalDate.parse("2025-06-01")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testVerifyZone_acceptsRollupsBuiltInTheConfiguredZone() {
+        when(jdbcTemplate.queryForObject(contains("log_rollup_settings"), eq(String.class))).thenReturn("Asia/Dhaka");
+
+        rollupService.verifyZone();
+
+        verify(jdbcTemplate, never()).queryForObject(contains("rebuild_log_daily_rollups"), eq(Object.class), any());
+    }
+
+    @Test
+    void testVerifyZone_refusesToStartWhenTheZoneChanged() {
+        LogRollupConfig config = new LogRollupConfig();
+        config.setZone(ZoneId.of("UTC"));
+        when(jdbcTemplate.queryForObject(contains("log_rollup_settings"), eq(String.class))).thenReturn("Asia/Dhaka");
+
+        LogRollupServiceJdbcImpl service = new LogRollupServiceJdbcImpl(jdbcTemplate, config);
+        IllegalStateException e = assertThrows(IllegalStateException.class, service::verifyZone);
+
+        assertTrue(e.getMessage().contains("Asia/Dhaka"));
+        verify(jdbcTemplate, never()).queryForObject(contains("rebuild_log_daily_rollups"), eq(Object.class), any());
+    }
+
+    @Test
+    void testVerifyZone_rebuildsWhenAllowed() {
+        LogRollupConfig config = new LogRollupConfig();
+        config.setZone(ZoneId.of("UTC"));
+        config.setRebuildOnZoneChange(true);
+        when(jdbcTemplate.queryForObject(contains("log_rollup_settings"), eq(String.class))).thenReturn("Asia/Dhaka");
+
+        new LogRollupServiceJdbcImpl(jdbcTemplate, config).verifyZone();
+
+        verify(jdbcTemplate).queryForObject("SELECT rebuild_log_daily_rollups(?)", Object.class, "UTC");
+    }
+}
@@ -0,0 +1,233 @@
+package com.sadi.backend.unittests;
+
+import com.sadi.backend.caches.LogQueryCache;
+import com.sadi.backend.configs.BlockingTaskConfig;
+import com.sadi.backend.configs.LogSearchConfig;
+import com.sadi.backend.configs.LogTimeRangeConfig;
+import com.sadi.backend.configs.TaskExecutors;
+import com.sadi.backend.dtos.LogDTO;
+import com.sadi.backend.dtos.LogTimelineRow;
+import com.sadi.backend.dtos.responses.CursorPage;
+import com.sadi.backend.dtos.requests.UpdateLogRequest;
+import com.sadi.backend.entities.Log;
+import com.sadi.backend.entities.User;
+import com.sadi.backend.enums.LogType;
+import com.sadi.backend.repositories.LogRepository;
+import com.sadi.backend.services.LogEventBroker;
+import com.sadi.backend.services.UserService;
+import com.sadi.backend.services.abstractions.LogIndexService;
+import com.sadi.backend.services.abstractions.LogRollupService;
+import com.sadi.backend.services.impls.LogServiceImpl;
+import com.sadi.backend.utils.KeysetCursor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogServiceImplTest {
+
+    @Mock
+    private LogRepository logRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private LogRollupService logRollupService;
+
+    @Mock
+    private LogIndexService logIndexService;
+
+    @Mock
+    private LogQueryCache logQueryCache;
+
+    @Mock
+    private LogEventBroker logEventBroker;
+
+    @Mock
+    private VectorStore logVectorStore;
+
+    @Spy
+    private LogSearchConfig logSearchConfig = new LogSearchConfig();
+
+    @Spy
+    private LogTimeRangeConfig logTimeRangeConfig = new LogTimeRangeConfig();
+
+    @Spy
+    private TaskExecutors taskExecutors = new TaskExecutors(new SimpleAsyncTaskExecutor(), new MockEnvironment(),
+            new BlockingTaskConfig());
+
+    @InjectMocks
+    private LogServiceImpl logService;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        taskExecutors.shutdown();
+    }
+
+    private static LogTimelineRow timelineRow(UUID id, Instant createdAt) {
+        return new LogTimelineRow() {
+            public UUID getId() { return id; }
+            public String getDescription() { return "log " + id; }
+            public Instant getCreatedAt() { return createdAt; }
+        };
+    }
+
+    @Test
+    void testGetLogsByTimeStamp_fullPageReturnsCursorOfItsLastLog() {
+        Instant start = Instant.parse("2025-06-15T00:00:00Z");
+        Instant end = start.plusSeconds(86_400);
+        // Every log shares one timestamp, so only the id tells the pages apart
+        List<LogTimelineRow> rows = IntStream.rangeClosed(0, LogServiceImpl.TIME_RANGE_LIMIT)
+                .mapToObj(i -> timelineRow(new UUID(0, i), start))
+                .toList();
+        when(logRepository.findTimeline("user-1", start, end, Limit.of(LogServiceImpl.TIME_RANGE_LIMIT + 1))).thenReturn(rows);
+
+        CursorPage<LogDTO> page = logService.getLogsByTimeStamp("user-1", "UTC", start, end, null);
+
+        assertEquals(LogServiceImpl.TIME_RANGE_LIMIT, page.content().size());
+        assertTrue(page.hasNext());
+        assertEquals(new KeysetCursor(start.toString(), new UUID(0, LogServiceImpl.TIME_RANGE_LIMIT - 1)),
+                KeysetCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void testGetLogsByTimeStamp_continuesAfterTheCursor() {
+        Instant start = Instant.parse("2025-06-15T00:00:00Z");
+        Instant end = start.plusSeconds(86_400);
+        UUID lastId = new UUID(0, 99);
+        when(logRepository.findTimelineAfter("user-1", start, end, start, lastId, Limit.of(LogServiceImpl.TIME_RANGE_LIMIT + 1)))
+                .thenReturn(List.of(timelineRow(new UUID(0, 100), start)));
+
+        CursorPage<LogDTO> page = logService.getLogsByTimeStamp("user-1", "UTC", start, end,
+                new KeysetCursor(start.toString(), lastId));
+
+        assertEquals(1, page.content().size());
+        assertFalse(page.hasNext());
+        assertNull(page.nextCursor());
+        verify(logRepository, never()).findTimeline(any(), any(), any(), any());
+    }
+
+    @Test
+    void testGetFeed_readsAllPatientsInOneQuery() {
+        when(userService.getActivePatientIds("caregiver-1")).thenReturn(List.of("patient-1", "patient-2"));
+        List<Log> page = List.of(new Log());
+        when(logRepository.findFeed(any(), any(), any(), any(), anyInt())).thenReturn(page);
+
+        assertSame(page, logService.getFeed("caregiver-1", null, null, 20));
+
+        verify(logRepository).findFeed(
+                aryEq(new String[]{"patient-1", "patient-2"}),
+                aryEq(Arrays.stream(LogType.values()).map(LogType::name).toArray(String[]::new)),
+                eq(Instant.parse("9999-12-31T00:00:00Z")),
+                eq(new UUID(-1L, -1L)),
+                eq(20));
+    }
+
+    @Test
+    void testGetFeed_continuesAfterTheCursorForOneType() {
+        UUID lastId = UUID.randomUUID();
+        Instant lastCreatedAt = Instant.parse("2025-06-15T08:00:00Z");
+        when(userService.getActivePatientIds("caregiver-1")).thenReturn(List.of("patient-1"));
+
+        logService.getFeed("caregiver-1", LogType.MEDICINE, new KeysetCursor(lastCreatedAt.toString(), lastId), 10);
+
+        verify(logRepository).findFeed(aryEq(new String[]{"patient-1"}), aryEq(new String[]{"MEDICINE"}),
+                eq(lastCreatedAt), eq(lastId), eq(10));
+    }
+
+    @Test
+    void testGetFeed_withoutPatientsDoesNotQuery() {
+        when(userService.getActivePatientIds("caregiver-1")).thenReturn(List.of());
+
+        assertTrue(logService.getFeed("caregiver-1", null, null, 20).isEmpty());
+
+        verifyNoInteractions(logRepository);
+    }
+
+    @Test
+    void testGetFeed_rejectsMalformedCursor() {
+        when(userService.getActivePatientIds("caregiver-1")).thenReturn(List.of("patient-1"));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () ->
+                logService.getFeed("caregiver-1", null, new KeysetCursor("yesterday", UUID.randomUUID()), 20));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        verifyNoInteractions(logRepository);
+    }
+
+    @Test
+    void testUpdateLog_refreshesBothRollupsInTypeOrder() {
+        Instant createdAt = Instant.parse("2025-06-15T08:00:00Z");
+        Log lg = new Log(new User("patient-1"), LogType.MEDICINE, "pills", createdAt);
+        lg.setId(UUID.randomUUID());
+        when(logRepository.findRoutedById(lg.getId())).thenReturn(Optional.of(lg));
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("patient-1", null));
+
+        logService.updateLog(lg.getId(), new UpdateLogRequest(LogType.EATING, "lunch"));
+
+        // EATING is declared before MEDICINE, so its row is locked first whichever way the log moves
+        InOrder inOrder = inOrder(logRollupService);
+        inOrder.verify(logRollupService).refresh("patient-1", LogType.EATING, createdAt);
+        inOrder.verify(logRollupService).refresh("patient-1", LogType.MEDICINE, createdAt);
+    }
+
+    @Test
+    void testGetLogsByQueryAsync_runsBothRetrieversAlongsideEachOtherOffTheCallerThread() {
+        String caller = Thread.currentThread().getName();
+        CountDownLatch textSearched = new CountDownLatch(1);
+        AtomicBoolean overlapped = new AtomicBoolean();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        when(logRepository.searchByText(eq("user-1"), eq("MEDICINE"), eq("donepezil"), any(), any(), anyInt()))
+                .thenAnswer(invocation -> {
+                    threads.add(Thread.currentThread().getName());
+                    textSearched.countDown();
+                    return List.of();
+                });
+        // The vector search only finishes once the text search ran, which it cannot when both share a thread
+        when(logVectorStore.similaritySearch(any(SearchRequest.class))).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            overlapped.set(textSearched.await(5, TimeUnit.SECONDS));
+            return List.of();
+        });
+
+        CompletableFuture<List<LogDTO>> logs = logService.getLogsByQueryAsync("user-1", "UTC", "donepezil", "MEDICINE", null, null);
+
+        assertEquals(List.of(), logs.join());
+        assertTrue(overlapped.get());
+        assertEquals(2, threads.size());
+        assertFalse(threads.contains(caller));
+    }
+}
@@ -0,0 +1,60 @@
+package com.sadi.backend.unittests;
+
+import com.google.common.util.concurrent.Futures;
+import com.sadi.backend.configs.LogVectorQuantizationConfig;
+import com.sadi.backend.services.LogVectorRecallBenchmark;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.qdrant.client.PointIdFactory;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.ValueFactory;
+import io.qdrant.client.grpc.Points;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LogVectorRecallBenchmarkTest {
+
+    @Mock
+    private QdrantClient qdrantClient;
+
+    @Mock
+    private VectorStore logVectorStore;
+
+    private static List<Points.ScoredPoint> hits(int from, int to) {
+        return IntStream.range(from, to)
+                .mapToObj(i -> Points.ScoredPoint.newBuilder().setId(PointIdFactory.id(i)).build())
+                .toList();
+    }
+
+    @Test
+    void testMeasureRecall_comparesQuantizedSearchWithExactFloatSearch() throws Exception {
+        Points.RetrievedPoint query = Points.RetrievedPoint.newBuilder()
+                .setId(PointIdFactory.id(100))
+                .putPayload("userId", ValueFactory.value("user-1"))
+                .setVectors(Points.VectorsOutput.newBuilder()
+                        .setVector(Points.VectorOutput.newBuilder().addAllData(List.of(0.1f, 0.2f))))
+                .build();
+        when(qdrantClient.scrollAsync(any(Points.ScrollPoints.class)))
+                .thenReturn(Futures.immediateFuture(Points.ScrollResponse.newBuilder().addResult(query).build()));
+        when(qdrantClient.queryAsync(any(Points.QueryPoints.class))).thenAnswer(inv -> {
+            Points.QueryPoints request = inv.getArgument(0);
+            // the quantized search misses two of the exact top 10
+            return Futures.immediateFuture(request.getParams().getExact() ? hits(0, 10) : hits(2, 12));
+        });
+
+        LogVectorRecallBenchmark benchmark = new LogVectorRecallBenchmark(logVectorStore,
+                new LogVectorQuantizationConfig(), new SimpleMeterRegistry());
+
+        assertEquals(0.8, benchmark.measureRecall(qdrantClient, 1), 1e-9);
+    }
+}
@@ -1,11 +1,14 @@
 package com.sadi.backend.unittests;
 
+import com.sadi.backend.caches.LogQueryCache;
 import com.sadi.backend.dtos.LogDTO;
+import com.sadi.backend.dtos.responses.CursorPage;
 import com.sadi.backend.entities.Log;
 import com.sadi.backend.enums.LogType;
 import com.sadi.backend.services.abstractions.LogService;
 import com.sadi.backend.services.impls.LoggingToolsImpl;
 import com.sadi.backend.utils.BasicUtils;
+import com.sadi.backend.utils.KeysetCursor;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -13,6 +16,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.annotation.Tool;
 
 import java.time.Instant;
 import java.time.LocalDate;
@@ -21,8 +25,12 @@ import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -32,6 +40,9 @@ public class LoggingToolsImplTest {
     @Mock
     private LogService logService;
 
+    @Mock
+    private LogQueryCache logQueryCache;
+
     @InjectMocks
     private LoggingToolsImpl loggingTools;
 
@@ -73,14 +84,48 @@ public class LoggingToolsImplTest {
         Instant now = Instant.now();
         Instant later = now.plusSeconds(3600);
 
-        when(logService.getLogsByTimeStamp(anyString(), anyString(), any(), any()))
-                .thenReturn(List.of(new LogDTO("Test", now.atZone(ZoneId.of("UTC")).toLocalDate(), now.atZone(ZoneId.of("UTC")).toLocalTime())));
+        when(logService.getLogsByTimeStamp(anyString(), anyString(), any(), any(), isNull()))
+                .thenReturn(new CursorPage<>(List.of(new LogDTO("Test", now.atZone(ZoneId.of("UTC")).toLocalDate(),
+                        now.atZone(ZoneId.of("UTC")).toLocalTime())), null, false));
+
+        CursorPage<LogDTO> logs = loggingTools.getLogs(BasicUtils.getISOStringFromZoneIdAndInstant("UTC", now),
+                BasicUtils.getISOStringFromZoneIdAndInstant("UTC", later), null, context);
+
+        assertEquals(1, logs.content().size());
+        verify(logService).getLogsByTimeStamp("user-abc", "UTC", now, later, null);
+    }
+
+    @Test
+    void testGetLogs_withCursorReadsTheNextPageAndSkipsTheCache() {
+        ToolContext context = mockToolContext("user-abc", "UTC");
+        Instant now = Instant.now();
+        Instant later = now.plusSeconds(3600);
+        UUID lastId = UUID.randomUUID();
+        String cursor = KeysetCursor.encode(now, lastId);
+        CursorPage<LogDTO> next = new CursorPage<>(List.of(), null, false);
+        when(logService.getLogsByTimeStamp("user-abc", "UTC", now, later, new KeysetCursor(now.toString(), lastId)))
+                .thenReturn(next);
+
+        assertSame(next, loggingTools.getLogs(BasicUtils.getISOStringFromZoneIdAndInstant("UTC", now),
+                BasicUtils.getISOStringFromZoneIdAndInstant("UTC", later), cursor, context));
 
-        List<LogDTO> logs = loggingTools.getLogs(BasicUtils.getISOStringFromZoneIdAndInstant("UTC", now),
-                BasicUtils.getISOStringFromZoneIdAndInstant("UTC", later), context);
+        verifyNoInteractions(logQueryCache);
+    }
+
+    @Test
+    void testGetLogs_cacheHitHasNoNextPage() {
+        ToolContext context = mockToolContext("user-abc", "UTC");
+        Instant now = Instant.now();
+        Instant later = now.plusSeconds(3600);
+        List<LogDTO> cached = List.of(new LogDTO("Cached", LocalDate.now(), LocalTime.now()));
+        when(logQueryCache.getLogsByTimeStamp("user-abc", 0, "UTC", now, later)).thenReturn(Optional.of(cached));
 
-        assertEquals(1, logs.size());
-        verify(logService).getLogsByTimeStamp("user-abc", "UTC", now, later);
+        CursorPage<LogDTO> logs = loggingTools.getLogs(BasicUtils.getISOStringFromZoneIdAndInstant("UTC", now),
+                BasicUtils.getISOStringFromZoneIdAndInstant("UTC", later), null, context);
+
+        assertEquals(cached, logs.content());
+        assertNull(logs.nextCursor());
+        verifyNoInteractions(logService);
     }
 
     @Test
@@ -111,4 +156,13 @@ public class LoggingToolsImplTest {
         assertEquals(1, result.size());
         verify(logService).getLogsByQuery(eq("user-def"), eq("UTC"), eq("social"), eq("SOCIAL"), isNull(), isNull());
     }
+
+    @Test
+    void testGetLogs_descriptionStatesTheTimeRangeLimit() throws NoSuchMethodException {
+        Tool tool = LoggingToolsImpl.class.getMethod("getLogs", String.class, String.class, String.class, ToolContext.class)
+                .getAnnotation(Tool.class);
+
+        assertTrue(tool.description().contains("at most " + LogService.TIME_RANGE_LIMIT + " per call"));
+        assertTrue(tool.description().contains("nextCursor"));
+    }
 }
@@ -0,0 +1,97 @@
+package com.sadi.backend.unittests;
+
+import com.sadi.backend.configs.ParallelToolCallingManager;
+import com.sadi.backend.configs.ToolCallingConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ParallelToolCallingManagerTest {
+
+    private final ToolCallingManager delegate = mock(ToolCallingManager.class);
+    private ExecutorService executor;
+    private ParallelToolCallingManager manager;
+
+    @BeforeEach
+    void setUp() {
+        ToolCallingConfig config = new ToolCallingConfig();
+        config.setTimeout(Duration.ofMillis(500));
+        executor = Executors.newFixedThreadPool(4);
+        manager = new ParallelToolCallingManager(delegate, executor, config);
+
+        // Each call sleeps for the number of milliseconds passed as its arguments
+        when(delegate.executeToolCalls(any(), any())).thenAnswer(invocation -> {
+            Prompt prompt = invocation.getArgument(0);
+            ChatResponse response = invocation.getArgument(1);
+            AssistantMessage.ToolCall toolCall = response.getResult().getOutput().getToolCalls().getFirst();
+            Thread.sleep(Long.parseLong(toolCall.arguments()));
+            List<Message> history = new ArrayList<>(prompt.getInstructions());
+            history.add(response.getResult().getOutput());
+            history.add(new ToolResponseMessage(List.of(
+                    new ToolResponseMessage.ToolResponse(toolCall.id(), toolCall.name(), "result of " + toolCall.id()))));
+            return ToolExecutionResult.builder().conversationHistory(history).build();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private ChatResponse toolCalls(String... sleeps) {
+        List<AssistantMessage.ToolCall> calls = new ArrayList<>();
+        for (int i = 0; i < sleeps.length; i++) {
+            calls.add(new AssistantMessage.ToolCall("call-" + i, "function", "getLogsForSpecificTopic", sleeps[i]));
+        }
+        return new ChatResponse(List.of(new Generation(new AssistantMessage("", Map.of(), calls))));
+    }
+
+    @Test
+    void testExecuteToolCalls_runsCallsConcurrentlyInOriginalOrder() {
+        Prompt prompt = new Prompt(new UserMessage("what did I eat and which medicine did I take?"));
+
+        long startedAt = System.nanoTime();
+        ToolExecutionResult result = manager.executeToolCalls(prompt, toolCalls("200", "50", "200"));
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - startedAt).toMillis();
+
+        assertTrue(elapsedMillis < 400, "tool calls were not run concurrently: " + elapsedMillis + "ms");
+        assertEquals(3, result.conversationHistory().size());
+        ToolResponseMessage responses = (ToolResponseMessage) result.conversationHistory().getLast();
+        assertEquals(List.of("call-0", "call-1", "call-2"),
+                responses.getResponses().stream().map(ToolResponseMessage.ToolResponse::id).toList());
+        assertEquals("result of call-1", responses.getResponses().get(1).responseData());
+    }
+
+    @Test
+    void testExecuteToolCalls_timedOutCallIsReportedToTheModel() {
+        Prompt prompt = new Prompt(new UserMessage("hello"));
+
+        ToolExecutionResult result = manager.executeToolCalls(prompt, toolCalls("10", "2000"));
+
+        ToolResponseMessage responses = (ToolResponseMessage) result.conversationHistory().getLast();
+        assertEquals("result of call-0", responses.getResponses().get(0).responseData());
+        assertNotEquals("result of call-1", responses.getResponses().get(1).responseData());
+        assertFalse(result.returnDirect());
+    }
+}
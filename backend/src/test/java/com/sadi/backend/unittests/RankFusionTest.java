@@ -0,0 +1,28 @@
+package com.sadi.backend.unittests;
+
+import com.sadi.backend.utils.RankFusion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RankFusionTest {
+
+    @Test
+    void testReciprocalRankFusion_itemsFoundByBothRetrieversRankFirst() {
+        List<String> vector = List.of("a", "b", "c");
+        List<String> text = List.of("d", "c");
+
+        List<String> fused = RankFusion.reciprocalRankFusion(List.of(vector, text), 60, 10);
+
+        assertEquals(List.of("c", "a", "d", "b"), fused);
+    }
+
+    @Test
+    void testReciprocalRankFusion_limitedToTopK() {
+        List<String> fused = RankFusion.reciprocalRankFusion(List.of(List.of("a", "b", "c"), List.of()), 60, 2);
+
+        assertEquals(List.of("a", "b"), fused);
+    }
+}
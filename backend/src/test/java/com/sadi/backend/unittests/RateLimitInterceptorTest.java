@@ -0,0 +1,80 @@
+package com.sadi.backend.unittests;
+
+import com.sadi.backend.configs.RateLimitConfig;
+import com.sadi.backend.configs.RateLimitInterceptor;
+import com.sadi.backend.services.RateLimiter;
+import com.sadi.backend.utils.RateLimited;
+import com.sadi.backend.utils.SecurityUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitInterceptorTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitInterceptor interceptor;
+    private HandlerMethod handler;
+
+    static class Endpoints {
+        @RateLimited(name = "chat", capacity = 10, refillTokens = 60)
+        public void chat() {
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new RateLimitInterceptor(new RateLimiter(stringRedisTemplate, new RateLimitConfig(), meterRegistry));
+        handler = new HandlerMethod(new Endpoints(), Endpoints.class.getMethod("chat"));
+    }
+
+    @Test
+    void testPreHandle_rejectsThrottledCallWithRetryAfter() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), eq(List.of("ratelimit:chat:user-1")),
+                eq("10"), eq("60"), eq("3600000"))).thenReturn(List.of(0L, 42_500L, 0L));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        try (MockedStatic<SecurityUtils> security = mockStatic(SecurityUtils.class)) {
+            security.when(SecurityUtils::getName).thenReturn("user-1");
+            ResponseStatusException e = assertThrows(ResponseStatusException.class, () ->
+                    interceptor.preHandle(new MockHttpServletRequest(), response, handler));
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatusCode());
+        }
+
+        assertEquals("43", response.getHeader("Retry-After"));
+        assertEquals(1, meterRegistry.get("rate.limit.requests").tag("result", "throttled").counter().count());
+    }
+
+    @Test
+    void testPreHandle_letsCallsThroughWhenRedisIsDown() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        try (MockedStatic<SecurityUtils> security = mockStatic(SecurityUtils.class)) {
+            security.when(SecurityUtils::getName).thenReturn("user-1");
+            assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.sadi.backend.unittests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sadi.backend.configs.RedisChatMemoryRepository;
+import com.sadi.backend.dtos.responses.ChatResponse;
+import com.sadi.backend.enums.ChatType;
+import com.sadi.backend.repositories.ChatRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisChatMemoryRepositoryTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private SetOperations<String, Object> setOperations;
+
+    @Mock
+    private ChatRepository chatRepository;
+
+    private RedisChatMemoryRepository repository;
+
+    record TestChat(UUID id, ChatType type, String message, Instant createdAt) implements ChatResponse {
+        public UUID getId() { return id; }
+        public ChatType getType() { return type; }
+        public String getMessage() { return message; }
+        public Instant getCreatedAt() { return createdAt; }
+    }
+
+    @BeforeEach
+    void setUp() {
+        repository = new RedisChatMemoryRepository(redisTemplate, new ObjectMapper(), chatRepository);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void testFindByConversationId_rehydratesFromDatabaseOnMiss() {
+        Instant now = Instant.now();
+        when(valueOperations.get("chat:conversation:user-1")).thenReturn(null);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        // newest first, the newest user message is the query of the running turn
+        when(chatRepository.findLatestByUserId(eq("user-1"), any(Limit.class))).thenReturn(List.of(
+                new TestChat(UUID.randomUUID(), ChatType.USER, "what did I eat?", now),
+                new TestChat(UUID.randomUUID(), ChatType.ASSISTANT, "hello", now.minusSeconds(10)),
+                new TestChat(UUID.randomUUID(), ChatType.USER, "hi", now.minusSeconds(20))
+        ));
+
+        List<Message> messages = repository.findByConversationId("user-1");
+
+        assertEquals(2, messages.size());
+        assertEquals(MessageType.USER, messages.get(0).getMessageType());
+        assertEquals("hi", messages.get(0).getText());
+        assertEquals(MessageType.ASSISTANT, messages.get(1).getMessageType());
+        verify(valueOperations).set(eq("chat:conversation:user-1"), anyList(), any(Duration.class));
+    }
+
+    @Test
+    void testFindByConversationId_nothingStoredWhenNoHistory() {
+        when(valueOperations.get("chat:conversation:user-2")).thenReturn(null);
+        when(chatRepository.findLatestByUserId(eq("user-2"), any(Limit.class))).thenReturn(List.of());
+
+        assertTrue(repository.findByConversationId("user-2").isEmpty());
+        verify(valueOperations, never()).set(anyString(), any(), any(Duration.class));
+    }
+}
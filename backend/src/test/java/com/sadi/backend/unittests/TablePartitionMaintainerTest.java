@@ -0,0 +1,63 @@
+package com.sadi.backend.unittests;
+
+import com.sadi.backend.configs.TablePartitionConfig;
+import com.sadi.backend.services.TablePartitionMaintainer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TablePartitionMaintainerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testMaintain_createsUpcomingPartitionsAndDropsExpiredChatMonths() {
+        TablePartitionConfig config = new TablePartitionConfig();
+        config.setMonthsAhead(2);
+        config.setChatRetentionMonths(6);
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("uuuuMM");
+        String expired = "chats_p" + current.minusMonths(7).format(format);
+        String kept = "chats_p" + current.minusMonths(6).format(format);
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class))).thenReturn(List.of(expired, kept));
+
+        new TablePartitionMaintainer(jdbcTemplate, config).maintain();
+
+        for (String table : List.of("logs", "chats")) {
+            for (int i = 0; i <= 2; i++) {
+                verify(jdbcTemplate).queryForObject(anyString(), eq(String.class), eq(table), eq(current.plusMonths(i).atDay(1)));
+            }
+        }
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS " + expired);
+        verify(jdbcTemplate, never()).execute("DROP TABLE IF EXISTS " + kept);
+        verify(jdbcTemplate).update(startsWith("DELETE FROM chats_default"), any(Object.class));
+    }
+
+    @Test
+    void testMaintain_splitsTheDefaultPartitionOfEveryTableAfterTheRetention() {
+        TablePartitionConfig config = new TablePartitionConfig();
+        config.setChatRetentionMonths(6);
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class))).thenReturn(List.of());
+        when(jdbcTemplate.queryForObject(contains("split_default_partition"), eq(Integer.class), anyString())).thenReturn(1);
+
+        new TablePartitionMaintainer(jdbcTemplate, config).maintain();
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).update(startsWith("DELETE FROM chats_default"), any(Object.class));
+        inOrder.verify(jdbcTemplate).queryForObject("SELECT split_default_partition(?)", Integer.class, "logs");
+        inOrder.verify(jdbcTemplate).queryForObject("SELECT split_default_partition(?)", Integer.class, "chats");
+    }
+}
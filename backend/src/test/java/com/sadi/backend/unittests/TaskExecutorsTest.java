@@ -0,0 +1,37 @@
+package com.sadi.backend.unittests;
+
+import com.sadi.backend.configs.BlockingTaskConfig;
+import com.sadi.backend.configs.TaskExecutors;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskExecutorsTest {
+
+    @Test
+    void testBlocking_usesABoundedPoolWithoutVirtualThreads() {
+        SimpleAsyncTaskExecutor applicationTaskExecutor = new SimpleAsyncTaskExecutor();
+        TaskExecutors taskExecutors = new TaskExecutors(applicationTaskExecutor, new MockEnvironment(), new BlockingTaskConfig());
+        try {
+            String thread = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), taskExecutors.blocking()).join();
+
+            assertNotSame(applicationTaskExecutor, taskExecutors.blocking());
+            assertTrue(thread.startsWith("blocking-"), thread);
+        } finally {
+            taskExecutors.shutdown();
+        }
+    }
+
+    @Test
+    void testBlocking_usesTheApplicationTaskExecutorWithVirtualThreads() {
+        SimpleAsyncTaskExecutor applicationTaskExecutor = new SimpleAsyncTaskExecutor();
+        TaskExecutors taskExecutors = new TaskExecutors(applicationTaskExecutor,
+                new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true"), new BlockingTaskConfig());
+
+        assertSame(applicationTaskExecutor, taskExecutors.blocking());
+    }
+}
@@ -0,0 +1,142 @@
+package com.sadi.backend.unittests;
+
+import com.sadi.backend.configs.RateLimitConfig;
+import com.sadi.backend.configs.TaskExecutors;
+import com.sadi.backend.configs.TelegramDispatcherConfig;
+import com.sadi.backend.services.RateLimiter;
+import com.sadi.backend.services.TelegramDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+@ExtendWith(MockitoExtension.class)
+class TelegramDispatcherTest {
+    private static final String SEND_URL = "https://api.telegram.org/botdummy-token/sendMessage";
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private TaskExecutors taskExecutors;
+
+    @Mock
+    private ExecutorService executor;
+
+    private final TelegramDispatcherConfig config = new TelegramDispatcherConfig();
+    private SimpleMeterRegistry meterRegistry;
+    private MockRestServiceServer server;
+    private TelegramDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        RestClient.Builder builder = RestClient.builder()
+                .baseUrl("https://api.telegram.org")
+                .defaultUriVariables(Map.of("token", "dummy-token"));
+        server = MockRestServiceServer.bindTo(builder).build();
+
+        config.setGlobalLimitEnabled(false);
+        config.setRetryBackoff(Duration.ofMillis(1));
+        meterRegistry = new SimpleMeterRegistry();
+        when(taskExecutors.newBounded(anyString(), anyInt(), anyInt())).thenReturn(executor);
+        dispatcher = new TelegramDispatcher(builder.build(),
+                new RateLimiter(stringRedisTemplate, new RateLimitConfig(), meterRegistry), taskExecutors, config,
+                meterRegistry);
+    }
+
+    private void runSendsInline() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+    }
+
+    @Test
+    void testDispatch_retriesAfterTheTimeTelegramAsksFor() throws InterruptedException {
+        runSendsInline();
+        server.expect(requestTo(SEND_URL))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(jsonPath("$.chat_id").value("chat-1"))
+                .andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS).contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"ok\":false,\"error_code\":429,\"parameters\":{\"retry_after\":0}}"));
+        server.expect(requestTo(SEND_URL))
+                .andRespond(withSuccess("{\"ok\":true}", MediaType.APPLICATION_JSON));
+
+        assertTrue(dispatcher.enqueue("chat-1", "Your OTP is 123456"));
+        dispatcher.dispatchNext();
+        dispatcher.dispatchNext();
+
+        server.verify();
+        assertEquals(1, meterRegistry.get("telegram.messages.retried").tag("reason", "throttled").counter().count());
+        assertEquals(1, meterRegistry.get("telegram.messages.delivery").timer().count());
+        assertEquals(0, meterRegistry.get("telegram.messages.pending").gauge().value());
+    }
+
+    @Test
+    void testDispatch_dropsMessagesTelegramRejects() throws InterruptedException {
+        runSendsInline();
+        server.expect(requestTo(SEND_URL))
+                .andRespond(withStatus(HttpStatus.FORBIDDEN).contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"ok\":false,\"error_code\":403,\"description\":\"Forbidden: bot was blocked by the user\"}"));
+
+        dispatcher.enqueue("chat-1", "hello");
+        dispatcher.dispatchNext();
+
+        server.verify();
+        assertEquals(1, meterRegistry.get("telegram.messages.dropped").tag("reason", "rejected").counter().count());
+    }
+
+    @Test
+    void testEnqueue_dropsMessagesBeyondTheQueueCapacity() {
+        config.setQueueCapacity(1);
+
+        assertTrue(dispatcher.enqueue("chat-1", "first"));
+        assertFalse(dispatcher.enqueue("chat-2", "second"));
+
+        assertEquals(1, meterRegistry.get("telegram.messages.dropped").tag("reason", "queue_full").counter().count());
+        verifyNoInteractions(executor);
+    }
+
+    @Test
+    void testDispatch_keepsTheMessageWhenTheRateLimitCannotBeChecked() throws InterruptedException {
+        config.setGlobalLimitEnabled(true);
+        RateLimitConfig rateLimitConfig = new RateLimitConfig();
+        rateLimitConfig.setFailOpen(false);
+        // The dispatcher's own switch applies even when rate limiting of the endpoints is off
+        rateLimitConfig.setEnabled(false);
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new TelegramDispatcher(RestClient.create(), new RateLimiter(stringRedisTemplate, rateLimitConfig,
+                meterRegistry), taskExecutors, config, meterRegistry);
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        dispatcher.enqueue("chat-1", "hello");
+        dispatcher.dispatchNext();
+
+        verifyNoInteractions(executor);
+        assertEquals(1, meterRegistry.get("telegram.messages.pending").gauge().value());
+        assertTrue(meterRegistry.find("telegram.messages.dropped").counters().isEmpty());
+    }
+}
@@ -1,6 +1,6 @@
 package com.sadi.backend.unittests;
 
-import com.sadi.backend.entities.User;
+import com.sadi.backend.services.TelegramDispatcher;
 import com.sadi.backend.services.UserService;
 import com.sadi.backend.services.impls.TelegramServiceRedisImpl;
 import com.sadi.backend.utils.SecurityUtils;
@@ -13,7 +13,6 @@ import org.mockito.MockedStatic;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.http.HttpStatus;
-import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Duration;
@@ -34,14 +33,14 @@ class TelegramServiceRedisImplTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private TelegramDispatcher telegramDispatcher;
+
     @InjectMocks
     private TelegramServiceRedisImpl telegramService;
 
     @BeforeEach
     void setUp() {
-        // Manually inject botToken since @Value doesn't work in unit tests
-        ReflectionTestUtils.setField(telegramService, "botToken", "dummy-bot-token");
-
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
     }
 
@@ -69,14 +68,12 @@ class TelegramServiceRedisImplTest {
         String uuid = UUID.randomUUID().toString();
         String redisKey = "telegram:registration:" + uuid;
         String userId = "user-123";
-        User user = new User(userId);
 
         when(redisTemplate.opsForValue().get(redisKey)).thenReturn(userId);
-        when(userService.getUser(userId)).thenReturn(user);
 
         telegramService.registerUser(chatId, uuid);
 
-        assertEquals(chatId, user.getTelegramChatId());
+        verify(userService).setTelegramChatId(userId, chatId);
         verify(redisTemplate).delete(redisKey);
     }
 
@@ -0,0 +1,83 @@
+package com.sadi.backend.unittests;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sadi.backend.caches.TwoLevelCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TwoLevelCacheTest {
+
+    @Mock
+    private RedisCache remote;
+
+    private final List<String> evictions = new ArrayList<>();
+
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TwoLevelCache(new CaffeineCache("users", Caffeine.newBuilder().build(), false), remote,
+                (name, key) -> evictions.add(name + "/" + key));
+    }
+
+    @Test
+    void testGet_fillsLocalTierFromRedis() {
+        when(remote.get("user-1")).thenReturn(new SimpleValueWrapper("Alice"));
+
+        assertEquals("Alice", cache.get("user-1", String.class));
+        assertEquals("Alice", cache.get("user-1", String.class));
+
+        verify(remote, times(1)).get("user-1");
+    }
+
+    @Test
+    void testEvict_dropsBothTiersAndTellsOtherReplicas() {
+        when(remote.getName()).thenReturn("users");
+        cache.put("user-1", "Alice");
+        verify(remote).put("user-1", "Alice");
+
+        cache.evict("user-1");
+
+        verify(remote).evict("user-1");
+        assertEquals(List.of("users/user-1"), evictions);
+        assertNull(cache.get("user-1"));
+    }
+
+    @Test
+    void testEvictLocal_keepsRedisEntry() {
+        cache.put("user-1", "Alice");
+        when(remote.get("user-1")).thenReturn(new SimpleValueWrapper("Alice v2"));
+
+        cache.evictLocal("user-1");
+
+        assertEquals("Alice v2", cache.get("user-1", String.class));
+        verify(remote, never()).evict(any());
+        assertTrue(evictions.isEmpty());
+    }
+
+    @Test
+    void testEvict_dropsLocalTierAndTellsOtherReplicasWhenRedisFails() {
+        when(remote.getName()).thenReturn("users");
+        cache.put("user-1", "Alice");
+        doThrow(new IllegalStateException("Redis is down")).when(remote).evict("user-1");
+
+        assertThrows(IllegalStateException.class, () -> cache.evict("user-1"));
+
+        assertEquals(List.of("users/user-1"), evictions);
+        when(remote.get("user-1")).thenReturn(null);
+        assertNull(cache.get("user-1"));
+    }
+}
@@ -0,0 +1,121 @@
+package com.sadi.backend.unittests;
+
+import com.google.common.util.concurrent.Futures;
+import com.sadi.backend.configs.LogVectorQuantizationConfig;
+import com.sadi.backend.configs.LogVectorTenancyConfig;
+import com.sadi.backend.configs.VectorStoreConfig;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.Points;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VectorStoreConfigTest {
+
+    @Mock
+    private QdrantClient qdrantClient;
+
+    @Mock
+    private EmbeddingModel embeddingModel;
+
+    private final LogVectorQuantizationConfig quantizationConfig = new LogVectorQuantizationConfig();
+    private final LogVectorTenancyConfig tenancyConfig = new LogVectorTenancyConfig();
+
+    @BeforeEach
+    void setUp() {
+        quantizationConfig.setType(LogVectorQuantizationConfig.Type.NONE);
+        quantizationConfig.setOriginalsOnDisk(false);
+    }
+
+    private Collections.CollectionInfo collection(boolean tenantIndex, int payloadM, int m) {
+        return Collections.CollectionInfo.newBuilder()
+                .putPayloadSchema("userId", Collections.PayloadSchemaInfo.newBuilder()
+                        .setDataType(Collections.PayloadSchemaType.Keyword)
+                        .setParams(Collections.PayloadIndexParams.newBuilder()
+                                .setKeywordIndexParams(Collections.KeywordIndexParams.newBuilder().setIsTenant(tenantIndex)))
+                        .build())
+                .setConfig(Collections.CollectionConfig.newBuilder()
+                        .setHnswConfig(Collections.HnswConfigDiff.newBuilder().setPayloadM(payloadM).setM(m)))
+                .build();
+    }
+
+    private void existingCollection(Collections.CollectionInfo info) {
+        when(qdrantClient.collectionExistsAsync("logs")).thenReturn(Futures.immediateFuture(true));
+        when(qdrantClient.getCollectionInfoAsync("logs")).thenReturn(Futures.immediateFuture(info));
+    }
+
+    private void logVectorStore() {
+        new VectorStoreConfig().logVectorStore(qdrantClient, embeddingModel, quantizationConfig, tenancyConfig);
+    }
+
+    @Test
+    void testLogVectorStore_newCollectionGetsPerUserGraphsAndATenantIndex() {
+        when(embeddingModel.dimensions()).thenReturn(1536);
+        when(qdrantClient.collectionExistsAsync("logs")).thenReturn(Futures.immediateFuture(false));
+        when(qdrantClient.createCollectionAsync(any(Collections.CreateCollection.class))).thenReturn(Futures.immediateFuture(
+                Collections.CollectionOperationResponse.newBuilder().setResult(true).build()));
+
+        logVectorStore();
+
+        ArgumentCaptor<Collections.CreateCollection> created = ArgumentCaptor.captor();
+        verify(qdrantClient).createCollectionAsync(created.capture());
+        assertEquals(16, created.getValue().getHnswConfig().getPayloadM());
+        assertEquals(0, created.getValue().getHnswConfig().getM());
+        ArgumentCaptor<Collections.PayloadIndexParams> params = ArgumentCaptor.captor();
+        verify(qdrantClient).createPayloadIndexAsync(eq("logs"), eq("userId"), eq(Collections.PayloadSchemaType.Keyword),
+                params.capture(), eq(true), isNull(), isNull());
+        assertTrue(params.getValue().getKeywordIndexParams().getIsTenant());
+    }
+
+    @Test
+    void testLogVectorStore_leavesAnExistingCollectionAloneByDefault() {
+        existingCollection(collection(false, 0, 16));
+
+        logVectorStore();
+
+        verify(qdrantClient, never()).deletePayloadIndexAsync(anyString(), anyString(), any(), any(), any());
+        verify(qdrantClient, never()).createPayloadIndexAsync(anyString(), anyString(), any(), any(), any(), any(), any());
+        verify(qdrantClient, never()).updateCollectionAsync(any(Collections.UpdateCollection.class));
+    }
+
+    @Test
+    void testLogVectorStore_migrationRecreatesTheUserIndexAsTenantIndexAndSwitchesGraphs() {
+        tenancyConfig.setMigrateExisting(true);
+        existingCollection(collection(false, 0, 16));
+        when(qdrantClient.deletePayloadIndexAsync("logs", "userId", true, null, null))
+                .thenReturn(Futures.immediateFuture(Points.UpdateResult.getDefaultInstance()));
+        when(qdrantClient.createPayloadIndexAsync(eq("logs"), eq("userId"), eq(Collections.PayloadSchemaType.Keyword),
+                argThat(params -> params.getKeywordIndexParams().getIsTenant()), eq(true), isNull(), isNull()))
+                .thenReturn(Futures.immediateFuture(Points.UpdateResult.getDefaultInstance()));
+        when(qdrantClient.updateCollectionAsync(any(Collections.UpdateCollection.class)))
+                .thenReturn(Futures.immediateFuture(Collections.CollectionOperationResponse.getDefaultInstance()));
+
+        logVectorStore();
+
+        ArgumentCaptor<Collections.UpdateCollection> update = ArgumentCaptor.captor();
+        verify(qdrantClient).updateCollectionAsync(update.capture());
+        assertEquals(16, update.getValue().getHnswConfig().getPayloadM());
+        assertEquals(0, update.getValue().getHnswConfig().getM());
+    }
+
+    @Test
+    void testLogVectorStore_migrationSkipsACollectionAlreadyInTheTenantLayout() {
+        tenancyConfig.setMigrateExisting(true);
+        existingCollection(collection(true, 16, 0));
+
+        logVectorStore();
+
+        verify(qdrantClient, never()).createPayloadIndexAsync(anyString(), anyString(), any(), any(), any(), any(), any());
+        verify(qdrantClient, never()).updateCollectionAsync(any(Collections.UpdateCollection.class));
+    }
+}